@@ -1,81 +1,632 @@
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.nio.file.FileSystemNotFoundException;
+import java.io.IOException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.List;
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Loads walking graphs and answers route queries about them. Queries always run against an
+ * immutable Snapshot of the graph, which readData() builds off to the side and then publishes
+ * atomically. Any number of threads may therefore query a Backend at once without locking, while
+ * another thread reads a file: each query sees either the graph from before the file was read or
+ * the one from after, never a graph that is half built.
+ */
 public class Backend implements BackendInterface, ShortestPath {
-    public static GraphADT<String,Double> graph;
-    double totalTime = 0.0;
-    public Backend(DijkstraGraph<String, Double> graph) {
+    // the default number of routes whose results are kept, and how long each is kept for
+    public static final int DEFAULT_RESULT_CACHE_SIZE = 1024;
+    public static final long DEFAULT_RESULT_CACHE_TTL_SECONDS = 600;
+    // the most shortest path trees each snapshot keeps for popular start buildings, and the memory
+    // they may use. No trees are kept unless setTreeCacheLimits() asks for them, since the first
+    // query from each building would otherwise search the whole graph instead of stopping at its
+    // destination
+    public static final int DEFAULT_TREE_CACHE_TREES = 0;
+    public static final long DEFAULT_TREE_CACHE_BYTES = 16L * 1024 * 1024;
+    // parses DOT files in parallel chunks on the common ForkJoinPool
+    private static final ParallelDotLoader LOADER = new ParallelDotLoader();
+    // the graph that DOT files are loaded into, which queries never touch; guarded by loadLock
+    private final GraphADT<String, Double> graph;
+    // the walking time of every edge statement loaded into graph so far; guarded by loadLock
+    private double loadedTime;
+    // held while a file is read, so that two reads of the same Backend do not overlap
+    private final Object loadLock = new Object();
+    // the graph that queries run against
+    private final AtomicReference<Snapshot> snapshot;
+    // the results of recent findPath calls by (source, destination)
+    private final ResultCache<Map.Entry<String, String>, PathResult<String>> resultCache;
+    // the searches running now by ((source, destination), snapshot version), which identical
+    // queries wait on instead of searching again
+    private final Map<Map.Entry<Map.Entry<String, String>, Integer>,
+            CompletableFuture<PathResult<String>>> inFlight = new ConcurrentHashMap<>();
+    // the number of searches run, and the number of queries that waited on a running one instead
+    private final LongAdder searchCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    // the algorithm that findPath() searches snapshots with, and the walking speed A* assumes
+    private volatile SearchMode searchMode = SearchMode.DIJKSTRA;
+    private volatile double maxWalkingSpeed = DijkstraGraph.DEFAULT_MAX_WALKING_SPEED;
+    // the limits of the tree cache that each snapshot published from now on gets
+    private volatile int treeCacheTrees = DEFAULT_TREE_CACHE_TREES;
+    private volatile long treeCacheBytes = DEFAULT_TREE_CACHE_BYTES;
+
+    /**
+     * An immutable graph that queries run against, along with the statistics pathData() reports
+     * about it. The graph is a CompactGraph frozen from the graph files were loaded into, or a
+     * MappedGraph read from a graph file, and neither ever changes or keeps state between searches.
+     *
+     * A CompactGraph snapshot also holds what its searches reuse: the shortest path trees of
+     * recently queried start buildings when trees are kept, and the landmark tables and
+     * contraction hierarchy that ALT and CONTRACTION_HIERARCHY searches need, which are built by
+     * the first such search. All of them belong to this snapshot alone, so they never need to be
+     * invalidated.
+     */
+    public static final class Snapshot {
+        private final GraphADT<String, Double> graph;
+        private final double totalTime;
+        private final int version;
+        // the shortest path trees kept for DIJKSTRA searches, or null if none are kept; guarded by
+        // itself, since ShortestPathTreeCache is not thread-safe
+        private final ShortestPathTreeCache<String> treeCache;
+        private LandmarkIndex landmarks = null; // guarded by this
+        private ContractionHierarchy<String> hierarchy = null; // guarded by this
+
+        Snapshot(GraphADT<String, Double> graph, double totalTime, int version,
+                ShortestPathTreeCache<String> treeCache) {
+            this.graph = graph;
+            this.totalTime = totalTime;
+            this.version = version;
+            this.treeCache = graph instanceof CompactGraph ? treeCache : null;
+        }
+
+        /**
+         * Returns the graph of this snapshot, which must not be changed.
+         * @return the immutable graph that queries run against
+         */
+        public GraphADT<String, Double> getGraph() {
+            return graph;
+        }
+
+        /**
+         * Returns the sum of the walking times read into this snapshot's graph.
+         * @return the total walking time
+         */
+        public double getTotalTime() {
+            return totalTime;
+        }
+
+        /**
+         * Returns the number of snapshots this Backend published before this one, which results
+         * computed from this snapshot are cached under.
+         * @return the version of this snapshot
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns the cache of shortest path trees that DIJKSTRA searches of this snapshot use,
+         * which reports how often a stored tree was found. Callers must hold its lock.
+         * @return the tree cache, or null if this snapshot keeps no trees
+         */
+        public ShortestPathTreeCache<String> getTreeCache() {
+            return treeCache;
+        }
+
+        /**
+         * Returns the landmark tables of this snapshot's CompactGraph, building them first if no
+         * search has needed them yet.
+         * @return the landmark tables
+         */
+        synchronized LandmarkIndex getLandmarks() {
+            if (landmarks == null) {
+                landmarks = LandmarkIndex.build((CompactGraph<String>) graph,
+                        DijkstraGraph.DEFAULT_LANDMARK_COUNT);
+            }
+            return landmarks;
+        }
+
+        /**
+         * Returns the contraction hierarchy of this snapshot's CompactGraph, building it first if
+         * no search has needed it yet.
+         * @return the contraction hierarchy
+         */
+        synchronized ContractionHierarchy<String> getHierarchy() {
+            if (hierarchy == null) {
+                hierarchy = new ContractionHierarchy<>((CompactGraph<String>) graph);
+            }
+            return hierarchy;
+        }
+    }
+
+    /**
+     * Creates a Backend that loads the seconds= walking times of DOT files into a DoubleWeightGraph,
+     * whose searches never box a weight.
+     */
+    public Backend() {
+        this(new DoubleWeightGraph<>());
+    }
+
+    /**
+     * Creates a Backend that loads data into the provided graph. Queries run against snapshots of
+     * it, so changes made to the graph directly are only seen after the next call to readData().
+     * A DijkstraGraph's search mode and maximum walking speed become those of the Backend.
+     * @param graph the graph to load data into, which may already hold nodes and edges
+     */
+    public Backend(GraphADT<String, Double> graph) {
+        this(graph, DEFAULT_RESULT_CACHE_SIZE, DEFAULT_RESULT_CACHE_TTL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a Backend whose route results are cached with the provided limits. The first
+     * snapshot holds whatever the graph already holds, with the sum of its edge weights as its
+     * total walking time.
+     * @param graph the graph to load data into, which may already hold nodes and edges
+     * @param resultCacheSize the most routes whose results are kept
+     * @param resultCacheTtl how long each route's result is kept
+     * @param unit the unit of resultCacheTtl
+     * @throws IllegalArgumentException if graph is not a kind of graph that can be frozen
+     */
+    public Backend(GraphADT<String, Double> graph, int resultCacheSize, long resultCacheTtl, TimeUnit unit) {
         this.graph = graph;
+        if (graph instanceof DijkstraGraph) {
+            searchMode = ((DijkstraGraph<String, Double>) graph).getSearchMode();
+            maxWalkingSpeed = ((DijkstraGraph<String, Double>) graph).getMaxWalkingSpeed();
+        }
+        resultCache = new ResultCache<>(resultCacheSize, resultCacheTtl, unit);
+        CompactGraph<String> frozen = freeze(graph);
+        for (double weight : frozen.weights) {
+            loadedTime += weight;
+        }
+        snapshot = new AtomicReference<>(new Snapshot(frozen, loadedTime, 0, newTreeCache()));
+    }
+
+    /**
+     * Sets the algorithm that findPath() searches snapshots with. Every mode finds a route of the
+     * same cost, so results cached under the previous mode are still returned. Snapshots of a
+     * MappedGraph are always searched with Dijkstra's algorithm.
+     * @param searchMode the algorithm to use
+     */
+    public void setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
+    }
+
+    /**
+     * Returns the algorithm that findPath() searches snapshots with.
+     * @return the search mode, which is DIJKSTRA unless it was set
+     */
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    /**
+     * Sets the fastest walking speed along any edge, which lets ASTAR searches bound the walking
+     * time left by the distance left. Setting it higher than anyone walks keeps routes shortest,
+     * but settles more buildings.
+     * @param metersPerSecond the maximum walking speed
+     * @throws IllegalArgumentException if metersPerSecond is not positive
+     */
+    public void setMaxWalkingSpeed(double metersPerSecond) {
+        if (!(metersPerSecond > 0.0)) {
+            throw new IllegalArgumentException("metersPerSecond must be positive");
+        }
+        maxWalkingSpeed = metersPerSecond;
+    }
+
+    /**
+     * Returns the fastest walking speed that ASTAR searches assume.
+     * @return the maximum walking speed in meters per second
+     */
+    public double getMaxWalkingSpeed() {
+        return maxWalkingSpeed;
+    }
+
+    /**
+     * Sets the limits of the shortest path tree cache that DIJKSTRA searches use, which keeps no
+     * trees until this is called. Each snapshot published from now on gets a cache of its own with
+     * these limits, while the current snapshot keeps its cache. Trees only pay off when the same
+     * start buildings are queried again and again, since storing one searches the whole graph.
+     * @param maxTrees the most trees to keep, or 0 to stop keeping trees
+     * @param maxBytes the most memory that the kept trees may use together
+     * @throws IllegalArgumentException if maxTrees is negative, or maxTrees is positive and
+     *         maxBytes is not
+     */
+    public void setTreeCacheLimits(int maxTrees, long maxBytes) {
+        if (maxTrees < 0) {
+            throw new IllegalArgumentException("maxTrees must not be negative");
+        }
+        if (maxTrees > 0 && maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        treeCacheTrees = maxTrees;
+        treeCacheBytes = maxBytes;
+    }
+
+    // creates an empty tree cache for a new snapshot, or returns null if trees are not kept
+    private ShortestPathTreeCache<String> newTreeCache() {
+        int maxTrees = treeCacheTrees;
+        return maxTrees == 0 ? null : new ShortestPathTreeCache<>(maxTrees, treeCacheBytes);
+    }
+
+    /**
+     * Returns the snapshot that queries currently run against. Each call of a query method reads
+     * the snapshot once, so it answers from a single snapshot even while a file is being read.
+     * @return the current snapshot
+     */
+    public Snapshot getSnapshot() {
+        return snapshot.get();
     }
+
+    /**
+     * Loads the buildings and walking times of a DOT file into the graph, and then publishes a new
+     * snapshot of it for queries. Each edge statement with a seconds= attribute adds an edge from
+     * its first to its second building, or from its second to its first if that edge is already in
+     * the graph, so that a path listed in both directions gets an edge each way. Edges without a
+     * walking time, or whose walking time is negative or infinite, only add their buildings. Files
+     * are added to what was loaded before them. Large files are parsed on several threads. The
+     * edges are collected in file order into an EdgeBatch, which is inserted into the graph in one
+     * step once the whole file has been read.
+     *
+     * Files written by GraphFile are recognized by their header instead. Such a file is published
+     * as a MappedGraph that answers queries straight from the file, which is much faster to open
+     * than a DOT file is to parse. It replaces the graph for queries until the next DOT file is
+     * read, and is not added to the graph that DOT files are loaded into.
+     *
+     * Queries running while a file is read keep using the snapshot they started with. Reads of the
+     * same Backend from several threads take turns.
+     * @param file the DOT file to read
+     * @return true if the file was read, or false if it could not be read or is not valid DOT
+     */
     public Boolean readData(File file) {
-        try (Scanner scanner = new Scanner(file)) {
-            Pattern pattern = Pattern.compile("\"([^\"]+)\"\\s*--\\s*\"([^\"]+)\"\\s*\\[seconds=(\\d+\\.?\\d*)\\]");
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                if (line.contains("seconds")) {
-                    Matcher matcher = pattern.matcher(line);
-                    if (matcher.find()) {
-                        String node1 = matcher.group(1);
-                        String node2 = matcher.group(2);
-                        double seconds = Double.parseDouble(matcher.group(3));
-                        if (!graph.containsNode(node1)) {
-                            graph.insertNode(node1);
-                        }
-                        if (!graph.containsNode(node2)) {
-                            graph.insertNode(node2);
-                        }
-                        if (!graph.containsEdge(node1, node2)) {
-                            graph.insertEdge(node1, node2, seconds);
-                        } else {
-                            graph.insertEdge(node2, node1, seconds);
-                        }
-                        totalTime += seconds;
-                    }
+        synchronized (loadLock) {
+            if (GraphFile.isGraphFile(file.toPath())) {
+                try {
+                    MappedGraph mapped = MappedGraph.open(file.toPath());
+                    publish(mapped, mapped.getTotalTime());
+                } catch (IOException e) {
+                    return false;
+                }
+                return true;
+            }
+            DotLoad load = new DotLoad();
+            try {
+                LOADER.parse(file.toPath(), load);
+            } catch (IOException e) {
+                return false;
+            }
+            graph.insertEdges(load.batch);
+            for (Map.Entry<String, Position> position : load.positions.entrySet()) {
+                storePosition(position.getKey(), position.getValue());
+            }
+            loadedTime += load.seconds;
+            publish(freeze(graph), loadedTime);
+            return true;
+        }
+    }
+
+    // makes graph the one that queries run against, as the next version
+    private void publish(GraphADT<String, Double> graph, double totalTime) {
+        int version = snapshot.get().getVersion() + 1;
+        snapshot.set(new Snapshot(graph, totalTime, version, newTreeCache()));
+    }
+
+    /**
+     * Returns an immutable copy of a graph that files are loaded into.
+     * @param graph the graph to copy
+     * @return a CompactGraph with the same nodes and edges
+     * @throws IllegalArgumentException if graph is not a BaseGraph or PrimitiveWeightGraph
+     */
+    @SuppressWarnings("unchecked")
+    private static CompactGraph<String> freeze(GraphADT<String, Double> graph) {
+        if (graph instanceof BaseGraph) {
+            return ((BaseGraph<String, Double>) graph).freeze();
+        }
+        if (graph instanceof PrimitiveWeightGraph) {
+            return ((PrimitiveWeightGraph<String, Double>) graph).freeze();
+        }
+        throw new IllegalArgumentException("files can not be loaded into a "
+                + graph.getClass().getSimpleName());
+    }
+
+    /**
+     * The position of a node: planar meters, or longitude (x) and latitude (y) in degrees when
+     * geographic is true.
+     */
+    private record Position(double x, double y, boolean geographic) {
+    }
+
+    /**
+     * The statements of one DOT file as it is read, collected into a batch that readData() inserts
+     * once the whole file has been read. Nothing is changed in the graph before then, so a file
+     * that turns out not to be valid DOT part way through leaves no trace of its first statements.
+     */
+    private class DotLoad implements DotParser.Handler {
+        final EdgeBatch<String, Double> batch = new EdgeBatch<>(DuplicatePolicy.KEEP_LAST);
+        // the last position given for each building, applied after the batch is inserted
+        final Map<String, Position> positions = new LinkedHashMap<>();
+        double seconds = 0.0; // the sum of the walking times read
+
+        /**
+         * Adds a node statement's building to the batch, and keeps its position if it has one.
+         * @param name the name of the building
+         * @param attributes the attributes of the node statement
+         */
+        @Override
+        public void node(String name, DotParser.Attributes attributes) {
+            batch.addNode(name);
+            Position position = readPosition(attributes);
+            if (position != null) {
+                positions.put(name, position);
+            }
+        }
+
+        /**
+         * Adds an edge to the batch, along with both of its buildings. Edges whose seconds=
+         * attribute is missing, is not a number, or is negative or infinite only add their
+         * buildings, since shortest path searches need finite, non-negative weights.
+         * @param from the building the edge starts at
+         * @param to the building the edge ends at
+         * @param directed true for -> edges, which always go from from to to
+         * @param attributes the attributes of the edge
+         */
+        @Override
+        public void edge(String from, String to, boolean directed, DotParser.Attributes attributes) {
+            int u = batch.addNode(from);
+            int v = batch.addNode(to);
+            double edgeSeconds;
+            try {
+                edgeSeconds = attributes.getDouble("seconds", Double.NaN);
+            } catch (NumberFormatException e) {
+                return;
+            }
+            if (Double.isNaN(edgeSeconds) || edgeSeconds < 0.0 || Double.isInfinite(edgeSeconds)) {
+                return;
+            }
+            // only a graph that already held edges before this file needs to be checked as well
+            boolean forwardExists = batch.containsEdgeByIndex(u, v)
+                    || (graph.getEdgeCount() > 0 && graph.containsEdge(from, to));
+            if (directed || !forwardExists) {
+                batch.addByIndex(u, v, edgeSeconds);
+            } else {
+                batch.addByIndex(v, u, edgeSeconds);
+            }
+            seconds += edgeSeconds;
+        }
+    }
+
+    /**
+     * Finds the shortest route from source to destination in the current snapshot, reusing the
+     * result of an earlier call for the same route unless a new snapshot has been published since.
+     * Calls for a route that another thread is already searching for in the same snapshot wait for
+     * that search and share its result or exception, rather than searching again. Every other query
+     * method is answered from this one.
+     */
+    public PathResult<String> findPath(String source, String destination) {
+        return findPath(snapshot.get(), source, destination);
+    }
+
+    // finds the shortest route from source to destination in the provided snapshot
+    private PathResult<String> findPath(Snapshot current, String source, String destination) {
+        Map.Entry<String, String> route = new AbstractMap.SimpleImmutableEntry<>(source, destination);
+        PathResult<String> path = resultCache.get(route, current.getVersion());
+        if (path != null) {
+            return path;
+        }
+        Map.Entry<Map.Entry<String, String>, Integer> key =
+                new AbstractMap.SimpleImmutableEntry<>(route, current.getVersion());
+        CompletableFuture<PathResult<String>> search = new CompletableFuture<>();
+        CompletableFuture<PathResult<String>> running = inFlight.putIfAbsent(key, search);
+        if (running != null) {
+            coalescedCount.increment();
+            return await(running);
+        }
+        try {
+            searchCount.increment();
+            path = computePath(current, source, destination);
+            resultCache.put(route, path, current.getVersion());
+            search.complete(path);
+            return path;
+        } catch (RuntimeException | Error e) {
+            search.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, search);
+        }
+    }
+
+    /**
+     * Searches a snapshot for the shortest route from source to destination with the current
+     * search mode. findPath() calls this once for each route it does not find in the result cache,
+     * however many threads ask for that route at the same time. DIJKSTRA searches stop as soon as
+     * destination is settled, unless the snapshot keeps trees: then they answer from the shortest
+     * path tree of source in its tree cache, computing and storing that tree first if it is not
+     * there.
+     * @param current the snapshot to search
+     * @param source the building the route starts at
+     * @param destination the building the route ends at
+     * @return the shortest route
+     * @throws NoSuchElementException if either building or the route does not exist
+     */
+    protected PathResult<String> computePath(Snapshot current, String source, String destination) {
+        if (!(current.getGraph() instanceof CompactGraph)) {
+            return current.getGraph().shortestPath(source, destination);
+        }
+        CompactGraph<String> compact = (CompactGraph<String>) current.getGraph();
+        int from = compact.idOf(source);
+        int to = compact.idOf(destination);
+        if (from == -1 || to == -1) {
+            throw new NoSuchElementException();
+        }
+        switch (searchMode) {
+            case BIDIRECTIONAL:
+                return compact.bidirectionalPath(from, to);
+            case ASTAR:
+                double speed = maxWalkingSpeed;
+                return compact.shortestPath(from, to, v -> {
+                    double meters = compact.straightLineDistance(v, to);
+                    return Double.isNaN(meters) ? 0.0 : meters / speed;
+                });
+            case ALT:
+                LandmarkIndex landmarks = current.getLandmarks();
+                return compact.shortestPath(from, to, v -> landmarks.lowerBound(v, to));
+            case CONTRACTION_HIERARCHY:
+                return current.getHierarchy().shortestPath(source, destination);
+            case DIJKSTRA:
+            default:
+                if (current.getTreeCache() == null) {
+                    return compact.shortestPath(source, destination);
+                }
+                return treePath(current, compact, from, to);
+        }
+    }
+
+    // finds the shortest route from the building with id from to the one with id to in the shortest
+    // path tree of from, which is taken from the snapshot's tree cache or computed and stored there
+    private static PathResult<String> treePath(Snapshot current, CompactGraph<String> compact,
+            int from, int to) {
+        ShortestPathTreeCache<String> trees = current.getTreeCache();
+        ShortestPathTree<String> tree;
+        synchronized (trees) {
+            tree = trees.get(from, current.getVersion());
+        }
+        if (tree == null) {
+            // computed without the lock, so that searches from other buildings do not wait for it
+            tree = compact.shortestPathTree(from);
+            synchronized (trees) {
+                trees.put(tree, current.getVersion());
+            }
+        }
+        return tree.pathTo(to);
+    }
+
+    // waits for a search another thread is running, and rethrows what that search threw
+    private static PathResult<String> await(CompletableFuture<PathResult<String>> search) {
+        try {
+            return search.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of searches findPath() has run, which is the number of queries that were
+     * neither found in the result cache nor coalesced with a search already running.
+     * @return the search count
+     */
+    public long getSearchCount() {
+        return searchCount.sum();
+    }
+
+    /**
+     * Returns the number of queries that waited on an identical search another thread was already
+     * running, which is the number of searches that coalescing saved.
+     * @return the coalesced query count
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * Returns the cache of route results, which reports its hit and miss counts.
+     * @return the result cache
+     */
+    public ResultCache<Map.Entry<String, String>, PathResult<String>> getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Reads the position attributes of a node statement. Positions are given either as
+     * pos="latitude,longitude" in degrees, or as x= and y= in meters, which win when a statement
+     * has both. Other attributes are ignored.
+     * @param attributes the attributes of the node statement
+     * @return the position, or null if the statement gives none or it is malformed
+     */
+    private static Position readPosition(DotParser.Attributes attributes) {
+        Position position = null;
+        try {
+            String pos = attributes.get("pos");
+            if (pos != null) {
+                String[] latLon = pos.trim().split(",");
+                if (latLon.length == 2) {
+                    position = new Position(Double.parseDouble(latLon[1].trim()),
+                            Double.parseDouble(latLon[0].trim()), true);
                 }
             }
-        }catch (FileSystemNotFoundException | FileNotFoundException e) {
-            return false;
+            if (attributes.contains("x") && attributes.contains("y")) {
+                position = new Position(attributes.getDouble("x", Double.NaN),
+                        attributes.getDouble("y", Double.NaN), false);
+            }
+        } catch (NumberFormatException e) {
+            // leave nodes with malformed positions without a new position
+        }
+        return position;
+    }
+
+    /**
+     * Stores a position read from a DOT file with its node in the graph, if the graph keeps
+     * positions.
+     * @param name the name of the node
+     * @param position the position of the node
+     */
+    @SuppressWarnings("unchecked")
+    private void storePosition(String name, Position position) {
+        if (graph instanceof BaseGraph) {
+            BaseGraph<String, Double> positionedGraph = (BaseGraph<String, Double>) graph;
+            if (position.geographic()) {
+                positionedGraph.setNodeLocation(name, position.y(), position.x());
+            } else {
+                positionedGraph.setNodePosition(name, position.x(), position.y());
+            }
+        } else if (graph instanceof PrimitiveWeightGraph) {
+            PrimitiveWeightGraph<String, Double> positionedGraph =
+                    (PrimitiveWeightGraph<String, Double>) graph;
+            if (position.geographic()) {
+                positionedGraph.setNodeLocation(name, position.y(), position.x());
+            } else {
+                positionedGraph.setNodePosition(name, position.x(), position.y());
+            }
         }
-        return true;
     }
 
     public ArrayList<String> findShortestPath(String source, String destination) {
+        PathResult<String> path = findPath(source, destination);
         ArrayList<String> pathDatas = new ArrayList<>();
-        pathDatas.add(graph.shortestPathData(source,destination).toString());
-        pathDatas.add("Total Time: "+graph.shortestPathCost(source,destination));
+        pathDatas.add(path.getNodes().toString());
+        pathDatas.add("Total Time: "+path.getTotalCost());
         return pathDatas;
     }
 
     public ArrayList<Double> pathData() {
+        Snapshot current = snapshot.get();
         ArrayList<Double> pathDatas = new ArrayList<>();
-        pathDatas.add((double) graph.getNodeCount());
-        pathDatas.add((double) graph.getEdgeCount()/2);
-        pathDatas.add(totalTime/2);
+        pathDatas.add((double) current.getGraph().getNodeCount());
+        pathDatas.add((double) current.getGraph().getEdgeCount()/2);
+        pathDatas.add(current.getTotalTime()/2);
         return pathDatas;
     }
 
     public ArrayList<String> getShortestPath(String source, String destination) {
         ArrayList<String> pathDatas = new ArrayList<>();
-        pathDatas.add(graph.shortestPathData(source,destination).toString());
+        pathDatas.add(findPath(source, destination).getNodes().toString());
         return pathDatas;
     }
 
     public ArrayList<Double> getWalkingTimes(String source, String destination) {
-        ArrayList<Double> pathCost = new ArrayList<>();
-        List<String> pathDatas = graph.shortestPathData(source, destination);
-        for(int i=0;i<pathDatas.size()-1;i++){
-            pathCost.add(graph.getEdge(pathDatas.get(i),pathDatas.get(i+1)));
-        }
-        return pathCost;
+        return new ArrayList<>(findPath(source, destination).getSegmentCosts());
     }
 
     public double getTotalTime(String source, String destination) {
-        return graph.shortestPathCost(source,destination);
+        return findPath(source, destination).getTotalCost();
     }
 }
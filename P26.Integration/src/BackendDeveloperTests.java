@@ -1,8 +1,24 @@
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class BackendDeveloperTests {
     @Test
@@ -60,5 +76,557 @@ public class BackendDeveloperTests {
             Assertions.assertEquals(pathCosts.get(i),expected.get(i));
         }
     }
+    @Test
+    public void test6(){
+        DijkstraGraph<String,Double> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+        Backend backend = new Backend(graph);
+        backend.readData(new File("campus.dot"));
+        PathResult<String> path = backend.findPath("Memorial Union","Computer Sciences and Statistics");
+        Assertions.assertEquals(path.getNodes().toString(), backend.findShortestPath("Memorial Union","Computer Sciences and Statistics").get(0));
+        Assertions.assertEquals(path.getSegmentCosts(), backend.getWalkingTimes("Memorial Union","Computer Sciences and Statistics"));
+        Assertions.assertEquals(1302.2, path.getTotalCost(), 1e-9);
+        PathResult<String> commaPath = backend.findPath("Wendt Commons","Atmospheric, Oceanic and Space Sciences");
+        Assertions.assertEquals("Atmospheric, Oceanic and Space Sciences", commaPath.getEnd());
+    }
+    @Test
+    public void test7() throws IOException {
+        File file = File.createTempFile("positions", ".dot");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), "graph positions {\n"
+                + "\t\"Bascom Hall\" [pos=\"43.0753,-89.4041\"];\n"
+                + "\t\"Van Vleck\" [x=120.5, y=-40];\n"
+                + "\t\"Bascom Hall\" -- \"Van Vleck\" [seconds=180.0];\n"
+                + "}\n");
+        DijkstraGraph<String,Double> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+        Backend backend = new Backend(graph);
+        Assertions.assertTrue(backend.readData(file));
+        Assertions.assertArrayEquals(new double[] {-89.4041, 43.0753}, graph.getNodePosition("Bascom Hall"));
+        Assertions.assertArrayEquals(new double[] {120.5, -40.0}, graph.getNodePosition("Van Vleck"));
+        Assertions.assertEquals(180.0, backend.getTotalTime("Bascom Hall", "Van Vleck"));
+        // the primitive weight graph that a default Backend loads into keeps positions as well
+        DoubleWeightGraph<String> primitiveGraph = new DoubleWeightGraph<>();
+        Assertions.assertTrue(new Backend(primitiveGraph).readData(file));
+        Assertions.assertArrayEquals(new double[] {-89.4041, 43.0753}, primitiveGraph.getNodePosition("Bascom Hall"));
+        Assertions.assertArrayEquals(new double[] {120.5, -40.0}, primitiveGraph.getNodePosition("Van Vleck"));
+        primitiveGraph.removeNode("Van Vleck");
+        primitiveGraph.insertNode("Van Vleck");
+        Assertions.assertNull(primitiveGraph.getNodePosition("Van Vleck"));
+    }
+    @Test
+    public void test8() throws IOException {
+        DijkstraGraph<String,Double> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+        Backend backend = new Backend(graph);
+        backend.readData(new File("campus.dot"));
+        ResultCache<?, PathResult<String>> cache = backend.getResultCache();
+        PathResult<String> path = backend.findPath("Memorial Union","Computer Sciences and Statistics");
+        Assertions.assertSame(path, backend.findPath("Memorial Union","Computer Sciences and Statistics"));
+        Assertions.assertEquals(1302.2, backend.getTotalTime("Memorial Union","Computer Sciences and Statistics"), 1e-9);
+        backend.getShortestPath("Memorial Union","Computer Sciences and Statistics");
+        Assertions.assertEquals(1, cache.getMissCount());
+        Assertions.assertEquals(3, cache.getHitCount());
+        // reading a new edge between the two buildings makes every cached route out of date
+        File shortcut = File.createTempFile("shortcut", ".dot");
+        shortcut.deleteOnExit();
+        Files.writeString(shortcut.toPath(), "digraph { \"Memorial Union\" -> \"Computer Sciences and Statistics\" [seconds=1.0]; }");
+        Assertions.assertTrue(backend.readData(shortcut));
+        Assertions.assertEquals(1.0, backend.getTotalTime("Memorial Union","Computer Sciences and Statistics"));
+        Assertions.assertEquals(2, cache.getMissCount());
+        Assertions.assertThrows(NullPointerException.class, () -> backend.findPath(null, "Memorial Union"));
+    }
+    @Test
+    public void test10(){
+        Backend backend = new Backend();
+        Assertions.assertTrue(backend.readData(new File("campus.dot")));
+        ArrayList<String> path = backend.findShortestPath("Memorial Union","Computer Sciences and Statistics");
+        Assertions.assertEquals("[Memorial Union, Radio Hall, Education Building, South Hall, Law Building, X01, Luther Memorial Church, Noland Hall, Meiklejohn House, Computer Sciences and Statistics]", path.get(0));
+        Assertions.assertEquals("Total Time: 1302.2", path.get(1));
+        Assertions.assertEquals(160.0, backend.pathData().get(0));
+        Assertions.assertEquals(400.0, backend.pathData().get(1));
+        DijkstraGraph<String,Double> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+        Backend boxed = new Backend(graph);
+        boxed.readData(new File("campus.dot"));
+        Assertions.assertEquals(boxed.getWalkingTimes("Wendt Commons","Bascom Hall"), backend.getWalkingTimes("Wendt Commons","Bascom Hall"));
+    }
+    @Test
+    public void test9(){
+        AtomicLong now = new AtomicLong();
+        ResultCache<String, Integer> cache = new ResultCache<>(2, 10, TimeUnit.NANOSECONDS, now::get);
+        cache.put("a", 1, 0);
+        cache.put("b", 2, 0);
+        Assertions.assertEquals(1, cache.get("a", 0));
+        cache.put("c", 3, 0); // evicts b, which was not used since it was stored
+        Assertions.assertNull(cache.get("b", 0));
+        Assertions.assertEquals(1, cache.getEvictionCount());
+        now.set(10);
+        Assertions.assertNull(cache.get("a", 0)); // expired
+        cache.put("d", 4, 0);
+        Assertions.assertNull(cache.get("d", 1)); // stored for another version
+        cache.put("e", 5, 0); // computed from the old version
+        Assertions.assertNull(cache.get("e", 1));
+        // a reader still on an older version never sees a result computed from a newer one
+        cache.put("f", 6, 2);
+        Assertions.assertNull(cache.get("f", 1));
+        Assertions.assertEquals(6, cache.get("f", 2));
+        cache.put("f", 7, 1); // does not replace the result for the newer version
+        Assertions.assertEquals(6, cache.get("f", 2));
+        Assertions.assertEquals(3, cache.getHitCount());
+        Assertions.assertEquals(5, cache.getMissCount());
+        Assertions.assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void test11() throws IOException {
+        File file = File.createTempFile("syntax", ".dot");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), "/* walking times\n   between buildings */\n"
+                + "# 1 \"campus.dot\"\n"
+                + "strict digraph \"syntax\" {\n"
+                + "  rankdir=LR; edge [color=gray seconds=60]\n"
+                + "  \"Bascom Hall\" [shape=box, pos=\"43.0753,-89.4041\"]; // a node statement\n"
+                + "  \"Bascom Hall\":n -> Library -> \"Van\\\"Vleck\" [style=dashed][seconds=\"1.5e2\"];\n"
+                + "  Library -> \"Bascom Hall\"\n"
+                + "  subgraph cluster { Union -> Library [seconds=-.5, color=\"red\"] }\n"
+                + "  Union -> \"Bascom Hall\" [seconds=NaN]; Union -> \"Van\\\"Vleck\" [seconds=Infinity]\n"
+                + "}\n");
+        DijkstraGraph<String,Double> graph = new DijkstraGraph<>();
+        Backend backend = new Backend(graph);
+        Assertions.assertTrue(backend.readData(file));
+        Assertions.assertEquals(4, graph.getNodeCount());
+        Assertions.assertEquals(150.0, graph.getEdge("Bascom Hall", "Library"));
+        Assertions.assertEquals(150.0, graph.getEdge("Library", "Van\"Vleck"));
+        Assertions.assertEquals(60.0, graph.getEdge("Library", "Bascom Hall"));
+        // negative, NaN and infinite walking times are not loaded, but their buildings are
+        Assertions.assertFalse(graph.containsEdge("Union", "Library"));
+        Assertions.assertFalse(graph.containsEdge("Union", "Bascom Hall"));
+        Assertions.assertFalse(graph.containsEdge("Union", "Van\"Vleck"));
+        Assertions.assertTrue(graph.containsNode("Union"));
+        Assertions.assertArrayEquals(new double[] {-89.4041, 43.0753}, graph.getNodePosition("Bascom Hall"));
+        Assertions.assertEquals(360.0, backend.pathData().get(2) * 2, 1e-9);
+
+        Files.writeString(file.toPath(), "graph broken {\n  x [pos=\"1,2\"];\n  a -- b [seconds=1];\n  c -- { d e }\n}\n");
+        DotSyntaxException error = Assertions.assertThrows(DotSyntaxException.class,
+                () -> DotParser.parse(file.toPath(), new IgnoringHandler()));
+        Assertions.assertEquals(4, error.getLineNumber());
+        // a file that fails part way leaves nothing behind, not even for the next file read
+        DijkstraGraph<String,Double> untouched = new DijkstraGraph<>();
+        Backend failed = new Backend(untouched);
+        Assertions.assertFalse(failed.readData(file));
+        Assertions.assertEquals(0, untouched.getNodeCount());
+        Files.writeString(file.toPath(), "graph fixed {\n  a -- b [seconds=1];\n}\n");
+        Assertions.assertTrue(failed.readData(file));
+        Assertions.assertFalse(untouched.containsNode("x"));
+        Assertions.assertEquals(2.0, failed.pathData().get(0));
+
+        java.util.Random random = new java.util.Random(16);
+        for (int i = 0; i < 10000; i++) {
+            String number = i % 3 == 0 ? Double.toString(random.nextDouble() * 1000)
+                    : i % 3 == 1 ? String.format("%.1f", random.nextDouble() * 500) : Integer.toString(random.nextInt() / 7);
+            byte[] bytes = number.getBytes();
+            Assertions.assertEquals(Double.parseDouble(number), DotParser.parseDouble(bytes, 0, bytes.length), number);
+        }
+    }
+
+    @Test
+    public void test12() throws IOException {
+        File file = File.createTempFile("chunks", ".dot");
+        file.deleteOnExit();
+        StringBuilder dot = new StringBuilder("digraph chunks {\n  node [color=red]\n");
+        for (int i = 0; i < 2000; i++) {
+            dot.append("  \"n").append(i).append("\" -> \"n").append(i + 1).append("\" [seconds=").append(i % 97).append("]\n");
+            if (i % 100 == 0)
+                dot.append("  \"n").append(i + 1).append("\" -> \"n").append(i).append("\"\n");
+            if (i % 500 == 250)
+                dot.append("  edge [seconds=7]; \"n").append(i).append("\" [color=blue]\n");
+        }
+        dot.append("}\n");
+        Files.writeString(file.toPath(), dot);
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        ParallelDotLoader loader = new ParallelDotLoader(pool, 1024);
+        RecordingHandler sequential = new RecordingHandler();
+        DotParser.parse(file.toPath(), sequential);
+        RecordingHandler parallel = new RecordingHandler();
+        Assertions.assertEquals(8, loader.parse(file.toPath(), parallel));
+        Assertions.assertEquals(sequential.statements, parallel.statements);
+        Assertions.assertEquals(2024, sequential.statements.size());
+        Assertions.assertTrue(sequential.statements.contains("edge n201 -> n200 NaN null"));
+        Assertions.assertTrue(sequential.statements.contains("edge n1901 -> n1900 7.0 null"));
+        Assertions.assertTrue(sequential.statements.contains("node n1750 blue"));
+
+        // statements, strings and comments that span lines make some chunks start part way
+        // through them, which must give the same statements as a sequential parse
+        Files.writeString(file.toPath(), dot.toString().replace("\" [seconds=", "\"\n    [seconds=")
+                .replace("edge [seconds=7];", "/* a comment\n that spans\n lines */ edge [seconds=7];"));
+        sequential = new RecordingHandler();
+        DotParser.parse(file.toPath(), sequential);
+        parallel = new RecordingHandler();
+        loader.parse(file.toPath(), parallel);
+        Assertions.assertEquals(sequential.statements, parallel.statements);
+        Files.writeString(file.toPath(), dot.toString().replace("\"n1999\" ->", "\"n1999\" ] ->"));
+        Assertions.assertThrows(DotSyntaxException.class, () -> loader.parse(file.toPath(), new IgnoringHandler()));
+        pool.shutdown();
+    }
+
+    @Test
+    public void test13() throws IOException {
+        File file = File.createTempFile("campus", ".pfg");
+        file.deleteOnExit();
+        GraphFile.convert(new File("campus.dot"), file.toPath());
+        Assertions.assertTrue(GraphFile.isGraphFile(file.toPath()));
+        Assertions.assertFalse(GraphFile.isGraphFile(new File("campus.dot").toPath()));
+        Backend backend = new Backend();
+        Assertions.assertTrue(backend.readData(file));
+        Assertions.assertTrue(backend.getSnapshot().getGraph() instanceof MappedGraph);
+        ArrayList<String> path = backend.findShortestPath("Memorial Union","Computer Sciences and Statistics");
+        Assertions.assertEquals("[Memorial Union, Radio Hall, Education Building, South Hall, Law Building, X01, Luther Memorial Church, Noland Hall, Meiklejohn House, Computer Sciences and Statistics]", path.get(0));
+        Assertions.assertEquals("Total Time: 1302.2", path.get(1));
+        Assertions.assertEquals(160.0, backend.pathData().get(0));
+        Assertions.assertEquals(400.0, backend.pathData().get(1));
+        Assertions.assertEquals(55337.749999999985, backend.pathData().get(2));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> backend.getSnapshot().getGraph().insertNode("Observatory Hill"));
+        Assertions.assertFalse(backend.getSnapshot().getGraph().containsNode("Observatory Hill"));
+        Assertions.assertThrows(java.util.NoSuchElementException.class, () -> backend.getTotalTime("Observatory Hill", "Bascom Hall"));
+
+        // a graph file from a newer version of the format, or one that was cut short, is not read
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[4] = 2;
+        Files.write(file.toPath(), bytes);
+        Assertions.assertFalse(new Backend().readData(file));
+        bytes[4] = 1;
+        Files.write(file.toPath(), java.util.Arrays.copyOf(bytes, bytes.length - 1));
+        Assertions.assertFalse(new Backend().readData(file));
+    }
+
+    @Test
+    public void test14() throws InterruptedException, IOException {
+        // a directed grid, whose edges are all replaced by equal ones when it is read again
+        File file = File.createTempFile("grid", ".dot");
+        file.deleteOnExit();
+        StringBuilder dot = new StringBuilder("digraph grid {\n");
+        java.util.Random random = new java.util.Random(14);
+        for (int i = 0; i < 900; i++) {
+            if (i % 30 < 29) {
+                dot.append("\"b").append(i).append("\" -> \"b").append(i + 1).append("\" [seconds=").append(1 + random.nextInt(100)).append("];\n");
+                dot.append("\"b").append(i + 1).append("\" -> \"b").append(i).append("\" [seconds=").append(1 + random.nextInt(100)).append("];\n");
+            }
+            if (i + 30 < 900) {
+                dot.append("\"b").append(i).append("\" -> \"b").append(i + 30).append("\" [seconds=").append(1 + random.nextInt(100)).append("];\n");
+                dot.append("\"b").append(i + 30).append("\" -> \"b").append(i).append("\" [seconds=").append(1 + random.nextInt(100)).append("];\n");
+            }
+        }
+        Files.writeString(file.toPath(), dot.append("}\n"));
+        Backend backend = new Backend();
+        Assertions.assertTrue(backend.readData(file));
+        double[] expected = new double[30];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = backend.getTotalTime("b" + i, "b" + (899 - i));
+        }
+        ArrayList<Double> expectedStats = backend.pathData();
+        Backend other = new Backend();
+        Assertions.assertEquals(0.0, other.pathData().get(0));
+        AtomicLong failures = new AtomicLong();
+        AtomicLong queries = new AtomicLong();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 300; i++) {
+                    int pair = i % expected.length;
+                    double time = backend.getTotalTime("b" + pair, "b" + (899 - pair));
+                    ArrayList<Double> stats = backend.pathData();
+                    if (time != expected[pair] || !stats.get(0).equals(expectedStats.get(0)) || !stats.get(1).equals(expectedStats.get(1))) {
+                        failures.incrementAndGet();
+                    }
+                    queries.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        int version = backend.getSnapshot().getVersion();
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(backend.readData(file));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(0, failures.get());
+        Assertions.assertEquals(1200, queries.get());
+        Assertions.assertEquals(version + 5, backend.getSnapshot().getVersion());
+        // another Backend's graph is not shared
+        Assertions.assertEquals(0.0, other.pathData().get(0));
+        Assertions.assertThrows(java.util.NoSuchElementException.class, () -> other.getTotalTime("b0", "b1"));
+    }
+
+    @Test
+    public void test15() throws IOException {
+        Backend backend = new Backend();
+        Assertions.assertTrue(backend.readData(new File("campus.dot")));
+        String queries = "source,destination\n"
+                + "Memorial Union,Computer Sciences and Statistics\n"
+                + "# comments and blank lines are skipped\n"
+                + "\n"
+                + "Bascom Hall\tMemorial Union\n"
+                + "\"Memorial Union\",Bascom Hall\n"
+                + "Observatory Hill,Bascom Hall\n"
+                + "Memorial Union,Observatory Hill\n"
+                + "Memorial Union\n"
+                + "Memorial Union,Memorial Union\n";
+        BatchRouter router = new BatchRouter(backend, 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Map<BatchRouter.Status, Long> summary = router.run(new BufferedReader(new StringReader(queries)), out);
+        Assertions.assertEquals(4L, summary.get(BatchRouter.Status.OK));
+        Assertions.assertEquals(1L, summary.get(BatchRouter.Status.UNKNOWN_SOURCE));
+        Assertions.assertEquals(1L, summary.get(BatchRouter.Status.UNKNOWN_DESTINATION));
+        Assertions.assertEquals(1L, summary.get(BatchRouter.Status.MALFORMED));
+        Assertions.assertEquals(0L, summary.get(BatchRouter.Status.NO_PATH));
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        // grouped by source in the order each source first appears, with malformed lines last
+        Assertions.assertEquals("line,source,destination,status,total_time,path", lines[0]);
+        Assertions.assertEquals("2,Memorial Union,Computer Sciences and Statistics,ok,1302.2,Memorial Union -> Radio Hall -> Education Building -> South Hall -> Law Building -> X01 -> Luther Memorial Church -> Noland Hall -> Meiklejohn House -> Computer Sciences and Statistics", lines[1]);
+        Assertions.assertEquals("6,Memorial Union,Bascom Hall,ok," + backend.getTotalTime("Memorial Union", "Bascom Hall"), lines[2].substring(0, lines[2].lastIndexOf(',')));
+        Assertions.assertEquals("8,Memorial Union,Observatory Hill,unknown_destination,", lines[3]);
+        Assertions.assertEquals("10,Memorial Union,Memorial Union,ok,0.0,Memorial Union", lines[4]);
+        Assertions.assertTrue(lines[5].startsWith("5,Bascom Hall,Memorial Union,ok," + backend.getTotalTime("Bascom Hall", "Memorial Union")));
+        Assertions.assertEquals("7,Observatory Hill,Bascom Hall,unknown_source,", lines[6]);
+        Assertions.assertEquals("9,,,malformed,", lines[7]);
+        Assertions.assertEquals(8, lines.length);
+
+        router.setFormat(BatchRouter.Format.JSONL);
+        router.setIncludePaths(false);
+        out.reset();
+        router.run(new BufferedReader(new StringReader("\"Memorial \"\"Union\",Bascom Hall\nMemorial Union,Computer Sciences and Statistics\n")), out);
+        Assertions.assertEquals("{\"line\":1,\"source\":\"Memorial \\\"Union\",\"destination\":\"Bascom Hall\",\"status\":\"unknown_source\",\"totalTime\":null}\n"
+                + "{\"line\":2,\"source\":\"Memorial Union\",\"destination\":\"Computer Sciences and Statistics\",\"status\":\"ok\",\"totalTime\":1302.2}\n",
+                out.toString(StandardCharsets.UTF_8));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BatchRouter(backend, 0));
+    }
+
+    @Test
+    public void test16() throws IOException, InterruptedException {
+        PathFinderServer server = new PathFinderServer(Backend::new, new File("campus.dot"), new InetSocketAddress("localhost", 0));
+        server.start();
+        try {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            URI base = URI.create("http://localhost:" + server.getPort());
+            String route = "?from=Memorial%20Union&to=Computer+Sciences+and+Statistics";
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/route" + route)).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, response.statusCode());
+            Assertions.assertTrue(response.body().startsWith("{\"source\":\"Memorial Union\",\"destination\":\"Computer Sciences and Statistics\",\"path\":[\"Memorial Union\",\"Radio Hall\","), response.body());
+            Assertions.assertTrue(response.body().endsWith(",\"totalTime\":1302.2}"), response.body());
+            response = client.send(HttpRequest.newBuilder(base.resolve("/total-time" + route)).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals("{\"totalTime\":1302.2}", response.body());
+            response = client.send(HttpRequest.newBuilder(base.resolve("/walking-times" + route)).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertTrue(response.body().startsWith("{\"walkingTimes\":[176.7,113.0,"), response.body());
+            response = client.send(HttpRequest.newBuilder(base.resolve("/statistics")).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals("{\"buildings\":160,\"edges\":400,\"totalWalkingTime\":55337.749999999985}", response.body());
+
+            // errors are answered with a status and a message instead of an exception
+            response = client.send(HttpRequest.newBuilder(base.resolve("/route?from=Observatory%20Hill&to=Bascom%20Hall")).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(404, response.statusCode());
+            Assertions.assertEquals("{\"error\":\"no route from Observatory Hill to Bascom Hall\"}", response.body());
+            response = client.send(HttpRequest.newBuilder(base.resolve("/route?from=Bascom%20Hall")).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(400, response.statusCode());
+            response = client.send(HttpRequest.newBuilder(base.resolve("/reload")).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(405, response.statusCode());
+
+            // a reload replaces the Backend instead of adding the file to it again
+            Backend before = server.getBackend();
+            response = client.send(HttpRequest.newBuilder(base.resolve("/reload")).POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, response.statusCode());
+            Assertions.assertEquals("{\"buildings\":160,\"edges\":400,\"totalWalkingTime\":55337.749999999985}", response.body());
+            Assertions.assertNotSame(before, server.getBackend());
+
+            List<String> buildings = PathFinderLoadGenerator.buildings(server.getBackend());
+            Assertions.assertEquals(160, buildings.size());
+            PathFinderLoadGenerator.Report report = PathFinderLoadGenerator.run(base, buildings, 4, 200, 3);
+            Assertions.assertEquals(200, report.getRequests());
+            Assertions.assertEquals(0, report.getErrors());
+            Assertions.assertTrue(report.getNotFound() < 200);
+            Assertions.assertTrue(report.getThroughput() > 0.0);
+            Assertions.assertTrue(report.getLatencyPercentile(0.5) <= report.getLatencyPercentile(0.99));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void test17() throws InterruptedException {
+        // holds each search until released, so that identical queries arrive while it is running
+        CountDownLatch searching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Backend backend = new Backend() {
+            @Override
+            protected PathResult<String> computePath(Snapshot current, String source, String destination) {
+                searching.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.computePath(current, source, destination);
+            }
+        };
+        Assertions.assertTrue(backend.readData(new File("campus.dot")));
+        List<Object> results = java.util.Collections.synchronizedList(new ArrayList<>());
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    results.add(backend.findPath("Memorial Union", "Computer Sciences and Statistics"));
+                } catch (RuntimeException e) {
+                    results.add(e);
+                }
+            });
+            threads[t].start();
+            if (t == 0) {
+                Assertions.assertTrue(searching.await(10, TimeUnit.SECONDS));
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (backend.getCoalescedCount() < threads.length - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // one search answered all eight queries with the same result
+        Assertions.assertEquals(1, backend.getSearchCount());
+        Assertions.assertEquals(7, backend.getCoalescedCount());
+        Assertions.assertEquals(8, results.size());
+        for (Object result : results) {
+            Assertions.assertSame(results.get(0), result);
+        }
+        Assertions.assertEquals(1302.2, ((PathResult<?>) results.get(0)).getTotalCost(), 1e-9);
+        // a later query is a cache hit, not another search
+        backend.findPath("Memorial Union", "Computer Sciences and Statistics");
+        Assertions.assertEquals(1, backend.getSearchCount());
+
+        // the queries that waited on a failed search throw what it threw
+        Backend failing = new Backend() {
+            @Override
+            protected PathResult<String> computePath(Snapshot current, String source, String destination) {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.computePath(current, source, destination);
+            }
+        };
+        Assertions.assertTrue(failing.readData(new File("campus.dot")));
+        results.clear();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    results.add(failing.findPath("Observatory Hill", "Bascom Hall"));
+                } catch (RuntimeException e) {
+                    results.add(e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(8, results.size());
+        for (Object result : results) {
+            Assertions.assertInstanceOf(java.util.NoSuchElementException.class, result);
+        }
+        Assertions.assertEquals(8, failing.getSearchCount() + failing.getCoalescedCount());
+        // failures are not cached, so the next query searches again
+        Assertions.assertThrows(java.util.NoSuchElementException.class, () -> failing.findPath("Observatory Hill", "Bascom Hall"));
+        Assertions.assertEquals(9, failing.getSearchCount() + failing.getCoalescedCount());
+    }
+
+    @Test
+    public void test18() throws IOException {
+        Backend backend = new Backend();
+        Assertions.assertTrue(backend.readData(new File("campus.dot")));
+        Assertions.assertEquals(SearchMode.DIJKSTRA, backend.getSearchMode());
+        Assertions.assertNull(backend.getSnapshot().getTreeCache());
+        CompactGraph<String> campus = (CompactGraph<String>) backend.getSnapshot().getGraph();
+        // without a tree cache, a cold query stops at its destination instead of settling the
+        // whole graph
+        int from = campus.idOf("Memorial Union");
+        try (SearchWorkspace cold = campus.search(from, campus.idOf("Radio Hall"));
+                SearchWorkspace tree = campus.search(from, -1)) {
+            Assertions.assertTrue(cold.getSettledCount() < tree.getSettledCount());
+        }
+        List<String> buildings = new ArrayList<>();
+        for (int id = 0; id < campus.getNodeCount(); id += 7) {
+            buildings.add(campus.dataOf(id));
+        }
+        // every mode finds routes of the same cost as Dijkstra's algorithm on the snapshot
+        for (SearchMode mode : SearchMode.values()) {
+            backend.setSearchMode(mode);
+            backend.getResultCache().clear();
+            Assertions.assertEquals(1302.2, backend.getTotalTime("Memorial Union", "Computer Sciences and Statistics"), 1e-9, mode.name());
+            for (String source : buildings) {
+                for (String destination : buildings) {
+                    boolean reachable;
+                    try {
+                        campus.shortestPathCost(source, destination);
+                        reachable = true;
+                    } catch (java.util.NoSuchElementException e) {
+                        reachable = false;
+                    }
+                    if (!reachable) {
+                        Assertions.assertThrows(java.util.NoSuchElementException.class, () -> backend.findPath(source, destination));
+                        continue;
+                    }
+                    PathResult<String> path = backend.findPath(source, destination);
+                    Assertions.assertEquals(campus.shortestPathCost(source, destination), path.getTotalCost(), 1e-9, mode.name());
+                    Assertions.assertEquals(source, path.getNodes().get(0));
+                    Assertions.assertEquals(destination, path.getNodes().get(path.getNodes().size() - 1));
+                }
+            }
+        }
+
+        // once trees are kept, DIJKSTRA searches reuse the tree of a start building they searched
+        // before
+        Backend cached = new Backend();
+        cached.setTreeCacheLimits(32, Backend.DEFAULT_TREE_CACHE_BYTES);
+        Assertions.assertTrue(cached.readData(new File("campus.dot")));
+        ShortestPathTreeCache<String> trees = cached.getSnapshot().getTreeCache();
+        Assertions.assertEquals(1302.2, cached.getTotalTime("Memorial Union", "Computer Sciences and Statistics"), 1e-9);
+        Assertions.assertEquals(0, trees.getHitCount());
+        Assertions.assertEquals(campus.shortestPathCost("Memorial Union", "Bascom Hall"), cached.getTotalTime("Memorial Union", "Bascom Hall"), 1e-9);
+        Assertions.assertEquals(1, trees.getHitCount());
+
+        // A* searches use the positions of the buildings, and a DijkstraGraph's mode carries over
+        File file = File.createTempFile("positions", ".dot");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), "digraph { a [x=0, y=0]; b [x=100, y=0]; c [x=200, y=0];\n"
+                + "a -> b [seconds=50]; b -> c [seconds=50]; a -> c [seconds=150]; }\n");
+        DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+        graph.setSearchMode(SearchMode.ASTAR);
+        Backend positioned = new Backend(graph);
+        Assertions.assertEquals(SearchMode.ASTAR, positioned.getSearchMode());
+        Assertions.assertTrue(positioned.readData(file));
+        CompactGraph<String> snapshot = (CompactGraph<String>) positioned.getSnapshot().getGraph();
+        Assertions.assertEquals(200.0, snapshot.straightLineDistance(snapshot.idOf("a"), snapshot.idOf("c")), 1e-9);
+        Assertions.assertEquals(List.of("a", "b", "c"), positioned.findPath("a", "c").getNodes());
+        Assertions.assertEquals(100.0, positioned.getTotalTime("a", "c"), 1e-9);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> positioned.setMaxWalkingSpeed(0.0));
+    }
+
+    // records every statement with the attributes a Backend reads, for comparing parses
+    static class RecordingHandler implements DotParser.Handler {
+        final ArrayList<String> statements = new ArrayList<>();
+        public void node(String name, DotParser.Attributes attributes) {
+            statements.add("node " + name + " " + attributes.get("color"));
+        }
+        public void edge(String from, String to, boolean directed, DotParser.Attributes attributes) {
+            statements.add("edge " + from + (directed ? " -> " : " -- ") + to + " "
+                    + attributes.getDouble("seconds", Double.NaN) + " " + attributes.get("color"));
+        }
+    }
+
+    // ignores every statement, for parsing files only to see whether they are valid
+    static class IgnoringHandler implements DotParser.Handler {
+        public void node(String name, DotParser.Attributes attributes) {
+        }
+        public void edge(String from, String to, boolean directed, DotParser.Attributes attributes) {
+        }
+    }
 
 }
@@ -28,4 +28,13 @@ public interface BackendInterface {
      * @return a String containing this data.
      */
     public ArrayList<Double> pathData();
+
+    /**
+     * Finds the shortest path from a start to a destination with a single search. The result
+     * holds the buildings along the path, the walking time of each segment, and the total time.
+     * @param source String of the building path started at.
+     * @param destination String of building path ends at.
+     * @return the buildings, walking times and total time of the shortest path.
+     */
+    public PathResult<String> findPath(String source, String destination);
 }
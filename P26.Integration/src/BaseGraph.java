@@ -1,5 +1,10 @@
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.LinkedList;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -11,14 +16,35 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     // Each node contains unique data along with two lists of directed edges
     protected class Node {
         public NodeType data;
-        public List<Edge> edgesLeaving = new LinkedList<>();
-        public List<Edge> edgesEntering = new LinkedList<>();
+        // the dense id interned for data in symbols, which searches hash and
+        // index nodes by instead of their data
+        public final int id;
+        public EdgeList edgesLeaving = new EdgeList(true);
+        public EdgeList edgesEntering = new EdgeList(false);
+        // the edges in edgesLeaving by their successor node, so that the edge
+        // to a given node is found without scanning the list
+        public Map<Node, Edge> edgesBySuccessor = new HashMap<>();
+        // optional position: planar meters, or longitude (x) and latitude (y)
+        // in degrees when geographic is true. NaN when the position is unknown
+        public double x = Double.NaN;
+        public double y = Double.NaN;
+        public boolean geographic = false;
 
         public Node(NodeType data) {
             this.data = data;
+            this.id = symbols.intern(data);
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
         }
     }
 
+    // Interns the data of every node ever inserted to a dense int id. A node
+    // that is removed and inserted again gets back the same id
+    protected final SymbolTable<NodeType> symbols = new SymbolTable<>();
+
     // Nodes can be retrieved from this map by their unique data
     protected MapADT<NodeType, Node> nodes = null;
 
@@ -27,6 +53,10 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         public EdgeType data; // the weight or cost of this edge
         public Node predecessor;
         public Node successor;
+        // the index of this edge within predecessor.edgesLeaving and within
+        // successor.edgesEntering, so that it can be removed without a search
+        public int leavingSlot = -1;
+        public int enteringSlot = -1;
 
         public Edge(EdgeType data, Node pred, Node succ) {
             this.data = data;
@@ -35,9 +65,98 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         }
     }
 
+    // An array-backed list of the edges leaving or entering one node. Each
+    // edge records its own index in the list, so removing an edge moves the
+    // last edge into its slot instead of searching for it or shifting others.
+    // The order of the remaining edges changes when an edge is removed.
+    protected class EdgeList implements Iterable<Edge> {
+        private Edge[] edges = newEdgeArray(2);
+        private int size = 0;
+        private final boolean leaving; // true for edgesLeaving lists
+
+        public EdgeList(boolean leaving) {
+            this.leaving = leaving;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Edge get(int index) {
+            if (index >= size)
+                throw new IndexOutOfBoundsException(index);
+            return edges[index];
+        }
+
+        public void add(Edge edge) {
+            if (size == edges.length)
+                edges = Arrays.copyOf(edges, size * 2);
+            setSlot(edge, size);
+            edges[size++] = edge;
+        }
+
+        // grows the list's array to hold at least capacity edges
+        public void ensureCapacity(int capacity) {
+            if (capacity > edges.length)
+                edges = Arrays.copyOf(edges, capacity);
+        }
+
+        public void remove(Edge edge) {
+            int slot = leaving ? edge.leavingSlot : edge.enteringSlot;
+            Edge last = edges[--size];
+            edges[slot] = last;
+            setSlot(last, slot);
+            edges[size] = null;
+            setSlot(edge, -1);
+        }
+
+        @Override
+        public Iterator<Edge> iterator() {
+            return new Iterator<Edge>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Edge next() {
+                    if (next >= size)
+                        throw new NoSuchElementException();
+                    return edges[next++];
+                }
+            };
+        }
+
+        private void setSlot(Edge edge, int slot) {
+            if (leaving)
+                edge.leavingSlot = slot;
+            else
+                edge.enteringSlot = slot;
+        }
+    }
+
+    // creates an array for Edge objects, whose generic type can not be
+    // instantiated directly
+    @SuppressWarnings("unchecked")
+    private Edge[] newEdgeArray(int length) {
+        return (Edge[]) Array.newInstance(Edge.class, length);
+    }
+
     protected int edgeCount = 0;
+    // Incremented by every change to the nodes or edges, so that data derived
+    // from this graph can tell when it is out of date
+    protected int modificationCount = 0;
     // Edges can be retrieved through the edge lists in either connected node
 
+    /**
+     * Constructor for BaseGraph that keeps its nodes in an OpenAddressingMap.
+     */
+    public BaseGraph() {
+        this(new OpenAddressingMap<>());
+    }
+
     /**
      * Constructor for BaseGraph that provides the map the graph uses.
      * 
@@ -60,6 +179,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         if (nodes.containsKey(data))
             return false; // throws NPE when data's null
         nodes.put(data, new Node(data));
+        modificationCount++;
         return true;
     }
 
@@ -77,12 +197,20 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         if (!nodes.containsKey(data))
             return false; // throws NPE when data==null
         Node oldNode = nodes.remove(data);
+        int removedEdges = oldNode.edgesLeaving.size() + oldNode.edgesEntering.size();
         // remove all edges entering neighboring nodes from this one
-        for (Edge edge : oldNode.edgesLeaving)
+        for (Edge edge : oldNode.edgesLeaving) {
+            if (edge.successor == oldNode)
+                removedEdges--; // a loop is both a leaving and an entering edge
             edge.successor.edgesEntering.remove(edge);
+        }
         // remove all edges leaving neighboring nodes toward this one
-        for (Edge edge : oldNode.edgesEntering)
+        for (Edge edge : oldNode.edgesEntering) {
             edge.predecessor.edgesLeaving.remove(edge);
+            edge.predecessor.edgesBySuccessor.remove(oldNode);
+        }
+        edgeCount -= removedEdges;
+        modificationCount++;
         return true;
     }
 
@@ -97,6 +225,59 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         return nodes.containsKey(data);
     }
 
+    /**
+     * Record the position of a node on a flat map, in meters.
+     * 
+     * @param data the data item stored in the node
+     * @param x    the node's east-west coordinate in meters
+     * @param y    the node's north-south coordinate in meters
+     * @return true if the position was recorded, or false if data is not found
+     *         in the graph
+     */
+    public boolean setNodePosition(NodeType data, double x, double y) {
+        Node node = nodes.getOrNull(data);
+        if (node == null)
+            return false;
+        node.x = x;
+        node.y = y;
+        node.geographic = false;
+        return true;
+    }
+
+    /**
+     * Record the geographic location of a node.
+     * 
+     * @param data      the data item stored in the node
+     * @param latitude  the node's latitude in degrees
+     * @param longitude the node's longitude in degrees
+     * @return true if the location was recorded, or false if data is not found
+     *         in the graph
+     */
+    public boolean setNodeLocation(NodeType data, double latitude, double longitude) {
+        Node node = nodes.getOrNull(data);
+        if (node == null)
+            return false;
+        node.x = longitude;
+        node.y = latitude;
+        node.geographic = true;
+        return true;
+    }
+
+    /**
+     * Return the position recorded for a node.
+     * 
+     * @param data the data item stored in the node
+     * @return {x, y} in meters, {longitude, latitude} in degrees for geographic
+     *         locations, or null if the node has no recorded position
+     * @throws NoSuchElementException if data is not found in the graph
+     */
+    public double[] getNodePosition(NodeType data) {
+        Node node = nodes.get(data);
+        if (Double.isNaN(node.x))
+            return null;
+        return new double[] { node.x, node.y };
+    }
+
     /**
      * Return the number of nodes in the graph
      * 
@@ -119,25 +300,93 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      */
     public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
         // find nodes associated with node data, and return false when not found
-        Node predNode = nodes.get(pred);
-        Node succNode = nodes.get(succ);
+        Node predNode = nodes.getOrNull(pred);
+        Node succNode = nodes.getOrNull(succ);
         if (predNode == null || succNode == null)
             return false;
-        try {
+        Edge existingEdge = predNode.edgesBySuccessor.get(succNode);
+        if (existingEdge != null) {
             // when an edge alread exists within the graph, update its weight
-            Edge existingEdge = getEdgeHelper(pred, succ);
             existingEdge.data = weight;
-        } catch (NoSuchElementException e) {
+        } else {
             // otherwise create a new edges
             Edge newEdge = new Edge(weight, predNode, succNode);
             this.edgeCount++;
             // and insert it into each of its adjacent nodes' respective lists
             predNode.edgesLeaving.add(newEdge);
             succNode.edgesEntering.add(newEdge);
+            predNode.edgesBySuccessor.put(succNode, newEdge);
         }
+        modificationCount++;
         return true;
     }
 
+    /**
+     * Insert every node and edge of a batch into the graph, inserting nodes
+     * that are not yet in the graph first. When an edge of the batch is
+     * already in the graph, its new weight is the batch's policy applied to
+     * the existing weight and the batch's weight.
+     *
+     * Each node of the batch is looked up once, the node map and every edge
+     * list are grown once to their final sizes, and then all edges are added
+     * in a single sweep over the batch. The whole batch counts as one change.
+     * 
+     * @param batch the nodes and edges to insert
+     * @return the number of edges that were not already in the graph
+     */
+    public int insertEdges(EdgeBatch<NodeType, EdgeType> batch) {
+        // find or create the node of every node of the batch
+        nodes.ensureCapacity(nodes.getSize() + batch.getNodeCount());
+        List<Node> batchNodes = new ArrayList<>(batch.getNodeCount());
+        for (int i = 0; i < batch.getNodeCount(); i++) {
+            NodeType data = batch.getNode(i);
+            Node node = nodes.getOrNull(data);
+            if (node == null) {
+                node = new Node(data);
+                nodes.put(data, node);
+            }
+            batchNodes.add(node);
+        }
+        // find the edges already in the graph, and count the new edges of
+        // each node, so that every edge list grows only once
+        Edge[] existing = newEdgeArray(batch.size());
+        int[] leaving = new int[batchNodes.size()];
+        int[] entering = new int[batchNodes.size()];
+        for (int e = 0; e < batch.size(); e++) {
+            Node pred = batchNodes.get(batch.getPredecessor(e));
+            existing[e] = pred.edgesBySuccessor.get(batchNodes.get(batch.getSuccessor(e)));
+            if (existing[e] == null) {
+                leaving[batch.getPredecessor(e)]++;
+                entering[batch.getSuccessor(e)]++;
+            }
+        }
+        for (int i = 0; i < batchNodes.size(); i++) {
+            Node node = batchNodes.get(i);
+            node.edgesLeaving.ensureCapacity(node.edgesLeaving.size() + leaving[i]);
+            node.edgesEntering.ensureCapacity(node.edgesEntering.size() + entering[i]);
+            if (node.edgesBySuccessor.isEmpty() && leaving[i] > 0)
+                node.edgesBySuccessor = new HashMap<>(leaving[i] * 4 / 3 + 1);
+        }
+        // then add or update every edge
+        int inserted = 0;
+        for (int e = 0; e < batch.size(); e++) {
+            if (existing[e] != null) {
+                existing[e].data = batch.combine(existing[e].data, batch.getWeight(e));
+                continue;
+            }
+            Node predNode = batchNodes.get(batch.getPredecessor(e));
+            Node succNode = batchNodes.get(batch.getSuccessor(e));
+            Edge newEdge = new Edge(batch.getWeight(e), predNode, succNode);
+            predNode.edgesLeaving.add(newEdge);
+            succNode.edgesEntering.add(newEdge);
+            predNode.edgesBySuccessor.put(succNode, newEdge);
+            inserted++;
+        }
+        edgeCount += inserted;
+        modificationCount++;
+        return inserted;
+    }
+
     /**
      * Remove an edge from the graph.
      * 
@@ -147,19 +396,18 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      *         false if such an edge is not found in the graph
      */
     public boolean removeEdge(NodeType pred, NodeType succ) {
-        try {
-            // when an edge exists
-            Edge oldEdge = getEdgeHelper(pred, succ);
-            // remove it from the edge lists of each adjacent node
-            oldEdge.predecessor.edgesLeaving.remove(oldEdge);
-            oldEdge.successor.edgesEntering.remove(oldEdge);
-            // and decrement the edge count before removing
-            this.edgeCount--;
-            return true;
-        } catch (NoSuchElementException e) {
-            // when no such edge exists, return false instead
+        Edge oldEdge = findEdgeHelper(pred, succ);
+        // when no such edge exists, return false instead
+        if (oldEdge == null)
             return false;
-        }
+        // remove it from the edge lists of each adjacent node
+        oldEdge.predecessor.edgesLeaving.remove(oldEdge);
+        oldEdge.successor.edgesEntering.remove(oldEdge);
+        oldEdge.predecessor.edgesBySuccessor.remove(oldEdge.successor);
+        // and decrement the edge count before removing
+        this.edgeCount--;
+        modificationCount++;
+        return true;
     }
 
     /**
@@ -170,12 +418,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @return true if the edge is found in the graph, or false other
      */
     public boolean containsEdge(NodeType pred, NodeType succ) {
-        try {
-            getEdgeHelper(pred, succ);
-            return true;
-        } catch (NoSuchElementException e) {
-            return false;
-        }
+        return findEdgeHelper(pred, succ) != null;
     }
 
     /**
@@ -191,16 +434,39 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         return getEdgeHelper(pred, succ).data;
     }
 
+    /**
+     * Return the data associated with a specific edge, or null when the
+     * graph has no such edge.
+     * 
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return the data from the edge between those nodes, or null if either
+     *         node or the edge between them are not found within this graph
+     * @throws NullPointerException if pred or succ is null
+     */
+    public EdgeType findEdge(NodeType pred, NodeType succ) {
+        Edge edge = findEdgeHelper(pred, succ);
+        return edge == null ? null : edge.data;
+    }
+
     protected Edge getEdgeHelper(NodeType pred, NodeType succ) {
-        Node predNode = nodes.get(pred);
-        // search for edge through the predecessor's list of leaving edges
-        for (Edge edge : predNode.edgesLeaving)
-            // compare succ to the data in each leaving edge's successor
-            if (edge.successor.data.equals(succ))
-                return edge;
+        Edge edge = findEdgeHelper(pred, succ);
         // when no such edge can be found, throw NSE
-        throw new NoSuchElementException("No edge from " + pred.toString() + " to " +
-                succ.toString());
+        if (edge == null)
+            throw new NoSuchElementException("No edge from " + pred.toString() + " to " +
+                    succ.toString());
+        return edge;
+    }
+
+    // returns the edge from pred to succ, or null when either node or the
+    // edge is not in the graph, without building an exception for the miss
+    protected Edge findEdgeHelper(NodeType pred, NodeType succ) {
+        Node predNode = nodes.getOrNull(pred);
+        Node succNode = nodes.getOrNull(succ);
+        if (predNode == null || succNode == null)
+            return null;
+        // look the edge up in the predecessor's index of leaving edges
+        return predNode.edgesBySuccessor.get(succNode);
     }
 
     /**
@@ -212,4 +478,79 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         return this.edgeCount;
     }
 
+    /**
+     * Return the number of changes made to the nodes and edges of this graph.
+     * This number only ever grows, so data computed from the graph is out of
+     * date whenever the count differs from the one it was computed at.
+     * 
+     * @return the number of changes made to this graph
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Compile the current contents of this graph, including the positions of its
+     * nodes, into an immutable CompactGraph snapshot. Later changes to this graph
+     * do not affect the snapshot.
+     * 
+     * @return a compressed sparse row copy of this graph
+     */
+    public CompactGraph<NodeType> freeze() {
+        int nodeCount = nodes.getSize();
+        int[] frozenIds = newIdArray();
+        SymbolTable<NodeType> frozenSymbols = new SymbolTable<>(nodeCount);
+        double[] xs = new double[nodeCount];
+        double[] ys = new double[nodeCount];
+        boolean[] geographic = new boolean[nodeCount];
+        for (Node node : nodes.values()) {
+            int id = frozenSymbols.intern(node.data);
+            frozenIds[node.id] = id;
+            xs[id] = node.x;
+            ys[id] = node.y;
+            geographic[id] = node.geographic;
+        }
+        // count the edges leaving each node to find where each node's edges start
+        int[] offsets = new int[nodeCount + 1];
+        for (Node node : nodes.values())
+            offsets[frozenIds[node.id] + 1] = node.edgesLeaving.size();
+        for (int u = 0; u < nodeCount; u++)
+            offsets[u + 1] += offsets[u];
+        // then copy each node's edges into its own range of the edge arrays
+        int[] targets = new int[offsets[nodeCount]];
+        double[] weights = new double[offsets[nodeCount]];
+        for (Node node : nodes.values()) {
+            int e = offsets[frozenIds[node.id]];
+            for (Edge edge : node.edgesLeaving) {
+                targets[e] = frozenIds[edge.successor.id];
+                weights[e] = edge.data.doubleValue();
+                e++;
+            }
+        }
+        return new CompactGraph<>(frozenSymbols, offsets, targets, weights, xs, ys, geographic);
+    }
+
+    /**
+     * Return the id that each node of this graph has within a snapshot of it,
+     * indexed by the node's own id, so that a node's place in the snapshot is
+     * found without looking its data up.
+     * 
+     * @param snapshot a CompactGraph frozen from this graph
+     * @return the snapshot id of every node by node id, or -1 for ids whose
+     *         node is not in the snapshot
+     */
+    protected int[] frozenIds(CompactGraph<NodeType> snapshot) {
+        int[] frozenIds = newIdArray();
+        for (Node node : nodes.values())
+            frozenIds[node.id] = snapshot.idOf(node.data);
+        return frozenIds;
+    }
+
+    // returns an array with a -1 for every id that has been given to a node
+    private int[] newIdArray() {
+        int[] frozenIds = new int[symbols.size()];
+        Arrays.fill(frozenIds, -1);
+        return frozenIds;
+    }
+
 }
@@ -0,0 +1,407 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class answers a whole file of route queries without the interactive menu, for jobs that
+ * need the walking times between many pairs of buildings at once. Each line of the input holds a
+ * source and a destination building separated by a comma or a tab, either of which may be quoted
+ * with double quotes as in CSV. Blank lines and lines starting with # are skipped, and so is a
+ * first line of "source,destination".
+ *
+ * The queries are grouped by source. When the Backend's snapshot is a CompactGraph, a group with
+ * more than one destination is answered from a single ShortestPathTree of its source, instead of a
+ * search per destination. The groups are answered on a pool of threads, all from the snapshot that
+ * was current when the batch started, and bypass the Backend's result cache.
+ *
+ * Each query gets one line of output, as CSV or as JSON Lines, with a Status instead of an
+ * exception for queries that have no answer. The output is grouped by source in the order each
+ * source first appears in the input, followed by the lines that could not be read; every output
+ * line carries the number of the input line it answers.
+ *
+ * Run this class with a graph file and a file of queries ("-" or nothing for standard input) to
+ * write the answers to standard output.
+ */
+public final class BatchRouter {
+
+  /**
+   * The formats answers can be written in.
+   */
+  public enum Format {
+    /**
+     * Comma separated values, with the header line,source,destination,status,total_time,path and
+     * the path's buildings joined by " -> ".
+     */
+    CSV,
+    /**
+     * One JSON object per line, with the fields line, source, destination, status, totalTime and
+     * path, where path is an array of building names.
+     */
+    JSONL
+  }
+
+  /**
+   * The outcome of a single query.
+   */
+  public enum Status {
+    /** A shortest path was found. */
+    OK,
+    /** The source building is not in the graph. */
+    UNKNOWN_SOURCE,
+    /** The destination building is not in the graph. */
+    UNKNOWN_DESTINATION,
+    /** Both buildings are in the graph, but no path leads from one to the other. */
+    NO_PATH,
+    /** The input line does not hold a source and a destination. */
+    MALFORMED
+  }
+
+  // how many groups may be answered ahead of the one being written, per thread
+  private static final int GROUPS_IN_FLIGHT_PER_THREAD = 4;
+
+  private final Backend backend;
+  private final int threads;
+  private Format format = Format.CSV;
+  private boolean includePaths = true;
+
+  /**
+   * Creates a router that answers queries with backend on one thread per available processor.
+   *
+   * @param backend the backend whose current snapshot answers each batch
+   */
+  public BatchRouter(Backend backend) {
+    this(backend, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a router that answers queries with backend on the provided number of threads.
+   *
+   * @param backend the backend whose current snapshot answers each batch
+   * @param threads the number of threads to answer groups of queries on
+   * @throws IllegalArgumentException if threads is less than 1
+   */
+  public BatchRouter(Backend backend, int threads) {
+    if (threads < 1)
+      throw new IllegalArgumentException("threads must be at least 1");
+    this.backend = backend;
+    this.threads = threads;
+  }
+
+  /**
+   * Sets the format answers are written in, which is Format.CSV by default.
+   *
+   * @param format the output format
+   */
+  public void setFormat(Format format) {
+    if (format == null)
+      throw new NullPointerException("format must not be null");
+    this.format = format;
+  }
+
+  /**
+   * Sets whether answers list the buildings along each path, or only its total time. Paths are
+   * included by default.
+   *
+   * @param includePaths true to write each path's buildings
+   */
+  public void setIncludePaths(boolean includePaths) {
+    this.includePaths = includePaths;
+  }
+
+  /**
+   * Answers every query read from in, and writes the answers to out. The output is flushed but not
+   * closed.
+   *
+   * @param in  the queries, one per line
+   * @param out where the answers are written, as UTF-8
+   * @return the number of queries with each Status
+   * @throws IOException if in can not be read or out can not be written
+   */
+  public Map<Status, Long> run(BufferedReader in, OutputStream out) throws IOException {
+    // read and group every query first, so that each source is searched from only once
+    Map<String, List<Query>> groups = new LinkedHashMap<>();
+    List<Query> malformed = new ArrayList<>();
+    String line;
+    for (int number = 1; (line = in.readLine()) != null; number++) {
+      String trimmed = line.trim();
+      if (trimmed.isEmpty() || trimmed.startsWith("#")
+          || (number == 1 && trimmed.equalsIgnoreCase("source,destination")))
+        continue;
+      Query query = parse(number, trimmed);
+      if (query.source == null)
+        malformed.add(query);
+      else
+        groups.computeIfAbsent(query.source, source -> new ArrayList<>()).add(query);
+    }
+
+    Backend.Snapshot snapshot = backend.getSnapshot();
+    AtomicLongArray counts = new AtomicLongArray(Status.values().length);
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+    if (format == Format.CSV)
+      writer.write("line,source,destination,status,total_time,path\n");
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      // answer a bounded number of groups ahead, and write them in order as they complete
+      ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+      for (List<Query> group : groups.values()) {
+        if (pending.size() == threads * GROUPS_IN_FLIGHT_PER_THREAD)
+          writer.write(await(pending.removeFirst()));
+        pending.addLast(pool.submit(() -> answer(snapshot.getGraph(), group, counts)));
+      }
+      while (!pending.isEmpty())
+        writer.write(await(pending.removeFirst()));
+    } finally {
+      pool.shutdownNow();
+    }
+    StringBuilder text = new StringBuilder();
+    for (Query query : malformed) {
+      counts.incrementAndGet(Status.MALFORMED.ordinal());
+      write(text, query, Status.MALFORMED, null);
+    }
+    writer.write(text.toString());
+    writer.flush();
+
+    Map<Status, Long> summary = new EnumMap<>(Status.class);
+    for (Status status : Status.values())
+      summary.put(status, counts.get(status.ordinal()));
+    return summary;
+  }
+
+  /**
+   * Answers a batch of queries on the command line.
+   *
+   * @param args the graph file to load, optionally followed by the query file ("-" for standard
+   *             input), --format csv or --format jsonl, --threads followed by a count, and
+   *             --no-paths
+   * @throws IOException if a file can not be read, or the answers can not be written
+   */
+  public static void main(String[] args) throws IOException {
+    String graphFile = null;
+    String queryFile = "-";
+    Format format = Format.CSV;
+    int threads = Runtime.getRuntime().availableProcessors();
+    boolean includePaths = true;
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if (args[i].equals("--format"))
+          format = Format.valueOf(args[++i].toUpperCase());
+        else if (args[i].equals("--threads"))
+          threads = Integer.parseInt(args[++i]);
+        else if (args[i].equals("--no-paths"))
+          includePaths = false;
+        else if (graphFile == null)
+          graphFile = args[i];
+        else
+          queryFile = args[i];
+      }
+    } catch (RuntimeException e) {
+      graphFile = null; // a missing or invalid option value
+    }
+    if (graphFile == null || threads < 1) {
+      System.err.println("usage: java BatchRouter <graph.dot|graph.pfg> [queries.csv|-]"
+          + " [--format csv|jsonl] [--threads n] [--no-paths]");
+      System.exit(2);
+    }
+
+    Backend backend = new Backend();
+    if (!backend.readData(new File(graphFile))) {
+      System.err.println("could not read " + graphFile);
+      System.exit(1);
+    }
+    BatchRouter router = new BatchRouter(backend, threads);
+    router.setFormat(format);
+    router.setIncludePaths(includePaths);
+    try (BufferedReader in = queryFile.equals("-")
+        ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+        : Files.newBufferedReader(Path.of(queryFile), StandardCharsets.UTF_8)) {
+      System.err.println(router.run(in, System.out));
+    }
+  }
+
+  /**
+   * Answers every query of a group, which all share the same source.
+   *
+   * @param graph  the graph to search
+   * @param group  the queries to answer
+   * @param counts the number of queries with each Status, which this adds to
+   * @return the output lines for the group
+   */
+  private String answer(GraphADT<String, Double> graph, List<Query> group,
+      AtomicLongArray counts) {
+    StringBuilder text = new StringBuilder();
+    String source = group.get(0).source;
+    boolean knownSource = graph.containsNode(source);
+    // a single tree answers every destination of the group, but costs more than one search that
+    // stops at its destination
+    ShortestPathTree<String> tree = null;
+    if (knownSource && group.size() > 1 && graph instanceof CompactGraph) {
+      CompactGraph<String> compact = (CompactGraph<String>) graph;
+      tree = compact.shortestPathTree(compact.idOf(source));
+    }
+    for (Query query : group) {
+      Status status;
+      PathResult<String> path = null;
+      if (!knownSource) {
+        status = Status.UNKNOWN_SOURCE;
+      } else if (!graph.containsNode(query.destination)) {
+        status = Status.UNKNOWN_DESTINATION;
+      } else {
+        try {
+          path = tree != null ? tree.pathTo(tree.getGraph().idOf(query.destination))
+              : graph.shortestPath(source, query.destination);
+          status = Status.OK;
+        } catch (NoSuchElementException e) {
+          status = Status.NO_PATH;
+        }
+      }
+      counts.incrementAndGet(status.ordinal());
+      write(text, query, status, path);
+    }
+    return text.toString();
+  }
+
+  // appends the output line answering query to text
+  private void write(StringBuilder text, Query query, Status status, PathResult<String> path) {
+    String statusName = status.name().toLowerCase();
+    if (format == Format.CSV) {
+      text.append(query.line).append(',');
+      appendCsv(text, query.source).append(',');
+      appendCsv(text, query.destination).append(',').append(statusName).append(',');
+      if (path != null) {
+        text.append(path.getTotalCost());
+        if (includePaths)
+          appendCsv(text.append(','), String.join(" -> ", path.getNodes()));
+      }
+      text.append('\n');
+      return;
+    }
+    text.append("{\"line\":").append(query.line).append(",\"source\":");
+    appendJson(text, query.source).append(",\"destination\":");
+    appendJson(text, query.destination).append(",\"status\":\"").append(statusName)
+        .append("\",\"totalTime\":");
+    if (path == null) {
+      text.append("null");
+    } else {
+      text.append(path.getTotalCost());
+      if (includePaths) {
+        text.append(",\"path\":[");
+        for (int i = 0; i < path.getNodes().size(); i++)
+          appendJson(i == 0 ? text : text.append(','), path.getNodes().get(i));
+        text.append(']');
+      }
+    }
+    text.append("}\n");
+  }
+
+  /**
+   * Splits an input line into a source and a destination, separated by the first comma or tab
+   * outside of double quotes. Inside quotes, a doubled quote stands for one quote.
+   *
+   * @param number the number of the line within the input
+   * @param line   the line, without surrounding whitespace
+   * @return the query, with a null source and destination if the line does not hold exactly two
+   *         non-empty fields
+   */
+  static Query parse(int number, String line) {
+    List<String> fields = new ArrayList<>(2);
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c != '"')
+          field.append(c);
+        else if (i + 1 < line.length() && line.charAt(i + 1) == '"')
+          field.append(line.charAt(++i));
+        else
+          quoted = false;
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',' || c == '\t') {
+        fields.add(field.toString().trim());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString().trim());
+    if (quoted || fields.size() != 2 || fields.get(0).isEmpty() || fields.get(1).isEmpty())
+      return new Query(number, null, null);
+    return new Query(number, fields.get(0), fields.get(1));
+  }
+
+  // waits for the output of a group of queries
+  private static String await(Future<String> group) throws IOException {
+    try {
+      return group.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while answering queries");
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("could not answer queries", e.getCause());
+    }
+  }
+
+  // appends value to text as a CSV field, quoting it if needed
+  private static StringBuilder appendCsv(StringBuilder text, String value) {
+    if (value == null)
+      return text;
+    if (value.indexOf(',') == -1 && value.indexOf('"') == -1 && value.indexOf('\n') == -1
+        && value.indexOf('\r') == -1)
+      return text.append(value);
+    return text.append('"').append(value.replace("\"", "\"\"")).append('"');
+  }
+
+  // appends value to text as a JSON string, or null; PathFinderServer writes its answers with this
+  static StringBuilder appendJson(StringBuilder text, String value) {
+    if (value == null)
+      return text.append("null");
+    text.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\')
+        text.append('\\').append(c);
+      else if (c < 0x20)
+        text.append(String.format("\\u%04x", (int) c));
+      else
+        text.append(c);
+    }
+    return text.append('"');
+  }
+
+  /**
+   * A query read from one line of the input.
+   */
+  static final class Query {
+    final int line; // the number of the input line, starting at 1
+    final String source; // null if the line could not be read
+    final String destination;
+
+    Query(int line, String source, String destination) {
+      this.line = line;
+      this.source = source;
+      this.destination = destination;
+    }
+  }
+}
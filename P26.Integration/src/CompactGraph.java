@@ -0,0 +1,522 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * This class is an immutable snapshot of a graph, stored in compressed sparse row (CSR) form. Each
+ * node is identified by a dense integer id, and the edges leaving node u are stored at indexes
+ * offsets[u] through offsets[u + 1] - 1 of the targets and weights arrays. The same layout is kept
+ * for the edges entering each node, so that searches can also run backwards.
+ *
+ * Compared to BaseGraph, this needs no per-node or per-edge objects and keeps the weights as
+ * primitive doubles next to each other in memory, which makes it much cheaper to hold and to search.
+ * Snapshots are created with BaseGraph.freeze(). Since they are immutable, the methods that would
+ * change the graph throw UnsupportedOperationException. Each search keeps its state in a
+ * SearchWorkspace of its own, so any number of threads may query the same snapshot at once.
+ *
+ * Besides Dijkstra's algorithm, a snapshot can search from both ends at once, or be guided towards
+ * the end node by any lower bound on the remaining cost, such as the straight line distance
+ * between the node positions it keeps.
+ *
+ * @param NodeType is the data type stored at each graph node
+ */
+public class CompactGraph<NodeType> implements GraphADT<NodeType, Double> {
+
+  protected final SymbolTable<NodeType> symbols; // translates between node data and node ids
+  protected final int[] offsets; // edges leaving u are at [offsets[u], offsets[u + 1])
+  protected final int[] targets; // successor id of each edge
+  protected final double[] weights; // weight of each edge
+  protected final int[] reverseOffsets; // edges entering v are at [reverseOffsets[v], ...[v + 1])
+  protected final int[] sources; // predecessor id of each entering edge
+  protected final double[] reverseWeights; // weight of each entering edge
+  // the position of each node: planar meters, or longitude (x) and latitude (y) in degrees when
+  // geographic is true. NaN when the position is unknown
+  protected final double[] xs;
+  protected final double[] ys;
+  protected final boolean[] geographic;
+
+  // Mean radius of the earth minus 0.5%, so that great circle distances are never overestimated
+  private static final double EARTH_RADIUS_METERS = 6371008.8 * 0.995;
+
+  /**
+   * Creates a snapshot from the edges leaving each node. The edges entering each node are derived
+   * from these arrays.
+   *
+   * @param symbols the ids of the node data, which must be numbered 0 to offsets.length - 2
+   * @param offsets the index of the first edge leaving each node, followed by the edge count
+   * @param targets the successor id of each edge
+   * @param weights the non-negative weight of each edge
+   * @throws IllegalArgumentException if the array lengths do not match each other
+   */
+  public CompactGraph(SymbolTable<NodeType> symbols, int[] offsets, int[] targets,
+      double[] weights) {
+    this(symbols, offsets, targets, weights, unknownPositions(symbols.size()),
+        unknownPositions(symbols.size()), new boolean[symbols.size()]);
+  }
+
+  /**
+   * Creates a snapshot from the edges leaving each node and the position of each node. The edges
+   * entering each node are derived from these arrays.
+   *
+   * @param symbols    the ids of the node data, which must be numbered 0 to offsets.length - 2
+   * @param offsets    the index of the first edge leaving each node, followed by the edge count
+   * @param targets    the successor id of each edge
+   * @param weights    the non-negative weight of each edge
+   * @param xs         the x coordinate or longitude of each node, or NaN if it has no position
+   * @param ys         the y coordinate or latitude of each node, or NaN if it has no position
+   * @param geographic whether each node's position is a longitude and latitude in degrees
+   * @throws IllegalArgumentException if the array lengths do not match each other
+   */
+  public CompactGraph(SymbolTable<NodeType> symbols, int[] offsets, int[] targets,
+      double[] weights, double[] xs, double[] ys, boolean[] geographic) {
+    if (offsets.length != symbols.size() + 1 || targets.length != weights.length
+        || offsets[offsets.length - 1] != targets.length || xs.length != symbols.size()
+        || ys.length != symbols.size() || geographic.length != symbols.size())
+      throw new IllegalArgumentException("CSR arrays do not describe the same graph");
+    this.symbols = symbols;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+    this.xs = xs;
+    this.ys = ys;
+    this.geographic = geographic;
+    // count the edges entering each node, then place each edge after those counted before it
+    int nodeCount = symbols.size();
+    reverseOffsets = new int[nodeCount + 1];
+    for (int target : targets)
+      reverseOffsets[target + 1]++;
+    for (int v = 0; v < nodeCount; v++)
+      reverseOffsets[v + 1] += reverseOffsets[v];
+    sources = new int[targets.length];
+    reverseWeights = new double[targets.length];
+    int[] next = Arrays.copyOf(reverseOffsets, nodeCount);
+    for (int u = 0; u < nodeCount; u++) {
+      for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+        int slot = next[targets[e]]++;
+        sources[slot] = u;
+        reverseWeights[slot] = weights[e];
+      }
+    }
+  }
+
+  /**
+   * Returns the id of the node that stores the provided data.
+   *
+   * @param data the node data to look up
+   * @return the id of that node, or -1 if no node stores this data
+   * @throws NullPointerException if data is null
+   */
+  public int idOf(NodeType data) {
+    return symbols.idOf(data);
+  }
+
+  /**
+   * Returns the data stored in the node with the provided id.
+   *
+   * @param id the id of the node
+   * @return the data in that node
+   * @throws IndexOutOfBoundsException if no node has this id
+   */
+  public NodeType dataOf(int id) {
+    return symbols.valueOf(id);
+  }
+
+  /**
+   * Returns the straight line distance between the positions of two nodes, or the great circle
+   * distance if both positions are geographic. The earth's radius is taken to be slightly smaller
+   * than it is, so that the distance is never more than the length of any walk between them.
+   *
+   * @param u the id of one node
+   * @param v the id of the other node
+   * @return the distance in meters, or NaN if either node has no position or only one of them is
+   *         geographic
+   */
+  public double straightLineDistance(int u, int v) {
+    if (Double.isNaN(xs[u]) || Double.isNaN(xs[v]) || geographic[u] != geographic[v])
+      return Double.NaN;
+    return straightLineDistance(xs[u], ys[u], xs[v], ys[v], geographic[u]);
+  }
+
+  /**
+   * Returns the straight line distance between two positions, or the great circle distance if
+   * they are geographic.
+   *
+   * @param x1         the x coordinate or longitude of the first position
+   * @param y1         the y coordinate or latitude of the first position
+   * @param x2         the x coordinate or longitude of the second position
+   * @param y2         the y coordinate or latitude of the second position
+   * @param geographic whether both positions are a longitude and latitude in degrees
+   * @return the distance in meters
+   */
+  static double straightLineDistance(double x1, double y1, double x2, double y2,
+      boolean geographic) {
+    if (!geographic)
+      return Math.hypot(x2 - x1, y2 - y1);
+    // haversine formula for the great circle distance between two latitude, longitude pairs
+    double lat1 = Math.toRadians(y1);
+    double lat2 = Math.toRadians(y2);
+    double sinLat = Math.sin((lat2 - lat1) / 2);
+    double sinLon = Math.sin(Math.toRadians(x2 - x1) / 2);
+    double h = sinLat * sinLat + Math.cos(lat1) * Math.cos(lat2) * sinLon * sinLon;
+    return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(h)));
+  }
+
+  @Override
+  public boolean insertNode(NodeType data) {
+    throw new UnsupportedOperationException("CompactGraph is immutable");
+  }
+
+  @Override
+  public boolean removeNode(NodeType data) {
+    throw new UnsupportedOperationException("CompactGraph is immutable");
+  }
+
+  @Override
+  public boolean containsNode(NodeType data) {
+    return symbols.idOf(data) != -1;
+  }
+
+  @Override
+  public int getNodeCount() {
+    return symbols.size();
+  }
+
+  @Override
+  public boolean insertEdge(NodeType pred, NodeType succ, Double weight) {
+    throw new UnsupportedOperationException("CompactGraph is immutable");
+  }
+
+  @Override
+  public boolean removeEdge(NodeType pred, NodeType succ) {
+    throw new UnsupportedOperationException("CompactGraph is immutable");
+  }
+
+  @Override
+  public boolean containsEdge(NodeType pred, NodeType succ) {
+    return findEdgeIndex(pred, succ) != -1;
+  }
+
+  @Override
+  public Double getEdge(NodeType pred, NodeType succ) {
+    int e = findEdgeIndex(pred, succ);
+    if (e == -1)
+      throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+    return weights[e];
+  }
+
+  @Override
+  public Double findEdge(NodeType pred, NodeType succ) {
+    int e = findEdgeIndex(pred, succ);
+    return e == -1 ? null : weights[e];
+  }
+
+  @Override
+  public int getEdgeCount() {
+    return targets.length;
+  }
+
+  @Override
+  public int getModificationCount() {
+    return 0; // snapshots never change
+  }
+
+  @Override
+  public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+    return shortestPath(start, end).getNodes();
+  }
+
+  @Override
+  public double shortestPathCost(NodeType start, NodeType end) {
+    int source = symbols.idOf(start);
+    int target = symbols.idOf(end);
+    if (source == -1 || target == -1)
+      throw new NoSuchElementException();
+    try (SearchWorkspace workspace = search(source, target)) {
+      return workspace.dist(target);
+    }
+  }
+
+  @Override
+  public PathResult<NodeType> shortestPath(NodeType start, NodeType end) {
+    int[] ids = endpoints(start, end);
+    try (SearchWorkspace workspace = search(ids[0], ids[1])) {
+      return pathFrom(workspace, ids[0], ids[1]);
+    }
+  }
+
+  /**
+   * Finds the shortest path from source to target with A* search, which settles nodes in order of
+   * their cost plus estimate's lower bound on the cost remaining from them to target. The better
+   * the estimate, the fewer nodes are settled before target. An estimate that always returns 0.0
+   * makes this Dijkstra's algorithm.
+   *
+   * @param source   the id of the start node
+   * @param target   the id of the end node
+   * @param estimate returns a cost no greater than that of the shortest path from a node id to
+   *                 target, and no greater than an edge's weight plus its value for the edge's
+   *                 successor
+   * @return the shortest path from source to target
+   * @throws NoSuchElementException if there is no path from source to target
+   */
+  public PathResult<NodeType> shortestPath(int source, int target, IntToDoubleFunction estimate) {
+    try (SearchWorkspace workspace = SearchWorkspace.acquire(getNodeCount())) {
+      workspace.start(source);
+      while (!workspace.isEmpty()) {
+        int u = workspace.removeMin();
+        if (u == target)
+          return pathFrom(workspace, source, target);
+        double uCost = workspace.dist(u);
+        for (int e = offsets[u], last = offsets[u + 1]; e < last; e++) {
+          int v = targets[e];
+          double vCost = uCost + weights[e];
+          if (vCost < workspace.dist(v))
+            workspace.relax(v, vCost, vCost + estimate.applyAsDouble(v), u, e);
+        }
+      }
+    }
+    throw new NoSuchElementException("There is no way to connect start and end node");
+  }
+
+  /**
+   * Finds the shortest path from source to target with bidirectional Dijkstra, which searches
+   * forward from source along the edges leaving each node and backward from target along the
+   * edges entering it, always advancing the side whose next node is cheaper. The search stops
+   * once the two sides' next nodes together cost at least as much as the cheapest path through a
+   * node both sides have reached.
+   *
+   * @param source the id of the start node
+   * @param target the id of the end node
+   * @return the shortest path from source to target
+   * @throws NoSuchElementException if there is no path from source to target
+   */
+  public PathResult<NodeType> bidirectionalPath(int source, int target) {
+    try (SearchWorkspace forward = SearchWorkspace.acquire(getNodeCount());
+        SearchWorkspace backward = SearchWorkspace.acquire(getNodeCount())) {
+      forward.start(source);
+      backward.start(target);
+      double bestCost = source == target ? 0.0 : Double.POSITIVE_INFINITY;
+      int meetingNode = source == target ? source : -1;
+      while (!forward.isEmpty() && !backward.isEmpty()
+          && forward.peekPriority() + backward.peekPriority() < bestCost) {
+        boolean isForward = forward.peekPriority() <= backward.peekPriority();
+        SearchWorkspace side = isForward ? forward : backward;
+        SearchWorkspace other = isForward ? backward : forward;
+        int[] rowOffsets = isForward ? offsets : reverseOffsets;
+        int[] columns = isForward ? targets : sources;
+        double[] values = isForward ? weights : reverseWeights;
+        int u = side.removeMin();
+        double uCost = side.dist(u);
+        for (int e = rowOffsets[u], last = rowOffsets[u + 1]; e < last; e++) {
+          int v = columns[e];
+          side.relax(v, uCost + values[e], u, e);
+          double candidate = side.dist(v) + other.dist(v);
+          if (candidate < bestCost) {
+            bestCost = candidate;
+            meetingNode = v;
+          }
+        }
+      }
+      if (meetingNode == -1)
+        throw new NoSuchElementException("There is no way to connect start and end node");
+      // the forward side's parents lead from the meeting node back to source, and the backward
+      // side's parents lead from it on to target
+      LinkedList<NodeType> pathNodes = new LinkedList<>();
+      LinkedList<Double> segmentCosts = new LinkedList<>();
+      for (int v = meetingNode; v != source; v = forward.parent(v)) {
+        pathNodes.addFirst(symbols.valueOf(v));
+        segmentCosts.addFirst(weights[forward.parentEdge(v)]);
+      }
+      pathNodes.addFirst(symbols.valueOf(source));
+      for (int v = meetingNode; v != target; v = backward.parent(v)) {
+        pathNodes.addLast(symbols.valueOf(backward.parent(v)));
+        segmentCosts.addLast(reverseWeights[backward.parentEdge(v)]);
+      }
+      // sum the edges in order, so the cost matches the one Dijkstra's algorithm finds
+      double cost = 0.0;
+      for (double segmentCost : segmentCosts)
+        cost += segmentCost;
+      return new PathResult<>(new ArrayList<>(pathNodes), segmentCosts, cost);
+    }
+  }
+
+  /**
+   * Computes the cost of the shortest path from source to every node in this graph.
+   *
+   * @param source the id of the start node
+   * @return an array holding the cost of reaching each node, or Double.POSITIVE_INFINITY for nodes
+   *         that can not be reached
+   */
+  public double[] distancesFrom(int source) {
+    return allDistances(source, offsets, targets, weights);
+  }
+
+  /**
+   * Computes the cost of the shortest path from every node in this graph to target, by searching
+   * backward along the edges entering each node.
+   *
+   * @param target the id of the end node
+   * @return an array holding the cost of reaching target from each node, or
+   *         Double.POSITIVE_INFINITY for nodes that can not reach it
+   */
+  public double[] distancesTo(int target) {
+    return allDistances(target, reverseOffsets, sources, reverseWeights);
+  }
+
+  /**
+   * Computes the shortest path from source to every node in this graph, and keeps the result as a
+   * ShortestPathTree so that any of those paths can be rebuilt later without searching again.
+   *
+   * @param source the id of the start node
+   * @return the shortest path tree rooted at source
+   */
+  public ShortestPathTree<NodeType> shortestPathTree(int source) {
+    // the tree outlives the workspace, so its arrays are copied out
+    int nodeCount = getNodeCount();
+    double[] dist = new double[nodeCount];
+    int[] parent = new int[nodeCount];
+    int[] parentEdge = new int[nodeCount];
+    try (SearchWorkspace workspace = search(source, -1)) {
+      for (int v = 0; v < nodeCount; v++) {
+        dist[v] = workspace.dist(v);
+        parent[v] = workspace.parent(v);
+        parentEdge[v] = workspace.parentEdge(v);
+      }
+    }
+    return new ShortestPathTree<>(this, source, dist, parent, parentEdge);
+  }
+
+  // runs Dijkstra's algorithm from origin over the provided CSR arrays until every reachable node
+  // is settled
+  private double[] allDistances(int origin, int[] rowOffsets, int[] columns, double[] values) {
+    double[] dist = new double[getNodeCount()];
+    Arrays.fill(dist, Double.POSITIVE_INFINITY);
+    IntMinHeap heap = new IntMinHeap(dist.length);
+    dist[origin] = 0.0;
+    heap.add(origin, 0.0);
+    while (!heap.isEmpty()) {
+      int u = heap.removeMin();
+      for (int e = rowOffsets[u], last = rowOffsets[u + 1]; e < last; e++) {
+        int v = columns[e];
+        double vCost = dist[u] + values[e];
+        if (vCost < dist[v]) {
+          if (dist[v] == Double.POSITIVE_INFINITY)
+            heap.add(v, vCost);
+          else
+            heap.decreaseKey(v, vCost);
+          dist[v] = vCost;
+        }
+      }
+    }
+    return dist;
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from source until target is settled, in a pooled SearchWorkspace.
+   * When this returns, the workspace holds the cost of the shortest path to
+   * target, and following its parents from target leads back to source, with each node's parent
+   * edge holding the index of the edge from its parent to it. A target of -1 settles every node
+   * that source can reach, leaving the whole shortest path tree in the workspace.
+   *
+   * @param source the id of the start node
+   * @param target the id of the end node, or -1 to search the whole graph
+   * @return the workspace holding the search's results, which the caller must close
+   * @throws NoSuchElementException if there is no path from source to target
+   */
+  protected SearchWorkspace search(int source, int target) {
+    SearchWorkspace workspace = SearchWorkspace.acquire(getNodeCount());
+    workspace.start(source);
+    while (!workspace.isEmpty()) {
+      int u = workspace.removeMin();
+      if (u == target)
+        return workspace;
+      double uCost = workspace.dist(u);
+      for (int e = offsets[u], last = offsets[u + 1]; e < last; e++)
+        workspace.relax(targets[e], uCost + weights[e], u, e);
+    }
+    if (target != -1) {
+      workspace.close();
+      throw new NoSuchElementException("There is no way to connect start and end node");
+    }
+    return workspace;
+  }
+
+  // builds the PathResult for a search in workspace that settled target, by following its parents
+  // back to source
+  private PathResult<NodeType> pathFrom(SearchWorkspace workspace, int source, int target) {
+    // count the path's nodes first, so the result lists can be filled from the back
+    int length = 1;
+    for (int v = target; v != source; v = workspace.parent(v))
+      length++;
+    Object[] pathNodes = new Object[length];
+    Double[] segmentCosts = new Double[length - 1];
+    int index = length - 1;
+    for (int v = target; v != source; v = workspace.parent(v)) {
+      pathNodes[index] = symbols.valueOf(v);
+      segmentCosts[--index] = weights[workspace.parentEdge(v)];
+    }
+    pathNodes[0] = symbols.valueOf(source);
+    @SuppressWarnings("unchecked")
+    List<NodeType> nodeList = (List<NodeType>) Arrays.asList(pathNodes);
+    return new PathResult<>(nodeList, Arrays.asList(segmentCosts), workspace.dist(target));
+  }
+
+  /**
+   * Builds the PathResult for a search that settled target, by following parent[] back to source.
+   *
+   * @param source     the id of the start node
+   * @param target     the id of the end node
+   * @param dist       the path costs computed by the search
+   * @param parent     the predecessors computed by the search
+   * @param parentEdge the edges computed by the search
+   * @return the shortest path from source to target
+   */
+  protected PathResult<NodeType> buildPath(int source, int target, double[] dist, int[] parent,
+      int[] parentEdge) {
+    LinkedList<NodeType> pathNodes = new LinkedList<>();
+    LinkedList<Double> segmentCosts = new LinkedList<>();
+    for (int v = target; v != source; v = parent[v]) {
+      pathNodes.addFirst(symbols.valueOf(v));
+      segmentCosts.addFirst(weights[parentEdge[v]]);
+    }
+    pathNodes.addFirst(symbols.valueOf(source));
+    return new PathResult<>(new ArrayList<>(pathNodes), segmentCosts, dist[target]);
+  }
+
+  /**
+   * Looks up the ids of the start and end nodes of a query.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return an array holding the start id followed by the end id
+   * @throws NoSuchElementException if either node is not in this graph
+   */
+  protected int[] endpoints(NodeType start, NodeType end) {
+    int startId = symbols.idOf(start);
+    int endId = symbols.idOf(end);
+    if (startId == -1 || endId == -1)
+      throw new NoSuchElementException();
+    return new int[] {startId, endId};
+  }
+
+  // returns an array of nodeCount unknown coordinates
+  private static double[] unknownPositions(int nodeCount) {
+    double[] coordinates = new double[nodeCount];
+    Arrays.fill(coordinates, Double.NaN);
+    return coordinates;
+  }
+
+  // returns the index of the edge from pred to succ, or -1 if there is no such edge
+  private int findEdgeIndex(NodeType pred, NodeType succ) {
+    int u = symbols.idOf(pred);
+    int v = symbols.idOf(succ);
+    if (u == -1 || v == -1)
+      return -1;
+    for (int e = offsets[u]; e < offsets[u + 1]; e++)
+      if (targets[e] == v)
+        return e;
+    return -1;
+  }
+}
@@ -0,0 +1,575 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is a CompactGraph that answers shortest path queries with a Contraction Hierarchy.
+ *
+ * Preprocessing contracts the nodes one at a time, least important first. Contracting a node v
+ * removes it from the remaining graph, and wherever a path u -> v -> x was the only shortest path
+ * from u to x (no "witness" path avoiding v is found), a shortcut edge u -> x is added in its
+ * place. Each node's importance is twice its edge difference (the shortcuts its contraction would
+ * add, minus the edges it removes), plus the number of its neighbors already contracted and its
+ * level in the hierarchy so far. The last two terms keep the contraction order spread out across
+ * the graph, and are updated for each neighbor of a node as soon as it is contracted.
+ *
+ * A query then only needs to search upward: forward from the start node along edges to nodes
+ * contracted later, and backward from the end node the same way. The two searches meet at the
+ * most important node on the shortest path, and nodes that are reached more cheaply from above
+ * are not expanded at all. Finally, shortcuts on the path found are unpacked back into the
+ * original edges.
+ *
+ * @param NodeType is the data type stored at each graph node
+ */
+public class ContractionHierarchy<NodeType> extends CompactGraph<NodeType> {
+
+  // The most nodes a single witness search may settle before assuming no witness exists. Giving
+  // up early only adds shortcuts that are not needed, and never affects query results. Searches
+  // that only estimate a node's priority use a much lower limit, since they run far more often.
+  private static final int WITNESS_SETTLE_LIMIT = 100;
+  private static final int ESTIMATE_SETTLE_LIMIT = 30;
+
+  // Every edge of the hierarchy, both original edges and shortcuts, is an arc. A shortcut arc
+  // replaces the path made of its two child arcs, while original edges have no children.
+  private int arcCount = 0;
+  private int[] arcFrom = new int[16];
+  private int[] arcTo = new int[16];
+  private double[] arcWeight = new double[16];
+  private int[] arcFirstChild = new int[16];
+  private int[] arcSecondChild = new int[16];
+
+  private final int[] rank; // rank[v] is the position of v in the contraction order
+  // the arcs leaving each node towards a higher ranked node, in CSR form
+  private int[] upOffsets;
+  private int[] upArcs;
+  // the arcs entering each node from a higher ranked node, in CSR form
+  private int[] downOffsets;
+  private int[] downArcs;
+
+  // Query arrays that queries take and give back, so that concurrent queries do not share them
+  // and, whatever thread they run on, do not need to allocate their own
+  private final WorkspacePool<QueryWorkspace> workspaces;
+
+  /**
+   * Builds a contraction hierarchy for the provided graph.
+   *
+   * @param graph the graph to answer queries for
+   */
+  public ContractionHierarchy(CompactGraph<NodeType> graph) {
+    super(graph.symbols, graph.offsets, graph.targets, graph.weights, graph.xs, graph.ys,
+        graph.geographic);
+    int nodeCount = getNodeCount();
+    rank = new int[nodeCount];
+    contract();
+    buildSearchGraphs();
+    workspaces = new WorkspacePool<>(() -> new QueryWorkspace(nodeCount));
+  }
+
+  /**
+   * Returns the number of shortcut edges that preprocessing added.
+   *
+   * @return the number of shortcuts
+   */
+  public int getShortcutCount() {
+    return arcCount - targets.length;
+  }
+
+  @Override
+  public double shortestPathCost(NodeType start, NodeType end) {
+    int[] ids = endpoints(start, end);
+    QueryWorkspace workspace = workspaces.take();
+    try {
+      if (query(ids[0], ids[1], workspace) == -1)
+        throw new NoSuchElementException("There is no way to connect start and end node");
+      // sum the original edges in order, so the cost matches the one Dijkstra's algorithm finds
+      double cost = 0.0;
+      for (int arc : unpackedArcs(ids[0], ids[1], workspace))
+        cost += arcWeight[arc];
+      return cost;
+    } finally {
+      workspace.reset();
+      workspaces.release(workspace);
+    }
+  }
+
+  @Override
+  public PathResult<NodeType> shortestPath(NodeType start, NodeType end) {
+    int[] ids = endpoints(start, end);
+    QueryWorkspace workspace = workspaces.take();
+    try {
+      if (query(ids[0], ids[1], workspace) == -1)
+        throw new NoSuchElementException("There is no way to connect start and end node");
+      List<NodeType> pathNodes = new ArrayList<>();
+      List<Double> segmentCosts = new ArrayList<>();
+      pathNodes.add(symbols.valueOf(ids[0]));
+      double cost = 0.0;
+      for (int arc : unpackedArcs(ids[0], ids[1], workspace)) {
+        pathNodes.add(symbols.valueOf(arcTo[arc]));
+        segmentCosts.add(arcWeight[arc]);
+        cost += arcWeight[arc];
+      }
+      return new PathResult<>(pathNodes, segmentCosts, cost);
+    } finally {
+      workspace.reset();
+      workspaces.release(workspace);
+    }
+  }
+
+  /**
+   * Contracts every node in order of importance, recording each node's rank and adding shortcut
+   * arcs.
+   */
+  private void contract() {
+    int nodeCount = getNodeCount();
+    int[][] outArcs = new int[nodeCount][];
+    int[][] inArcs = new int[nodeCount][];
+    int[] outCount = new int[nodeCount];
+    int[] inCount = new int[nodeCount];
+    for (int u = 0; u < nodeCount; u++) {
+      outArcs[u] = new int[Math.max(2, offsets[u + 1] - offsets[u])];
+      inArcs[u] = new int[Math.max(2, reverseOffsets[u + 1] - reverseOffsets[u])];
+    }
+    for (int u = 0; u < nodeCount; u++) {
+      for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+        int arc = addArc(u, targets[e], weights[e], -1, -1);
+        outArcs[u][outCount[u]++] = arc;
+        inArcs[targets[e]][inCount[targets[e]]++] = arc;
+      }
+    }
+    Contraction contraction = new Contraction(outArcs, inArcs, outCount, inCount);
+    IntMinHeap order = new IntMinHeap(nodeCount);
+    for (int v = 0; v < nodeCount; v++)
+      order.add(v, contraction.priority(v));
+    int nextRank = 0;
+    while (!order.isEmpty()) {
+      int v = order.removeMin();
+      // priorities go stale as neighbors are contracted, so recompute before committing to v
+      double priority = contraction.priority(v);
+      if (!order.isEmpty() && priority > order.peekPriority()) {
+        order.add(v, priority);
+        continue;
+      }
+      contraction.contract(v);
+      rank[v] = nextRank++;
+      // contracting v changes the edge difference of each remaining neighbor
+      for (int neighbor : contraction.remainingNeighbors(v))
+        order.update(neighbor, contraction.priority(neighbor));
+    }
+  }
+
+  /**
+   * Splits the arcs into those that lead up the hierarchy from each node, and those that lead down
+   * into each node, in CSR form.
+   */
+  private void buildSearchGraphs() {
+    int nodeCount = getNodeCount();
+    upOffsets = new int[nodeCount + 1];
+    downOffsets = new int[nodeCount + 1];
+    for (int arc = 0; arc < arcCount; arc++) {
+      if (rank[arcTo[arc]] > rank[arcFrom[arc]])
+        upOffsets[arcFrom[arc] + 1]++;
+      else
+        downOffsets[arcTo[arc] + 1]++;
+    }
+    for (int v = 0; v < nodeCount; v++) {
+      upOffsets[v + 1] += upOffsets[v];
+      downOffsets[v + 1] += downOffsets[v];
+    }
+    upArcs = new int[upOffsets[nodeCount]];
+    downArcs = new int[downOffsets[nodeCount]];
+    int[] nextUp = Arrays.copyOf(upOffsets, nodeCount);
+    int[] nextDown = Arrays.copyOf(downOffsets, nodeCount);
+    for (int arc = 0; arc < arcCount; arc++) {
+      if (rank[arcTo[arc]] > rank[arcFrom[arc]])
+        upArcs[nextUp[arcFrom[arc]]++] = arc;
+      else
+        downArcs[nextDown[arcTo[arc]]++] = arc;
+    }
+  }
+
+  /**
+   * Runs the bidirectional upward search from source and target. Afterwards, the workspace's
+   * forward parents lead from the meeting node back to source, and its backward parents lead from
+   * the meeting node on to target.
+   *
+   * @param source    the id of the start node
+   * @param target    the id of the end node
+   * @param workspace the arrays to search with
+   * @return the id of the meeting node, or -1 if target can not be reached from source
+   */
+  private int query(int source, int target, QueryWorkspace workspace) {
+    workspace.visit(source, true, 0.0, -1);
+    workspace.visit(target, false, 0.0, -1);
+    IntMinHeap forward = workspace.forwardHeap;
+    IntMinHeap backward = workspace.backwardHeap;
+    forward.add(source, 0.0);
+    backward.add(target, 0.0);
+    double best = Double.POSITIVE_INFINITY;
+    int meeting = -1;
+    while (!forward.isEmpty() || !backward.isEmpty()) {
+      // both searches are only upward, so either side may have to run on after the other stops
+      double forwardMin = forward.isEmpty() ? Double.POSITIVE_INFINITY : forward.peekPriority();
+      double backwardMin = backward.isEmpty() ? Double.POSITIVE_INFINITY : backward.peekPriority();
+      if (Math.min(forwardMin, backwardMin) >= best)
+        break;
+      boolean isForward = forwardMin <= backwardMin;
+      int u = (isForward ? forward : backward).removeMin();
+      double[] dist = isForward ? workspace.forwardDist : workspace.backwardDist;
+      double[] otherDist = isForward ? workspace.backwardDist : workspace.forwardDist;
+      if (workspace.seen(u, !isForward) && dist[u] + otherDist[u] < best) {
+        best = dist[u] + otherDist[u];
+        meeting = u;
+      }
+      if (isStalled(u, isForward, dist))
+        continue;
+      int[] arcOffsets = isForward ? upOffsets : downOffsets;
+      int[] arcs = isForward ? upArcs : downArcs;
+      for (int i = arcOffsets[u]; i < arcOffsets[u + 1]; i++) {
+        int arc = arcs[i];
+        int v = isForward ? arcTo[arc] : arcFrom[arc];
+        double vCost = dist[u] + arcWeight[arc];
+        IntMinHeap heap = isForward ? forward : backward;
+        if (!workspace.seen(v, isForward)) {
+          workspace.visit(v, isForward, vCost, arc);
+          heap.add(v, vCost);
+        } else if (vCost < dist[v] && heap.contains(v)) {
+          workspace.visit(v, isForward, vCost, arc);
+          heap.decreaseKey(v, vCost);
+        }
+      }
+    }
+    workspace.meeting = meeting;
+    return meeting;
+  }
+
+  /**
+   * Checks whether a node just settled by one side of a query is reached more cheaply through a
+   * higher ranked node, using an arc the upward search can not follow. Such a node can not be on
+   * the shortest path, so there is no need to relax its arcs ("stall-on-demand").
+   *
+   * @param u         the node just settled
+   * @param isForward true if the forward search settled u
+   * @param dist      the distances of that side of the search
+   * @return true if u is stalled
+   */
+  private boolean isStalled(int u, boolean isForward, double[] dist) {
+    int[] arcOffsets = isForward ? downOffsets : upOffsets;
+    int[] arcs = isForward ? downArcs : upArcs;
+    for (int i = arcOffsets[u]; i < arcOffsets[u + 1]; i++) {
+      int arc = arcs[i];
+      int v = isForward ? arcFrom[arc] : arcTo[arc];
+      if (dist[v] + arcWeight[arc] < dist[u])
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Collects the arcs along the path found by the last query, replacing every shortcut with the
+   * original edges it stands for.
+   *
+   * @param source    the id of the start node
+   * @param target    the id of the end node
+   * @param workspace the arrays the query searched with
+   * @return the original edges along the shortest path, in order from source to target
+   */
+  private List<Integer> unpackedArcs(int source, int target, QueryWorkspace workspace) {
+    // arcs from source up to the meeting node, collected backward and then reversed
+    ArrayList<Integer> packed = new ArrayList<>();
+    for (int v = workspace.meeting; v != source; v = arcFrom[workspace.forwardParent[v]])
+      packed.add(workspace.forwardParent[v]);
+    Collections.reverse(packed);
+    // arcs from the meeting node down to target
+    for (int v = workspace.meeting; v != target; v = arcTo[workspace.backwardParent[v]])
+      packed.add(workspace.backwardParent[v]);
+    ArrayList<Integer> unpacked = new ArrayList<>();
+    int[] stack = new int[16];
+    for (int arc : packed) {
+      int size = 0;
+      stack[size++] = arc;
+      while (size > 0) {
+        int next = stack[--size];
+        if (arcFirstChild[next] == -1) {
+          unpacked.add(next);
+        } else {
+          if (size + 2 > stack.length)
+            stack = Arrays.copyOf(stack, stack.length * 2);
+          // push the second half first, so that the first half is unpacked first
+          stack[size++] = arcSecondChild[next];
+          stack[size++] = arcFirstChild[next];
+        }
+      }
+    }
+    return unpacked;
+  }
+
+  // adds an arc to the arc arrays, growing them when needed, and returns its index
+  private int addArc(int from, int to, double weight, int firstChild, int secondChild) {
+    if (arcCount == arcFrom.length) {
+      int capacity = arcCount * 2;
+      arcFrom = Arrays.copyOf(arcFrom, capacity);
+      arcTo = Arrays.copyOf(arcTo, capacity);
+      arcWeight = Arrays.copyOf(arcWeight, capacity);
+      arcFirstChild = Arrays.copyOf(arcFirstChild, capacity);
+      arcSecondChild = Arrays.copyOf(arcSecondChild, capacity);
+    }
+    arcFrom[arcCount] = from;
+    arcTo[arcCount] = to;
+    arcWeight[arcCount] = weight;
+    arcFirstChild[arcCount] = firstChild;
+    arcSecondChild[arcCount] = secondChild;
+    return arcCount++;
+  }
+
+  /**
+   * The state of the graph while nodes are being contracted: the arcs at each node, which nodes
+   * have been contracted, and the arrays used by witness searches.
+   */
+  private class Contraction {
+    private final int[][] outArcs; // outArcs[u][0 .. outCount[u]) are the arcs leaving u
+    private final int[][] inArcs; // inArcs[v][0 .. inCount[v]) are the arcs entering v
+    private final int[] outCount;
+    private final int[] inCount;
+    private final boolean[] contracted;
+    private final int[] contractedNeighbors; // number of each node's neighbors contracted so far
+    private final int[] level; // one more than the highest level among contracted neighbors
+
+    // witness search state, reset after each search by walking the touched list
+    private final double[] witnessDist;
+    private final int[] touched;
+    private int touchedCount = 0;
+    private final IntMinHeap witnessHeap;
+
+    Contraction(int[][] outArcs, int[][] inArcs, int[] outCount, int[] inCount) {
+      int nodeCount = outArcs.length;
+      this.outArcs = outArcs;
+      this.inArcs = inArcs;
+      this.outCount = outCount;
+      this.inCount = inCount;
+      contracted = new boolean[nodeCount];
+      contractedNeighbors = new int[nodeCount];
+      level = new int[nodeCount];
+      witnessDist = new double[nodeCount];
+      Arrays.fill(witnessDist, Double.POSITIVE_INFINITY);
+      touched = new int[nodeCount];
+      witnessHeap = new IntMinHeap(nodeCount);
+    }
+
+    // the importance of v: the edge difference of contracting it now, plus its contracted
+    // neighbors
+    double priority(int v) {
+      int removed = 0;
+      for (int i = 0; i < inCount[v]; i++)
+        if (!contracted[arcFrom[inArcs[v][i]]])
+          removed++;
+      for (int i = 0; i < outCount[v]; i++)
+        if (!contracted[arcTo[outArcs[v][i]]])
+          removed++;
+      return 2 * (shortcuts(v, false, ESTIMATE_SETTLE_LIMIT) - removed) + contractedNeighbors[v] + level[v];
+    }
+
+    // removes v from the remaining graph, adding the shortcuts needed to replace it
+    void contract(int v) {
+      shortcuts(v, true, WITNESS_SETTLE_LIMIT);
+      contracted[v] = true;
+      // detach v's arcs from its remaining neighbors, so later searches never scan them
+      for (int i = 0; i < inCount[v]; i++) {
+        int u = arcFrom[inArcs[v][i]];
+        if (!contracted[u]) {
+          contractedNeighbors[u]++;
+          level[u] = Math.max(level[u], level[v] + 1);
+          outCount[u] = removeArc(outArcs[u], outCount[u], inArcs[v][i]);
+        }
+      }
+      for (int i = 0; i < outCount[v]; i++) {
+        int x = arcTo[outArcs[v][i]];
+        if (!contracted[x]) {
+          contractedNeighbors[x]++;
+          level[x] = Math.max(level[x], level[v] + 1);
+          inCount[x] = removeArc(inArcs[x], inCount[x], outArcs[v][i]);
+        }
+      }
+    }
+
+    // swaps arc out of arcs[0 .. count) and returns the new count
+    private int removeArc(int[] arcs, int count, int arc) {
+      for (int i = 0; i < count; i++) {
+        if (arcs[i] == arc) {
+          arcs[i] = arcs[--count];
+          return count;
+        }
+      }
+      return count;
+    }
+
+    // returns the neighbors of v (through arcs in either direction) that are not contracted
+    int[] remainingNeighbors(int v) {
+      int[] neighbors = new int[inCount[v] + outCount[v]];
+      int count = 0;
+      for (int i = 0; i < inCount[v]; i++)
+        if (!contracted[arcFrom[inArcs[v][i]]])
+          neighbors[count++] = arcFrom[inArcs[v][i]];
+      for (int i = 0; i < outCount[v]; i++)
+        if (!contracted[arcTo[outArcs[v][i]]])
+          neighbors[count++] = arcTo[outArcs[v][i]];
+      return Arrays.copyOf(neighbors, count);
+    }
+
+    /**
+     * Finds the shortcuts needed to contract v: for each remaining in arc u -> v and out arc
+     * v -> x, a shortcut is needed unless a witness search from u finds a path to x that avoids v
+     * and costs no more than going through v.
+     *
+     * @param v           the node being contracted
+     * @param add         true to add the shortcuts, or false to only count them
+     * @param settleLimit the most nodes each witness search may settle
+     * @return the number of shortcuts needed
+     */
+    int shortcuts(int v, boolean add, int settleLimit) {
+      int count = 0;
+      double maxOut = 0.0;
+      for (int j = 0; j < outCount[v]; j++)
+        if (!contracted[arcTo[outArcs[v][j]]])
+          maxOut = Math.max(maxOut, arcWeight[outArcs[v][j]]);
+      for (int i = 0; i < inCount[v]; i++) {
+        int inArc = inArcs[v][i];
+        int u = arcFrom[inArc];
+        if (contracted[u])
+          continue;
+        witnessSearch(u, v, arcWeight[inArc] + maxOut, settleLimit);
+        for (int j = 0; j < outCount[v]; j++) {
+          int outArc = outArcs[v][j];
+          int x = arcTo[outArc];
+          if (contracted[x] || x == u)
+            continue;
+          double viaV = arcWeight[inArc] + arcWeight[outArc];
+          if (witnessDist[x] <= viaV)
+            continue;
+          count++;
+          if (add)
+            addShortcut(u, x, viaV, inArc, outArc);
+        }
+        resetWitnessSearch();
+      }
+      return count;
+    }
+
+    // searches from u over the remaining graph without passing through v, settling nodes up to
+    // maxCost away, and at most settleLimit nodes
+    private void witnessSearch(int u, int v, double maxCost, int settleLimit) {
+      witnessDist[u] = 0.0;
+      touched[touchedCount++] = u;
+      witnessHeap.add(u, 0.0);
+      int settled = 0;
+      while (!witnessHeap.isEmpty() && settled++ < settleLimit) {
+        int w = witnessHeap.removeMin();
+        if (witnessDist[w] > maxCost)
+          break;
+        for (int i = 0; i < outCount[w]; i++) {
+          int arc = outArcs[w][i];
+          int x = arcTo[arc];
+          if (x == v || contracted[x])
+            continue;
+          double cost = witnessDist[w] + arcWeight[arc];
+          if (cost < witnessDist[x]) {
+            if (witnessDist[x] == Double.POSITIVE_INFINITY) {
+              touched[touchedCount++] = x;
+              witnessHeap.add(x, cost);
+            } else if (witnessHeap.contains(x)) {
+              witnessHeap.decreaseKey(x, cost);
+            } else {
+              continue;
+            }
+            witnessDist[x] = cost;
+          }
+        }
+      }
+    }
+
+    private void resetWitnessSearch() {
+      for (int i = 0; i < touchedCount; i++)
+        witnessDist[touched[i]] = Double.POSITIVE_INFINITY;
+      touchedCount = 0;
+      witnessHeap.clear();
+    }
+
+    // adds a shortcut from u to x, or lowers the weight of an existing arc from u to x
+    private void addShortcut(int u, int x, double weight, int firstChild, int secondChild) {
+      for (int i = 0; i < outCount[u]; i++) {
+        int arc = outArcs[u][i];
+        if (arcTo[arc] == x) {
+          if (weight < arcWeight[arc]) {
+            arcWeight[arc] = weight;
+            arcFirstChild[arc] = firstChild;
+            arcSecondChild[arc] = secondChild;
+          }
+          return;
+        }
+      }
+      int arc = addArc(u, x, weight, firstChild, secondChild);
+      if (outCount[u] == outArcs[u].length)
+        outArcs[u] = Arrays.copyOf(outArcs[u], outCount[u] * 2);
+      outArcs[u][outCount[u]++] = arc;
+      if (inCount[x] == inArcs[x].length)
+        inArcs[x] = Arrays.copyOf(inArcs[x], inCount[x] * 2);
+      inArcs[x][inCount[x]++] = arc;
+    }
+  }
+
+  /**
+   * The arrays used by one query at a time. Every node a query reaches is recorded in a touched
+   * list, so that only those entries need to be reset afterwards.
+   */
+  private static class QueryWorkspace {
+    final double[] forwardDist;
+    final double[] backwardDist;
+    final int[] forwardParent; // arc used to reach each node in the forward search
+    final int[] backwardParent; // arc used to leave each node in the backward search
+    final IntMinHeap forwardHeap;
+    final IntMinHeap backwardHeap;
+    final int[] touched;
+    int touchedCount = 0;
+    int meeting = -1;
+
+    QueryWorkspace(int nodeCount) {
+      forwardDist = new double[nodeCount];
+      backwardDist = new double[nodeCount];
+      Arrays.fill(forwardDist, Double.POSITIVE_INFINITY);
+      Arrays.fill(backwardDist, Double.POSITIVE_INFINITY);
+      forwardParent = new int[nodeCount];
+      backwardParent = new int[nodeCount];
+      forwardHeap = new IntMinHeap(nodeCount);
+      backwardHeap = new IntMinHeap(nodeCount);
+      touched = new int[2 * nodeCount];
+    }
+
+    boolean seen(int v, boolean forward) {
+      return (forward ? forwardDist[v] : backwardDist[v]) != Double.POSITIVE_INFINITY;
+    }
+
+    void visit(int v, boolean forward, double cost, int arc) {
+      if (!seen(v, forward))
+        touched[touchedCount++] = v;
+      if (forward) {
+        forwardDist[v] = cost;
+        forwardParent[v] = arc;
+      } else {
+        backwardDist[v] = cost;
+        backwardParent[v] = arc;
+      }
+    }
+
+    void reset() {
+      for (int i = 0; i < touchedCount; i++) {
+        forwardDist[touched[i]] = Double.POSITIVE_INFINITY;
+        backwardDist[touched[i]] = Double.POSITIVE_INFINITY;
+      }
+      touchedCount = 0;
+      forwardHeap.clear();
+      backwardHeap.clear();
+      meeting = -1;
+    }
+  }
+}
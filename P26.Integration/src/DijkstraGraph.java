@@ -8,9 +8,7 @@
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import java.util.PriorityQueue;
 import java.util.List;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
 
@@ -36,6 +34,9 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
     public Node node; // Final node in this path
     public double cost; // Total cost of this path
     public SearchNode predecessor; // Predecessor field of final node
+    public boolean settled; // True once no cheaper path to node can be found
+    public double segmentCost; // Weight of the edge from predecessor's node to node
+    public double estimate; // Lower bound on the remaining cost from node to the end node
 
     public SearchNode(Node node, double cost, SearchNode predecessor) {
       this.node = node;
@@ -52,6 +53,56 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
     }
   }
 
+  // The kind of SearchFrontier that computeShortestPath() orders discovered nodes with
+  protected FrontierType frontierType = FrontierType.INDEXED_HEAP;
+  // The algorithm that computeShortestPath() uses to find paths
+  protected SearchMode searchMode = SearchMode.DIJKSTRA;
+  // The limits that every search in this graph must stay within
+  protected SearchBounds searchBounds = SearchBounds.UNBOUNDED;
+  // The fastest anyone walks along an edge, in meters per second, used by the A* heuristic
+  protected double maxWalkingSpeed = DEFAULT_MAX_WALKING_SPEED;
+  // The number of nodes settled by the most recent search
+  protected int lastSettledCount = 0;
+  // The number of landmarks that ALT searches use
+  protected int landmarkCount = DEFAULT_LANDMARK_COUNT;
+  // The landmark tables for ALT searches, the snapshot they were built from, the id of each node
+  // within it by node id, and the modification count of this graph at that time (null until the
+  // first ALT search)
+  protected LandmarkIndex landmarkIndex = null;
+  protected CompactGraph<NodeType> landmarkSnapshot = null;
+  protected int[] landmarkIds = null;
+  protected int landmarkVersion = -1;
+  // The contraction hierarchy for CONTRACTION_HIERARCHY searches, and the modification count of
+  // this graph when it was built (null until the first such search)
+  protected ContractionHierarchy<NodeType> hierarchy = null;
+  protected int hierarchyVersion = -1;
+  // The shortest path trees kept for DIJKSTRA searches (null when disabled), and the snapshot they
+  // are computed from along with the id of each node within it and the modification count of this
+  // graph when it was taken
+  protected ShortestPathTreeCache<NodeType> treeCache = null;
+  protected CompactGraph<NodeType> treeSnapshot = null;
+  protected int[] treeSnapshotIds = null;
+  protected int treeSnapshotVersion = -1;
+  // The id of the current search's end node within landmarkSnapshot
+  private int landmarkGoal = -1;
+
+  /**
+   * The default number of landmarks for ALT searches.
+   */
+  public static final int DEFAULT_LANDMARK_COUNT = 8;
+
+  /**
+   * The default maximum walking speed in meters per second, a brisk walk.
+   */
+  public static final double DEFAULT_MAX_WALKING_SPEED = 2.5;
+
+  /**
+   * Constructor for a graph that keeps its nodes in an OpenAddressingMap.
+   */
+  public DijkstraGraph() {
+    super();
+  }
+
   /**
    * Constructor that sets the map that the graph uses.
    * 
@@ -61,6 +112,175 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
     super(map);
   }
 
+  /**
+   * Sets the kind of SearchFrontier that shortest path searches in this graph use, so that the
+   * different implementations can be compared against each other.
+   *
+   * @param frontierType the frontier implementation to use for future searches
+   * @throws NullPointerException if frontierType is null
+   */
+  public void setFrontierType(FrontierType frontierType) {
+    if (frontierType == null)
+      throw new NullPointerException("frontierType must not be null");
+    this.frontierType = frontierType;
+  }
+
+  /**
+   * Returns the kind of SearchFrontier that shortest path searches in this graph use.
+   *
+   * @return the frontier implementation used by searches
+   */
+  public FrontierType getFrontierType() {
+    return frontierType;
+  }
+
+  /**
+   * Sets the algorithm that shortest path searches in this graph use. Every mode finds a path with
+   * the same, lowest cost, but they differ in how many nodes they settle along the way.
+   *
+   * @param searchMode the algorithm to use for future searches
+   * @throws NullPointerException if searchMode is null
+   */
+  public void setSearchMode(SearchMode searchMode) {
+    if (searchMode == null)
+      throw new NullPointerException("searchMode must not be null");
+    this.searchMode = searchMode;
+  }
+
+  /**
+   * Returns the algorithm that shortest path searches in this graph use.
+   *
+   * @return the current search mode
+   */
+  public SearchMode getSearchMode() {
+    return searchMode;
+  }
+
+  /**
+   * Sets the fastest speed at which anyone walks along an edge. The A* search mode divides the
+   * straight line distance between two nodes by this speed to get a lower bound on the walking
+   * time between them, so it must not be lower than the real speed implied by any edge weight, or
+   * A* may return a path that is not the shortest.
+   *
+   * @param metersPerSecond the maximum walking speed
+   * @throws IllegalArgumentException if metersPerSecond is not positive
+   */
+  public void setMaxWalkingSpeed(double metersPerSecond) {
+    if (!(metersPerSecond > 0.0))
+      throw new IllegalArgumentException("maximum walking speed must be positive");
+    this.maxWalkingSpeed = metersPerSecond;
+  }
+
+  /**
+   * Returns the fastest speed at which anyone is assumed to walk along an edge.
+   *
+   * @return the maximum walking speed in meters per second
+   */
+  public double getMaxWalkingSpeed() {
+    return maxWalkingSpeed;
+  }
+
+  /**
+   * Sets the number of landmarks that ALT searches use. More landmarks give tighter lower bounds,
+   * at the cost of more preprocessing time and memory.
+   *
+   * @param landmarkCount the number of landmarks
+   * @throws IllegalArgumentException if landmarkCount is not positive
+   */
+  public void setLandmarkCount(int landmarkCount) {
+    if (landmarkCount < 1)
+      throw new IllegalArgumentException("landmarkCount must be positive");
+    if (landmarkCount != this.landmarkCount)
+      landmarkIndex = null;
+    this.landmarkCount = landmarkCount;
+  }
+
+  /**
+   * Builds the landmark tables that ALT searches use, unless tables for the current contents of
+   * this graph already exist. ALT searches call this themselves, so it only needs to be called to
+   * move the preprocessing cost ahead of the first query.
+   */
+  public void preprocessLandmarks() {
+    if (landmarkIndex == null || landmarkVersion != modificationCount) {
+      landmarkSnapshot = freeze();
+      landmarkIds = frozenIds(landmarkSnapshot);
+      landmarkIndex = LandmarkIndex.build(landmarkSnapshot, landmarkCount);
+      landmarkVersion = modificationCount;
+    }
+  }
+
+  /**
+   * Builds the contraction hierarchy that CONTRACTION_HIERARCHY searches use, unless one for the
+   * current contents of this graph already exists. Those searches call this themselves, so it only
+   * needs to be called to move the preprocessing cost ahead of the first query.
+   */
+  public void preprocessHierarchy() {
+    if (hierarchy == null || hierarchyVersion != modificationCount) {
+      hierarchy = new ContractionHierarchy<>(freeze());
+      hierarchyVersion = modificationCount;
+    }
+  }
+
+  /**
+   * Keeps the complete shortest path trees of recently queried start nodes, so that later DIJKSTRA
+   * searches from the same start node only rebuild their path from the stored tree. The trees are
+   * computed on a snapshot of this graph, and are all discarded as soon as this graph changes.
+   * Stored trees are not used by searches that are bounded by a number of settled nodes.
+   *
+   * @param maxTrees the most trees to keep, or 0 to stop keeping trees
+   * @param maxBytes the most memory that the kept trees may use together
+   * @throws IllegalArgumentException if maxTrees is negative, or maxTrees is positive and maxBytes
+   *                                  is not
+   */
+  public void setTreeCacheLimits(int maxTrees, long maxBytes) {
+    if (maxTrees < 0)
+      throw new IllegalArgumentException("maxTrees must not be negative");
+    treeCache = maxTrees == 0 ? null : new ShortestPathTreeCache<>(maxTrees, maxBytes);
+  }
+
+  /**
+   * Returns the cache of shortest path trees that DIJKSTRA searches use, which reports how often a
+   * stored tree was found.
+   *
+   * @return the tree cache, or null if trees are not being kept
+   */
+  public ShortestPathTreeCache<NodeType> getTreeCache() {
+    return treeCache;
+  }
+
+  /**
+   * Returns the number of nodes that the most recent search settled, which shows how much of the
+   * graph each search mode has to explore.
+   *
+   * @return the number of settled nodes
+   */
+  public int getLastSettledCount() {
+    return lastSettledCount;
+  }
+
+  /**
+   * Sets the limits that shortest path searches in this graph must stay within. A search that
+   * reaches one of these limits before settling its destination throws a
+   * SearchLimitExceededException.
+   *
+   * @param searchBounds the limits for future searches, or SearchBounds.UNBOUNDED for none
+   * @throws NullPointerException if searchBounds is null
+   */
+  public void setSearchBounds(SearchBounds searchBounds) {
+    if (searchBounds == null)
+      throw new NullPointerException("searchBounds must not be null");
+    this.searchBounds = searchBounds;
+  }
+
+  /**
+   * Returns the limits that shortest path searches in this graph must stay within.
+   *
+   * @return the current search bounds
+   */
+  public SearchBounds getSearchBounds() {
+    return searchBounds;
+  }
+
   /**
    * This helper method creates a network of SearchNodes while computing the shortest path between
    * the provided start and end locations. The SearchNode that is returned by this method is
@@ -68,89 +288,95 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
    * path, and the nodes linked together through predecessor references represent all of the nodes
    * along that shortest path (ordered from end to start).
    *
+   * Nodes that have been discovered but not yet settled are kept in a SearchFrontier (created from
+   * this graph's FrontierType), so that finding a cheaper path to one of them only lowers its
+   * priority rather than adding a duplicate entry. The search stops as soon as the end node is
+   * settled, since no later node can lead to a cheaper path to it.
+   *
    * @param start the data item in the starting node for the path
    * @param end   the data item in the destination node for the path
    * @return SearchNode for the final end node within the shortest path
-   * @throws NoSuchElementException when no path from start to end is found or when either start or
-   *                                end data do not correspond to a graph node
+   * @throws NoSuchElementException       when no path from start to end is found or when either
+   *                                      start or end data do not correspond to a graph node
+   * @throws SearchLimitExceededException when the search reaches this graph's SearchBounds before
+   *                                      settling the end node
    */
   protected SearchNode computeShortestPath(NodeType start, NodeType end) {
 
-    if (!nodes.containsKey(start) || !nodes.containsKey(end)) {
+    Node startNode = nodes.getOrNull(start); // The Node object for the start data
+    Node endNode = nodes.getOrNull(end); // The Node object for the end data
+    if (startNode == null || endNode == null) {
       throw new NoSuchElementException();
     }
-    Node startNode = nodes.get(start); // The Node object for the start data
-    Node nodeToRetrieve = null; // The key used to find the SearchNode to return from the map
-    SearchNode duplicateNode = null; // The node used to check if the successor's node is already in
-    // the Priority Queue
-
-    // Create a PriorityQueue that stores all potential nodes to visit (and is sorted based on cost)
-    PriorityQueue<SearchNode> priorityList = new PriorityQueue<SearchNode>();
-    // Create a placeholder map that stores all nodes already visited (which are stored in
-    // SearchNodes)
-    PlaceholderMap<Node, SearchNode> map = new PlaceholderMap<Node, SearchNode>();
-
-    // If the start NodeType isn't null, add its Node to the priorityList. Otherwise, throw an
-    // exception
-    if (start != null) {
-      SearchNode searchStart = new SearchNode(startNode, 0.0, null);
-      priorityList.add(searchStart);
-    } else {
-      throw new NoSuchElementException("Start Nodetype is null");
-    }
-    // Throw an exception if the end NodeType is null
-    if (end == null) {
-      throw new NoSuchElementException("End NodeType is null");
+    switch (searchMode) {
+      case BIDIRECTIONAL:
+        return computeBidirectionalPath(startNode, endNode);
+      case ALT:
+        preprocessLandmarks();
+        landmarkGoal = landmarkIds[endNode.id];
+        return computeForwardPath(startNode, endNode);
+      case CONTRACTION_HIERARCHY:
+        preprocessHierarchy();
+        return computeHierarchyPath(startNode, endNode);
+      case DIJKSTRA:
+        if (treeCache != null && searchBounds.getMaxSettledNodes() == Integer.MAX_VALUE)
+          return computeCachedPath(startNode, endNode);
+        return computeForwardPath(startNode, endNode);
+      case ASTAR:
+      default:
+        return computeForwardPath(startNode, endNode);
     }
+  }
 
-    // Iterate through the priorityList until it is empty
-    while (!(priorityList.isEmpty() || priorityList.size() == 0)) {
-      // Remove the next SearchNode in PriorityList, add it to PlaceholderMap (if PlaceholderMap
-      // doesn't already contain it). If it is already in the map, continue to the next condition
-      SearchNode removedNode = priorityList.remove();
-      if (!(map.containsKey(removedNode.node))) {
-        map.put(removedNode.node, removedNode);
-        if (removedNode.node.data.equals(end)) {
-          // If the removedNode = the desired end value, save its value in the nodeToRetrieve object
-          nodeToRetrieve = removedNode.node;
-        }
-      } else {
-        continue;
+  /**
+   * Runs Dijkstra's algorithm forward from startNode until endNode is settled. In SearchMode.ASTAR,
+   * nodes are settled in order of their cost plus estimateRemainingCost() instead, which makes this
+   * an A* search.
+   *
+   * @param startNode the starting node for the path
+   * @param endNode   the destination node for the path
+   * @return SearchNode for endNode within the shortest path
+   * @throws NoSuchElementException       when no path from start to end is found
+   * @throws SearchLimitExceededException when the search reaches this graph's SearchBounds first
+   */
+  protected SearchNode computeForwardPath(Node startNode, Node endNode) {
+    Node nodeToRetrieve = null; // The key used to find the SearchNode to return from the map
+
+    // Create a frontier that stores all discovered nodes that are not yet settled (sorted by cost)
+    SearchFrontier<Node> frontier = frontierType.create(node -> node.id);
+    // Create a map that stores the cheapest SearchNode found so far for every discovered node
+    MapADT<Node, SearchNode> map = new OpenAddressingMap<Node, SearchNode>();
+
+    SearchNode searchStart = new SearchNode(startNode, 0.0, null);
+    searchStart.estimate = estimateRemainingCost(startNode, endNode);
+    map.put(startNode, searchStart);
+    frontier.add(startNode, searchStart.estimate);
+    lastSettledCount = 0;
+
+    // Settle nodes in order of increasing cost (plus estimate) until the end node is settled
+    while (!frontier.isEmpty()) {
+      Node removed = frontier.removeMin();
+      SearchNode removedNode = map.get(removed);
+      if (removedNode.cost + removedNode.estimate > searchBounds.getMaxCost()) {
+        throw new SearchLimitExceededException(
+            "No path within a cost of " + searchBounds.getMaxCost());
       }
-      // Add all successors of the removedNode to the priorityList
-      if (removedNode.node.edgesLeaving != null || removedNode.node.edgesLeaving.size() == 0) {
-        for (int i = 0; i < removedNode.node.edgesLeaving.size(); i++) {
-          // Save the successor's node and cost
-          Node successorNode = removedNode.node.edgesLeaving.get(i).successor;
-          Edge cost = removedNode.node.edgesLeaving.get(i);
-          Double doubleCost = cost.data.doubleValue() + removedNode.cost;
-          // Create a SearchNode object with the node and cost data
-          SearchNode successorSearchNode = new SearchNode(successorNode, doubleCost, removedNode);
-          // Iterate through the priorityList to check if the successorNode is already in the queue
-          Iterator<SearchNode> iterator = priorityList.iterator();
-          while (iterator.hasNext()) {
-            SearchNode nextNode = iterator.next();
-            duplicateNode = null;
-            // If a duplicate Node is found, check if the successorNode's cost is less than the
-            // already inserted node's cost.
-            if (nextNode.node.data.equals(successorSearchNode.node.data)) {
-              duplicateNode = nextNode;
-              if (nextNode.cost > successorSearchNode.cost) {
-                // If the successorNode's cost is less than the already inserted node's cost, remove
-                // the duplicateNode and add the successorNode to the priorityList. If it is greater
-                // than, continue without inserting anything new into the priorityList
-                priorityList.remove(nextNode);
-                priorityList.add(successorSearchNode);
-              }
-              break;
-            }
-          }
-          // If the duplicateNode hasn't been initailzed from the iterator loop, add the successor
-          // SearchNode into the priorityList
-          if (duplicateNode == null) {
-            priorityList.add(successorSearchNode);
-          }
-        }
+      removedNode.settled = true;
+      lastSettledCount++;
+      if (removed == endNode) {
+        // If the removedNode = the desired end value, its path can not get any cheaper
+        nodeToRetrieve = removed;
+        break;
+      }
+      if (lastSettledCount >= searchBounds.getMaxSettledNodes()) {
+        throw new SearchLimitExceededException(
+            "No path found within " + searchBounds.getMaxSettledNodes() + " settled nodes");
+      }
+      // Relax every edge leaving the removedNode
+      EdgeList leaving = removed.edgesLeaving;
+      for (int i = 0, degree = leaving.size(); i < degree; i++) {
+        Edge edge = leaving.get(i);
+        relax(frontier, map, edge.successor, removedNode, edge.data.doubleValue(), endNode);
       }
     }
     // If the end node was never found in the map, throw an exception
@@ -161,6 +387,229 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
     return map.get(nodeToRetrieve);
   }
 
+  /**
+   * Runs Dijkstra's algorithm forward from startNode and backward from endNode at the same time,
+   * always advancing the side with the smaller frontier. Whenever an edge joins a node reached by
+   * one side to a node reached by the other, the combined path is a candidate for the shortest
+   * path. The search stops once the lowest costs in the two frontiers add up to at least the best
+   * candidate, since any path not yet found must cost at least that much.
+   *
+   * Within the backward search, each SearchNode's predecessor is the next node towards endNode, and
+   * its cost is the cost of reaching endNode. The returned chain is the forward chain up to the
+   * meeting node, extended with new SearchNodes for the rest of the path.
+   *
+   * @param startNode the starting node for the path
+   * @param endNode   the destination node for the path
+   * @return SearchNode for endNode within the shortest path
+   * @throws NoSuchElementException       when no path from start to end is found
+   * @throws SearchLimitExceededException when the search reaches this graph's SearchBounds first
+   */
+  protected SearchNode computeBidirectionalPath(Node startNode, Node endNode) {
+    if (startNode == endNode) {
+      return new SearchNode(startNode, 0.0, null);
+    }
+    SearchFrontier<Node> forwardFrontier = frontierType.create(node -> node.id);
+    SearchFrontier<Node> backwardFrontier = frontierType.create(node -> node.id);
+    MapADT<Node, SearchNode> forwardMap = new OpenAddressingMap<Node, SearchNode>();
+    MapADT<Node, SearchNode> backwardMap = new OpenAddressingMap<Node, SearchNode>();
+    forwardMap.put(startNode, new SearchNode(startNode, 0.0, null));
+    forwardFrontier.add(startNode, 0.0);
+    backwardMap.put(endNode, new SearchNode(endNode, 0.0, null));
+    backwardFrontier.add(endNode, 0.0);
+
+    double bestCost = Double.POSITIVE_INFINITY; // The cost of the cheapest path found so far
+    Node meetingNode = null; // The node where the forward and backward parts of that path meet
+    lastSettledCount = 0; // The number of nodes settled by both sides together
+
+    while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()) {
+      double lowerBound = forwardFrontier.peekPriority() + backwardFrontier.peekPriority();
+      if (lowerBound >= bestCost) {
+        break;
+      }
+      if (lowerBound > searchBounds.getMaxCost()) {
+        throw new SearchLimitExceededException(
+            "No path within a cost of " + searchBounds.getMaxCost());
+      }
+      if (++lastSettledCount > searchBounds.getMaxSettledNodes()) {
+        throw new SearchLimitExceededException(
+            "No path found within " + searchBounds.getMaxSettledNodes() + " settled nodes");
+      }
+      boolean forward = forwardFrontier.size() <= backwardFrontier.size();
+      SearchFrontier<Node> frontier = forward ? forwardFrontier : backwardFrontier;
+      MapADT<Node, SearchNode> map = forward ? forwardMap : backwardMap;
+      MapADT<Node, SearchNode> otherMap = forward ? backwardMap : forwardMap;
+
+      SearchNode removedNode = map.get(frontier.removeMin());
+      removedNode.settled = true;
+      // Forward searches follow the edges leaving each node, and backward searches follow the
+      // edges entering it
+      EdgeList edges = forward ? removedNode.node.edgesLeaving : removedNode.node.edgesEntering;
+      for (int i = 0, degree = edges.size(); i < degree; i++) {
+        Edge edge = edges.get(i);
+        Node next = forward ? edge.successor : edge.predecessor;
+        SearchNode nextNode = relax(frontier, map, next, removedNode, edge.data.doubleValue(), null);
+        if (nextNode != null && otherMap.containsKey(next)) {
+          double candidate = nextNode.cost + otherMap.get(next).cost;
+          if (candidate < bestCost) {
+            bestCost = candidate;
+            meetingNode = next;
+          }
+        }
+      }
+    }
+    if (meetingNode == null) {
+      throw new NoSuchElementException("There is no way to connect start and end node");
+    }
+    if (bestCost > searchBounds.getMaxCost()) {
+      throw new SearchLimitExceededException(
+          "No path within a cost of " + searchBounds.getMaxCost());
+    }
+    // Follow the backward chain from the meeting node to endNode, extending the forward chain
+    SearchNode current = forwardMap.get(meetingNode);
+    for (SearchNode backward = backwardMap.get(meetingNode); backward.predecessor != null;
+        backward = backward.predecessor) {
+      SearchNode next = new SearchNode(backward.predecessor.node,
+          current.cost + backward.segmentCost, current);
+      next.segmentCost = backward.segmentCost;
+      current = next;
+    }
+    return current;
+  }
+
+  /**
+   * Finds the shortest path with this graph's contraction hierarchy, and rebuilds it as a chain of
+   * SearchNodes. Only the maximum cost of this graph's SearchBounds applies, and it is checked
+   * against the path found.
+   *
+   * @param startNode the starting node for the path
+   * @param endNode   the destination node for the path
+   * @return SearchNode for endNode within the shortest path
+   * @throws NoSuchElementException       when no path from start to end is found
+   * @throws SearchLimitExceededException when the path costs more than this graph's SearchBounds
+   */
+  protected SearchNode computeHierarchyPath(Node startNode, Node endNode) {
+    lastSettledCount = 0;
+    return toSearchNodes(startNode, hierarchy.shortestPath(startNode.data, endNode.data));
+  }
+
+  /**
+   * Finds the shortest path in the stored shortest path tree of startNode, computing and storing
+   * that tree first if the tree cache does not hold it. Only the maximum cost of this graph's
+   * SearchBounds applies, and it is checked against the path found.
+   *
+   * @param startNode the starting node for the path
+   * @param endNode   the destination node for the path
+   * @return SearchNode for endNode within the shortest path
+   * @throws NoSuchElementException       when no path from start to end is found
+   * @throws SearchLimitExceededException when the path costs more than this graph's SearchBounds
+   */
+  protected SearchNode computeCachedPath(Node startNode, Node endNode) {
+    if (treeSnapshot == null || treeSnapshotVersion != modificationCount) {
+      treeSnapshot = freeze();
+      treeSnapshotIds = frozenIds(treeSnapshot);
+      treeSnapshotVersion = modificationCount;
+    }
+    int source = treeSnapshotIds[startNode.id];
+    ShortestPathTree<NodeType> tree = treeCache.get(source, modificationCount);
+    lastSettledCount = 0;
+    if (tree == null) {
+      tree = treeSnapshot.shortestPathTree(source);
+      treeCache.put(tree, modificationCount);
+      lastSettledCount = getNodeCount();
+    }
+    return toSearchNodes(startNode, tree.pathTo(treeSnapshotIds[endNode.id]));
+  }
+
+  /**
+   * Rebuilds a path found outside of this graph's own searches as a chain of SearchNodes, after
+   * checking it against the maximum cost of this graph's SearchBounds.
+   *
+   * @param startNode the starting node for the path
+   * @param path      the path to rebuild, which must start at startNode
+   * @return SearchNode for the last node of path
+   * @throws SearchLimitExceededException when the path costs more than this graph's SearchBounds
+   */
+  protected SearchNode toSearchNodes(Node startNode, PathResult<NodeType> path) {
+    if (path.getTotalCost() > searchBounds.getMaxCost()) {
+      throw new SearchLimitExceededException(
+          "No path within a cost of " + searchBounds.getMaxCost());
+    }
+    SearchNode current = new SearchNode(startNode, 0.0, null);
+    for (int i = 1; i < path.getNodes().size(); i++) {
+      double segmentCost = path.getSegmentCosts().get(i - 1);
+      current = new SearchNode(nodes.get(path.getNodes().get(i)), current.cost + segmentCost,
+          current);
+      current.segmentCost = segmentCost;
+    }
+    return current;
+  }
+
+  /**
+   * Offers a path to node that extends the path through via by an edge with the provided weight.
+   * The first path found to a node adds it to the frontier, and a cheaper path to a node replaces
+   * its current path. Nodes are ordered in the frontier by their cost plus their estimated
+   * remaining cost to goal. A settled node can only be reached more cheaply when that estimate is
+   * inconsistent, in which case it is returned to the frontier to be settled again.
+   *
+   * @param frontier the frontier of the search
+   * @param map      the cheapest SearchNode found so far for every node the search discovered
+   * @param node     the node at the far end of the edge
+   * @param via      the settled SearchNode at the near end of the edge
+   * @param weight   the weight of the edge
+   * @param goal     the node the search is heading for, or null to not estimate remaining costs
+   * @return node's SearchNode if this path was recorded, or null if a path at least as cheap was
+   *         already known
+   */
+  protected SearchNode relax(SearchFrontier<Node> frontier, MapADT<Node, SearchNode> map,
+      Node node, SearchNode via, double weight, Node goal) {
+    double cost = via.cost + weight;
+    if (!map.containsKey(node)) {
+      SearchNode searchNode = new SearchNode(node, cost, via);
+      searchNode.segmentCost = weight;
+      searchNode.estimate = goal == null ? 0.0 : estimateRemainingCost(node, goal);
+      map.put(node, searchNode);
+      frontier.add(node, cost + searchNode.estimate);
+      return searchNode;
+    }
+    SearchNode searchNode = map.get(node);
+    if (cost >= searchNode.cost) {
+      return null;
+    }
+    searchNode.cost = cost;
+    searchNode.predecessor = via;
+    searchNode.segmentCost = weight;
+    if (searchNode.settled) {
+      searchNode.settled = false;
+      frontier.add(node, cost + searchNode.estimate);
+    } else {
+      frontier.decreaseKey(node, cost + searchNode.estimate);
+    }
+    return searchNode;
+  }
+
+  /**
+   * Returns a lower bound on the cost of any path from node to goal, which a search may use to
+   * settle nodes that lead towards goal before others. In SearchMode.ASTAR, this is the straight
+   * line distance between the two nodes divided by the maximum walking speed, or 0.0 when either
+   * node has no position. In SearchMode.ALT, it is the landmark lower bound. In other modes it is
+   * always 0.0.
+   *
+   * @param node the node the remaining path starts at
+   * @param goal the node the remaining path ends at
+   * @return a cost that is no greater than the cost of the shortest path from node to goal
+   */
+  protected double estimateRemainingCost(Node node, Node goal) {
+    if (searchMode == SearchMode.ALT) {
+      return landmarkIndex.lowerBound(landmarkIds[node.id], landmarkGoal);
+    }
+    if (searchMode != SearchMode.ASTAR || Double.isNaN(node.x) || Double.isNaN(goal.x)
+        || node.geographic != goal.geographic) {
+      return 0.0;
+    }
+    return CompactGraph.straightLineDistance(node.x, node.y, goal.x, goal.y, node.geographic)
+        / maxWalkingSpeed;
+  }
+
   /**
    * Returns the list of data values from nodes along the shortest path from the node with the
    * provided start value through the node with the provided end value. This list of data values
@@ -212,6 +661,30 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
     return totalCost;
   }
 
+  /**
+   * Returns the shortest path from the node with the provided start value to the node with the
+   * provided end value. The node data, the weight of each edge and the total cost all come from a
+   * single call to computeShortestPath().
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the nodes, segment costs and total cost of this shortest path
+   */
+  public PathResult<NodeType> shortestPath(NodeType start, NodeType end) {
+    SearchNode returnedSearchNode = computeShortestPath(start, end);
+    LinkedList<NodeType> pathNodes = new LinkedList<NodeType>();
+    LinkedList<Double> segmentCosts = new LinkedList<Double>();
+    // Walk the chain of predecessors from the end node, adding each node and the edge leading to it
+    // to the front of the lists
+    for (SearchNode current = returnedSearchNode; current != null; current = current.predecessor) {
+      pathNodes.addFirst(current.node.data);
+      if (current.predecessor != null) {
+        segmentCosts.addFirst(current.segmentCost);
+      }
+    }
+    return new PathResult<NodeType>(pathNodes, segmentCosts, returnedSearchNode.cost);
+  }
+
   /**
    * This test method uses the example traced through in lecture, and confirms that the results of
    * the computeShortestPath() method return the same path we computed in lecture. Specifically, we
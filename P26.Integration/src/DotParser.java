@@ -0,0 +1,771 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class reads graphs written in the DOT language, and reports each node and edge statement it
+ * finds to a Handler. The input is read in fixed size blocks from a channel and tokenized straight
+ * from the bytes, so a file of any size is parsed in a single pass without reading it line by line
+ * or matching regular expressions against it. Each distinct name (node name or attribute name) is
+ * decoded into a String only the first time it is seen, and later occurrences return that same
+ * String. Numeric attribute values are parsed from their bytes when they are asked for.
+ *
+ * The parser accepts the statements of the DOT grammar that describe nodes and edges:
+ * <ul>
+ * <li>graph and digraph headers, optionally strict and named, and any number of graphs</li>
+ * <li>node statements with attribute lists, like "Bascom Hall" [pos="43.07,-89.40"]</li>
+ * <li>edge statements with -- or -&gt; edges, including chains like a -- b -- c [seconds=5]</li>
+ * <li>attributes in any order, separated by commas, semicolons or spaces, in one or more lists</li>
+ * <li>node [...] and edge [...] statements, whose attributes become the defaults of later nodes and
+ * edges, and graph attribute statements, which are skipped</li>
+ * <li>subgraphs used as statements, whose contents are read as part of the enclosing graph</li>
+ * <li>quoted, unquoted, numeral and HTML names, node ports, and //, /* *&#47; and # comments</li>
+ * </ul>
+ * Subgraphs used as the end of an edge are not supported, and make parse() throw.
+ */
+public class DotParser {
+
+  /**
+   * Receives the statements of a DOT graph from parse(), in the order they appear. The Attributes
+   * passed to each call are reused by the parser once the call returns, so they must not be kept.
+   */
+  public interface Handler {
+
+    /**
+     * Called for each node statement.
+     *
+     * @param name       the name of the node
+     * @param attributes the node's attributes, including defaults from earlier node statements
+     */
+    void node(String name, Attributes attributes);
+
+    /**
+     * Called for each edge of an edge statement. A chain of n nodes makes n - 1 calls.
+     *
+     * @param from       the name of the node the edge starts at
+     * @param to         the name of the node the edge ends at
+     * @param directed   true for -&gt; edges, and false for -- edges
+     * @param attributes the edge's attributes, including defaults from earlier edge statements
+     */
+    void edge(String from, String to, boolean directed, Attributes attributes);
+
+    /**
+     * Called for each node [...] or edge [...] statement, after its attributes have been added to
+     * the defaults that the parser passes to later node() or edge() calls. Does nothing unless
+     * overridden.
+     *
+     * @param edges      true for an edge statement, or false for a node statement
+     * @param attributes the attributes that the statement sets, without earlier defaults
+     */
+    default void defaults(boolean edges, Attributes attributes) {
+    }
+  }
+
+  /**
+   * The attributes of a single statement, stored as the raw bytes of their values, along with a set
+   * of default attributes that are returned for names the statement does not set itself.
+   */
+  public static class Attributes {
+    private String[] names = new String[4];
+    private int[] valueStart = new int[4]; // the value of names[i] is bytes[valueStart[i] ..
+    private int[] valueEnd = new int[4]; // valueEnd[i])
+    private byte[] bytes = new byte[64];
+    private int size = 0;
+    private int byteCount = 0;
+    private Attributes defaults = null;
+
+    /**
+     * Returns the number of attributes that the statement sets itself, not counting defaults.
+     *
+     * @return the number of attributes
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Returns the name of one of the attributes the statement sets.
+     *
+     * @param index the index of the attribute, from 0 to size() - 1
+     * @return the name of that attribute
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public String name(int index) {
+      if (index < 0 || index >= size)
+        throw new IndexOutOfBoundsException(index);
+      return names[index];
+    }
+
+    /**
+     * Checks whether an attribute has a value, either set by the statement or a default.
+     *
+     * @param name the name of the attribute
+     * @return true if the attribute has a value
+     */
+    public boolean contains(String name) {
+      return indexOf(name) >= 0 || (defaults != null && defaults.contains(name));
+    }
+
+    /**
+     * Returns the value of an attribute as a String.
+     *
+     * @param name the name of the attribute
+     * @return its value, or null if it has none
+     */
+    public String get(String name) {
+      int i = indexOf(name);
+      if (i < 0)
+        return defaults == null ? null : defaults.get(name);
+      return new String(bytes, valueStart[i], valueEnd[i] - valueStart[i], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the value of an attribute as a double, parsed straight from its bytes.
+     *
+     * @param name    the name of the attribute
+     * @param missing the value to return if the attribute has no value
+     * @return the attribute's value, or missing
+     * @throws NumberFormatException if the value is not a number
+     */
+    public double getDouble(String name, double missing) {
+      int i = indexOf(name);
+      if (i < 0)
+        return defaults == null ? missing : defaults.getDouble(name, missing);
+      return parseDouble(bytes, valueStart[i], valueEnd[i]);
+    }
+
+    // returns the number of bytes in the value of the attribute at index
+    int valueLength(int index) {
+      return valueEnd[index] - valueStart[index];
+    }
+
+    // copies the value of the attribute at index into destination, starting at offset
+    void copyValue(int index, byte[] destination, int offset) {
+      System.arraycopy(bytes, valueStart[index], destination, offset, valueLength(index));
+    }
+
+    // sets an attribute, replacing any value it already has
+    void set(String name, byte[] value, int length) {
+      set(name, value, 0, length);
+    }
+
+    // sets an attribute to value[offset .. offset + length), replacing any value it already has
+    void set(String name, byte[] value, int offset, int length) {
+      if (byteCount + length > bytes.length)
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + length));
+      System.arraycopy(value, offset, bytes, byteCount, length);
+      int i = indexOf(name);
+      if (i < 0) {
+        if (size == names.length) {
+          names = Arrays.copyOf(names, size * 2);
+          valueStart = Arrays.copyOf(valueStart, size * 2);
+          valueEnd = Arrays.copyOf(valueEnd, size * 2);
+        }
+        i = size++;
+        names[i] = name;
+      }
+      valueStart[i] = byteCount;
+      valueEnd[i] = byteCount + length;
+      byteCount += length;
+    }
+
+    // copies every attribute of other into this one, replacing values this one already has
+    void setAll(Attributes other) {
+      for (int i = 0; i < other.size; i++)
+        set(other.names[i], other.bytes, other.valueStart[i], other.valueLength(i));
+    }
+
+    // removes every attribute, and sets the attributes to fall back on
+    void reset(Attributes defaults) {
+      size = 0;
+      byteCount = 0;
+      this.defaults = defaults;
+    }
+
+    // returns the index of the named attribute, or -1 if the statement does not set it
+    private int indexOf(String name) {
+      for (int i = 0; i < size; i++)
+        if (names[i] == name || names[i].equals(name))
+          return i;
+      return -1;
+    }
+  }
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  // the value of an attribute that is named without one, like [bold]
+  private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+  // the powers of ten that a double holds exactly
+  private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+      1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+  // the kinds of tokens
+  private static final int EOF = 0;
+  private static final int ID = 1; // a name, whose bytes are in text
+  private static final int EDGE_OP = 2; // -- or ->, with directedEdge telling which
+  private static final int LEFT_BRACKET = '[';
+  private static final int RIGHT_BRACKET = ']';
+  private static final int LEFT_BRACE = '{';
+  private static final int RIGHT_BRACE = '}';
+  private static final int EQUALS = '=';
+  private static final int SEMICOLON = ';';
+  private static final int COMMA = ',';
+  private static final int COLON = ':';
+
+  private final ReadableByteChannel channel;
+  private final Handler handler;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+  private int position = 0; // the index of the next unread byte in buffer
+  private int limit = 0; // the number of bytes read into buffer
+  private boolean endOfInput = false;
+  private int line = 1; // the line of the next unread byte
+  private boolean lineStart = true; // true until a byte other than a space is read on a line
+
+  private int token; // the current token
+  private boolean quoted; // true when the current ID token was a quoted string
+  private boolean directedEdge; // true when the current EDGE_OP token is ->
+  private byte[] text = new byte[256]; // the bytes of the current ID token
+  private int textLength = 0;
+
+  // decoded names, by the hash of their bytes with linear probing
+  private byte[][] nameBytes = new byte[1024][];
+  private String[] nameStrings = new String[1024];
+  private int nameCount = 0;
+
+  private final Attributes attributes = new Attributes();
+  private final Attributes nodeDefaults = new Attributes();
+  private final Attributes edgeDefaults = new Attributes();
+  private final Attributes graphDefaults = new Attributes(); // read, but never reported
+  private final ArrayList<String> chain = new ArrayList<>(); // the nodes of an edge statement
+  private final ArrayList<Boolean> chainDirected = new ArrayList<>(); // the op after each node
+
+  /**
+   * Creates a parser that reads from channel and reports statements to handler.
+   *
+   * @param channel the channel to read the DOT text from
+   * @param handler receives the nodes and edges read
+   */
+  public DotParser(ReadableByteChannel channel, Handler handler) {
+    if (channel == null || handler == null)
+      throw new NullPointerException("channel and handler must not be null");
+    this.channel = channel;
+    this.handler = handler;
+  }
+
+  /**
+   * Parses a whole DOT file, reporting its statements to handler.
+   *
+   * @param file    the file to parse
+   * @param handler receives the nodes and edges read
+   * @throws IOException        if the file can not be read
+   * @throws DotSyntaxException if the file is not valid DOT
+   */
+  public static void parse(Path file, Handler handler) throws IOException {
+    try (ReadableByteChannel channel = Files.newByteChannel(file)) {
+      new DotParser(channel, handler).parse();
+    }
+  }
+
+  /**
+   * Reads every graph from this parser's channel, reporting their statements to its handler. The
+   * channel is not closed.
+   *
+   * @throws IOException        if the channel can not be read
+   * @throws DotSyntaxException if the input is not valid DOT
+   */
+  public void parse() throws IOException {
+    if (parse(false))
+      throw error("expected }");
+  }
+
+  /**
+   * Reads the statements of this parser's channel, which may start and end in the middle of a
+   * graph. This lets a file be split into pieces at statement boundaries and the pieces be parsed
+   * separately.
+   *
+   * @param insideGraph true if the input starts after the opening brace of a graph, or false if it
+   *                    starts before a graph's header
+   * @return true if the input ends before the closing brace of a graph
+   * @throws IOException        if the channel can not be read
+   * @throws DotSyntaxException if the input is not valid DOT
+   */
+  boolean parse(boolean insideGraph) throws IOException {
+    next();
+    while (token != EOF) {
+      if (!insideGraph) {
+        if (isKeyword("strict"))
+          next();
+        if (!isKeyword("graph") && !isKeyword("digraph"))
+          throw error("expected graph or digraph");
+        next();
+        if (token == ID)
+          next();
+        expect(LEFT_BRACE, "{");
+        insideGraph = true;
+      } else if (token == RIGHT_BRACE) {
+        next();
+        insideGraph = false;
+      } else {
+        statement();
+        if (token == SEMICOLON)
+          next();
+      }
+    }
+    return insideGraph;
+  }
+
+  // reads statements up to the closing brace of a subgraph
+  private void statements() throws IOException {
+    while (token != RIGHT_BRACE) {
+      if (token == EOF)
+        throw error("expected }");
+      statement();
+      if (token == SEMICOLON)
+        next();
+    }
+  }
+
+  // reads a single statement
+  private void statement() throws IOException {
+    if (token == LEFT_BRACE || isKeyword("subgraph")) {
+      if (token == ID) {
+        next();
+        if (token == ID)
+          next();
+      }
+      expect(LEFT_BRACE, "{");
+      statements();
+      expect(RIGHT_BRACE, "}");
+      if (token == EDGE_OP)
+        throw error("edges to subgraphs are not supported");
+      return;
+    }
+    if (token != ID)
+      throw error("expected a statement");
+    if (isKeyword("graph") || isKeyword("node") || isKeyword("edge")) {
+      Attributes defaults = isKeyword("node") ? nodeDefaults
+          : isKeyword("edge") ? edgeDefaults : graphDefaults;
+      next();
+      attributes.reset(null);
+      attributeLists();
+      defaults.setAll(attributes);
+      if (defaults != graphDefaults)
+        handler.defaults(defaults == edgeDefaults, attributes);
+      return;
+    }
+    String name = nodeId();
+    if (token == EQUALS) {
+      // a graph attribute, like rankdir=LR
+      next();
+      expect(ID, "an attribute value");
+      return;
+    }
+    if (token != EDGE_OP) {
+      attributes.reset(nodeDefaults);
+      attributeLists();
+      handler.node(name, attributes);
+      return;
+    }
+    chain.clear();
+    chainDirected.clear();
+    chain.add(name);
+    while (token == EDGE_OP) {
+      chainDirected.add(directedEdge);
+      next();
+      if (token == LEFT_BRACE || isKeyword("subgraph"))
+        throw error("edges to subgraphs are not supported");
+      if (token != ID)
+        throw error("expected a node name after the edge");
+      chain.add(nodeId());
+    }
+    attributes.reset(edgeDefaults);
+    attributeLists();
+    for (int i = 1; i < chain.size(); i++)
+      handler.edge(chain.get(i - 1), chain.get(i), chainDirected.get(i - 1), attributes);
+  }
+
+  // reads a node name and skips any port after it, returning the name
+  private String nodeId() throws IOException {
+    String name = name();
+    next();
+    for (int parts = 0; token == COLON && parts < 2; parts++) {
+      next();
+      expect(ID, "a port");
+    }
+    return name;
+  }
+
+  // reads any number of bracketed attribute lists into attributes
+  private void attributeLists() throws IOException {
+    while (token == LEFT_BRACKET) {
+      next();
+      while (token != RIGHT_BRACKET) {
+        if (token != ID)
+          throw error("expected an attribute name");
+        String name = name();
+        next();
+        if (token == EQUALS) {
+          next();
+          if (token != ID)
+            throw error("expected a value for " + name);
+          attributes.set(name, text, textLength);
+          next();
+        } else {
+          attributes.set(name, TRUE, TRUE.length);
+        }
+        if (token == COMMA || token == SEMICOLON)
+          next();
+      }
+      next();
+    }
+  }
+
+  // checks that the current token is of the expected kind, and moves past it
+  private void expect(int kind, String description) throws IOException {
+    if (token != kind)
+      throw error("expected " + description);
+    next();
+  }
+
+  // checks whether the current token is the provided unquoted keyword, ignoring case
+  private boolean isKeyword(String keyword) {
+    if (token != ID || quoted || textLength != keyword.length())
+      return false;
+    for (int i = 0; i < textLength; i++)
+      if (Character.toLowerCase(text[i]) != keyword.charAt(i))
+        return false;
+    return true;
+  }
+
+  private DotSyntaxException error(String message) {
+    return new DotSyntaxException(line, message);
+  }
+
+  /**
+   * Returns the String for the current ID token, decoding its bytes only if no earlier token had
+   * the same bytes.
+   *
+   * @return the name held by the current token
+   */
+  private String name() {
+    int mask = nameBytes.length - 1;
+    int slot = homeSlot(text, textLength, mask);
+    for (; nameBytes[slot] != null; slot = (slot + 1) & mask)
+      if (Arrays.equals(nameBytes[slot], 0, nameBytes[slot].length, text, 0, textLength))
+        return nameStrings[slot];
+    String name = new String(text, 0, textLength, StandardCharsets.UTF_8);
+    nameBytes[slot] = Arrays.copyOf(text, textLength);
+    nameStrings[slot] = name;
+    if (++nameCount * 2 > nameBytes.length)
+      growNames();
+    return name;
+  }
+
+  // doubles the size of the name table
+  private void growNames() {
+    byte[][] oldBytes = nameBytes;
+    String[] oldStrings = nameStrings;
+    nameBytes = new byte[oldBytes.length * 2][];
+    nameStrings = new String[oldBytes.length * 2];
+    int mask = nameBytes.length - 1;
+    for (int i = 0; i < oldBytes.length; i++) {
+      if (oldBytes[i] == null)
+        continue;
+      int slot = homeSlot(oldBytes[i], oldBytes[i].length, mask);
+      while (nameBytes[slot] != null)
+        slot = (slot + 1) & mask;
+      nameBytes[slot] = oldBytes[i];
+      nameStrings[slot] = oldStrings[i];
+    }
+  }
+
+  // returns the slot of the name table where the probe sequence for a name's bytes starts
+  private static int homeSlot(byte[] bytes, int length, int mask) {
+    int hash = 1;
+    for (int i = 0; i < length; i++)
+      hash = 31 * hash + bytes[i];
+    return ((hash ^ (hash >>> 16)) * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+  }
+
+  /**
+   * Reads the next token into token, and for names into text.
+   *
+   * @throws IOException        if the channel can not be read
+   * @throws DotSyntaxException if the input holds a character that can not start a token
+   */
+  private void next() throws IOException {
+    int c = skipSpaceAndComments();
+    textLength = 0;
+    quoted = false;
+    switch (c) {
+      case -1:
+        token = EOF;
+        return;
+      case '[':
+      case ']':
+      case '{':
+      case '}':
+      case '=':
+      case ';':
+      case ',':
+      case ':':
+        read();
+        token = c;
+        return;
+      case '"':
+        read();
+        quotedString();
+        return;
+      case '<':
+        read();
+        htmlString();
+        return;
+      case '-':
+        read();
+        int after = peek();
+        if (after == '-' || after == '>') {
+          read();
+          token = EDGE_OP;
+          directedEdge = after == '>';
+          return;
+        }
+        append('-');
+        numeral();
+        return;
+    }
+    if (c == '.' || (c >= '0' && c <= '9')) {
+      numeral();
+    } else if (isNameStart(c)) {
+      while (isNameStart(peek()) || (peek() >= '0' && peek() <= '9'))
+        append(read());
+      token = ID;
+    } else {
+      throw error("unexpected character '" + (char) c + "'");
+    }
+  }
+
+  // reads the rest of a quoted string, after its opening quote
+  private void quotedString() throws IOException {
+    int startLine = line;
+    while (true) {
+      // copy the plain bytes left in the buffer all at once, up to a quote, backslash or line break
+      int end = position;
+      while (end < limit && buffer[end] != '"' && buffer[end] != '\\' && buffer[end] != '\n')
+        end++;
+      if (end > position) {
+        appendAll(position, end);
+        position = end;
+        lineStart = false;
+      }
+      int c = read();
+      if (c == -1)
+        throw new DotSyntaxException(startLine, "unterminated string");
+      if (c == '"')
+        break;
+      if (c == '\\') {
+        int escaped = peek();
+        if (escaped == '"') {
+          c = read();
+        } else if (escaped == '\n' || escaped == '\r') {
+          // a backslash before a line break joins the lines
+          if (read() == '\r' && peek() == '\n')
+            read();
+          continue;
+        }
+      }
+      append(c);
+    }
+    token = ID;
+    quoted = true;
+  }
+
+  // reads the rest of an HTML string, after its opening angle bracket
+  private void htmlString() throws IOException {
+    int startLine = line;
+    int depth = 1;
+    while (true) {
+      int c = read();
+      if (c == -1)
+        throw new DotSyntaxException(startLine, "unterminated HTML string");
+      if (c == '<')
+        depth++;
+      else if (c == '>' && --depth == 0)
+        break;
+      append(c);
+    }
+    token = ID;
+    quoted = true;
+  }
+
+  // reads the digits and decimal point of a numeral
+  private void numeral() throws IOException {
+    while ((peek() >= '0' && peek() <= '9') || peek() == '.')
+      append(read());
+    token = ID;
+  }
+
+  // returns the first byte that is not a space or part of a comment, without reading it
+  private int skipSpaceAndComments() throws IOException {
+    while (true) {
+      int c = peek();
+      if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+        read();
+      } else if (c == '#' && lineStart) {
+        skipLine(); // a line of C preprocessor output
+      } else if (c == '/') {
+        read();
+        int after = peek();
+        if (after == '/') {
+          skipLine();
+        } else if (after == '*') {
+          read();
+          int startLine = line;
+          int previous = 0;
+          for (c = read(); !(previous == '*' && c == '/'); c = read()) {
+            if (c == -1)
+              throw new DotSyntaxException(startLine, "unterminated comment");
+            previous = c;
+          }
+        } else {
+          throw error("unexpected character '/'");
+        }
+      } else {
+        return c;
+      }
+    }
+  }
+
+  // reads up to and including the next line break
+  private void skipLine() throws IOException {
+    for (int c = read(); c != '\n' && c != -1; c = read())
+      ;
+  }
+
+  // checks whether c may start an unquoted name, including any byte of a multi-byte character
+  private static boolean isNameStart(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c >= 0x80;
+  }
+
+  // adds buffer[from .. to) to the text of the current token
+  private void appendAll(int from, int to) {
+    int length = to - from;
+    if (textLength + length > text.length)
+      text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+    System.arraycopy(buffer, from, text, textLength, length);
+    textLength += length;
+  }
+
+  // adds a byte to the text of the current token
+  private void append(int c) {
+    if (textLength == text.length)
+      text = Arrays.copyOf(text, textLength * 2);
+    text[textLength++] = (byte) c;
+  }
+
+  // returns the next byte without reading it, or -1 at the end of the input
+  private int peek() throws IOException {
+    if (position == limit && !fill())
+      return -1;
+    return buffer[position] & 0xFF;
+  }
+
+  // reads the next byte, or returns -1 at the end of the input
+  private int read() throws IOException {
+    if (position == limit && !fill())
+      return -1;
+    int c = buffer[position++] & 0xFF;
+    if (c == '\n') {
+      line++;
+      lineStart = true;
+    } else if (c != ' ' && c != '\t' && c != '\r') {
+      lineStart = false;
+    }
+    return c;
+  }
+
+  // reads the next block of input into the buffer, returning false at the end of the input
+  private boolean fill() throws IOException {
+    while (!endOfInput) {
+      wrapped.clear();
+      int count = channel.read(wrapped);
+      if (count < 0) {
+        endOfInput = true;
+      } else if (count > 0) {
+        position = 0;
+        limit = count;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Parses a decimal number, like 105.8, -40 or 1.5e3, from bytes. Numbers with at most 15
+   * significant digits and a small exponent are computed with a single exactly rounded
+   * multiplication or division, and all others are passed to Double.parseDouble(), so the result is
+   * always the same as Double.parseDouble() returns for the same text.
+   *
+   * @param bytes the bytes holding the number
+   * @param start the index of the number's first byte
+   * @param end   the index after the number's last byte
+   * @return the value of the number
+   * @throws NumberFormatException if the bytes are not a number
+   */
+  static double parseDouble(byte[] bytes, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (bytes[i] == '-' || bytes[i] == '+'))
+      negative = bytes[i++] == '-';
+    long mantissa = 0;
+    int digits = 0; // significant digits in mantissa
+    int exponent = 0;
+    boolean sawDigit = false;
+    boolean sawPoint = false;
+    for (; i < end; i++) {
+      int b = bytes[i];
+      if (b >= '0' && b <= '9') {
+        sawDigit = true;
+        if (mantissa == 0 && b == '0') {
+          // a leading zero is not significant
+        } else if (digits < 18) {
+          mantissa = mantissa * 10 + (b - '0');
+          digits++;
+        } else {
+          digits++; // too many digits for the fast path
+        }
+        if (sawPoint)
+          exponent--;
+      } else if (b == '.' && !sawPoint) {
+        sawPoint = true;
+      } else {
+        break;
+      }
+    }
+    if (i < end && sawDigit && (bytes[i] == 'e' || bytes[i] == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (bytes[i] == '-' || bytes[i] == '+'))
+        negativeExponent = bytes[i++] == '-';
+      int power = 0;
+      boolean sawExponentDigit = false;
+      for (; i < end && bytes[i] >= '0' && bytes[i] <= '9' && power < 10000; i++) {
+        power = power * 10 + (bytes[i] - '0');
+        sawExponentDigit = true;
+      }
+      if (!sawExponentDigit)
+        i = -1; // malformed, so let Double.parseDouble() report it
+      exponent += negativeExponent ? -power : power;
+    }
+    if (i == end && sawDigit && digits <= 15 && exponent >= -22 && exponent <= 22) {
+      double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent]
+          : mantissa * POWERS_OF_TEN[exponent];
+      return negative ? -value : value;
+    }
+    return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+  }
+}
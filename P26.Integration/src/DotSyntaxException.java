@@ -0,0 +1,33 @@
+import java.io.IOException;
+
+/**
+ * Thrown when DotParser reads input that is not valid DOT. This is an IOException because, as far
+ * as the caller is concerned, the graph could not be read, but it lets callers tell a malformed
+ * file apart from one that could not be opened.
+ */
+public class DotSyntaxException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int lineNumber;
+
+  /**
+   * Creates an exception for an error on the provided line.
+   *
+   * @param lineNumber the line of the input the error was found on, counting from 1
+   * @param message    what was wrong with the input
+   */
+  public DotSyntaxException(int lineNumber, String message) {
+    super("line " + lineNumber + ": " + message);
+    this.lineNumber = lineNumber;
+  }
+
+  /**
+   * Returns the line of the input that the error was found on.
+   *
+   * @return the line number, counting from 1
+   */
+  public int getLineNumber() {
+    return lineNumber;
+  }
+}
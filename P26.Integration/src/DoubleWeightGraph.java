@@ -0,0 +1,40 @@
+import java.util.Arrays;
+
+/**
+ * This class is a graph whose edge weights are stored as primitive doubles, such as the walking
+ * times in seconds that the campus DOT files hold. Shortest path searches read the weights straight
+ * from these arrays, so relaxing an edge never unboxes or allocates a Double.
+ *
+ * @param NodeType is the data type stored at each graph node
+ */
+public class DoubleWeightGraph<NodeType> extends PrimitiveWeightGraph<NodeType, Double> {
+
+  private double[][] weights = new double[16][]; // weights[u][i] is the weight of u's edge i
+
+  @Override
+  protected double weight(int u, int i) {
+    return weights[u][i];
+  }
+
+  @Override
+  protected Double boxedWeight(int u, int i) {
+    return weights[u][i];
+  }
+
+  @Override
+  protected void storeWeight(int u, int i, Double weight, int capacity) {
+    if (weights[u] == null || weights[u].length < capacity)
+      weights[u] = weights[u] == null ? new double[capacity] : Arrays.copyOf(weights[u], capacity);
+    weights[u][i] = weight;
+  }
+
+  @Override
+  protected void moveWeight(int u, int from, int to) {
+    weights[u][to] = weights[u][from];
+  }
+
+  @Override
+  protected void growNodes(int capacity) {
+    weights = Arrays.copyOf(weights, capacity);
+  }
+}
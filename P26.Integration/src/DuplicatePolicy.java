@@ -0,0 +1,54 @@
+import java.util.function.BinaryOperator;
+
+/**
+ * The ways an EdgeBatch can combine the weights of edges that are added more than once between
+ * the same two nodes, either within the batch or to an edge the graph already holds.
+ */
+public enum DuplicatePolicy {
+
+  /**
+   * Keeps the smallest of the weights, as a walking graph listing several paths between the same
+   * two buildings only needs the fastest one.
+   */
+  KEEP_MIN {
+    @Override
+    public <EdgeType extends Number> EdgeType combine(EdgeType kept, EdgeType added,
+        BinaryOperator<EdgeType> sum) {
+      return added.doubleValue() < kept.doubleValue() ? added : kept;
+    }
+  },
+
+  /**
+   * Keeps the weight added last, which is what inserting the edges one at a time with insertEdge()
+   * does. This is the policy of batches created without one.
+   */
+  KEEP_LAST {
+    @Override
+    public <EdgeType extends Number> EdgeType combine(EdgeType kept, EdgeType added,
+        BinaryOperator<EdgeType> sum) {
+      return added;
+    }
+  },
+
+  /**
+   * Adds the weights together, such as the traffic counted along each path.
+   */
+  SUM {
+    @Override
+    public <EdgeType extends Number> EdgeType combine(EdgeType kept, EdgeType added,
+        BinaryOperator<EdgeType> sum) {
+      return sum.apply(kept, added);
+    }
+  };
+
+  /**
+   * Combines the weight already kept for an edge with a weight added for the same edge later.
+   *
+   * @param kept  the weight kept so far
+   * @param added the weight being added
+   * @param sum   adds two weights, which only SUM uses
+   * @return the weight to keep for the edge
+   */
+  public abstract <EdgeType extends Number> EdgeType combine(EdgeType kept, EdgeType added,
+      BinaryOperator<EdgeType> sum);
+}
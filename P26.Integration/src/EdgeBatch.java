@@ -0,0 +1,275 @@
+import java.util.Arrays;
+import java.util.function.BinaryOperator;
+
+/**
+ * This class collects directed, weighted edges so that a graph can insert all of them at once with
+ * insertEdges(). An edge that is added more than once between the same two nodes is merged with
+ * the copy already in the batch as it is added, using the batch's DuplicatePolicy, so the batch
+ * holds each (predecessor, successor) pair only once. Graphs apply the same policy to edges of the
+ * batch that they already hold.
+ *
+ * The batch gives each node it sees a dense index in the order the node is first added, and stores
+ * edges as pairs of those indexes in plain arrays. A graph inserting the batch therefore looks each
+ * node up only once, and can count the edges each node gains to size its storage before adding any.
+ *
+ * @param NodeType is the data type stored at each graph node
+ * @param EdgeType is the numeric type of the edge weights
+ */
+public class EdgeBatch<NodeType, EdgeType extends Number> {
+
+  private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L; // 2^64 divided by the golden ratio
+
+  private final DuplicatePolicy policy;
+  private final BinaryOperator<EdgeType> sum;
+  private final SymbolTable<NodeType> nodes = new SymbolTable<>(); // index of each node's data
+  private int[] predecessors = new int[16]; // node index of each edge's predecessor
+  private int[] successors = new int[16]; // node index of each edge's successor
+  private Object[] weights = new Object[16]; // weight of each edge
+  private int size = 0;
+  // index of the edges by their (predecessor, successor) pair, with linear probing: each slot
+  // holds 1 + the index of an edge, or 0 when it is empty
+  private int[] index = new int[32];
+  private int shift = Integer.numberOfLeadingZeros(32) + 1; // 32 minus log2 of index.length
+
+  /**
+   * Creates an empty batch that keeps the last weight added for each edge.
+   */
+  public EdgeBatch() {
+    this(DuplicatePolicy.KEEP_LAST);
+  }
+
+  /**
+   * Creates an empty batch that merges duplicate edges with the provided policy.
+   *
+   * @param policy how to combine the weights of duplicate edges
+   * @throws IllegalArgumentException if policy is SUM, which needs a way to add weights
+   */
+  public EdgeBatch(DuplicatePolicy policy) {
+    this(policy, null);
+  }
+
+  /**
+   * Creates an empty batch that merges duplicate edges with the provided policy, adding weights
+   * with sum.
+   *
+   * @param policy how to combine the weights of duplicate edges
+   * @param sum    adds two weights, such as Double::sum; only needed for SUM
+   * @throws IllegalArgumentException if policy is SUM and sum is null
+   */
+  public EdgeBatch(DuplicatePolicy policy, BinaryOperator<EdgeType> sum) {
+    if (policy == null)
+      throw new NullPointerException("policy must not be null");
+    if (policy == DuplicatePolicy.SUM && sum == null)
+      throw new IllegalArgumentException("the SUM policy needs a way to add weights");
+    this.policy = policy;
+    this.sum = sum;
+  }
+
+  /**
+   * Adds a node to the batch, so that inserting the batch inserts the node even if no edge of the
+   * batch touches it.
+   *
+   * @param data the data item of the node
+   * @return the node's index within this batch
+   * @throws NullPointerException if data is null
+   */
+  public int addNode(NodeType data) {
+    return nodes.intern(data);
+  }
+
+  /**
+   * Adds an edge to the batch, along with both of its nodes. If the batch already holds an edge
+   * from pred to succ, the two weights are combined with the batch's policy instead.
+   *
+   * @param pred   the data item of the edge's predecessor node
+   * @param succ   the data item of the edge's successor node
+   * @param weight the non-negative weight of the edge
+   * @return true if the edge is new to the batch, or false if it was merged with an earlier one
+   * @throws NullPointerException if pred, succ or weight is null
+   */
+  public boolean add(NodeType pred, NodeType succ, EdgeType weight) {
+    return addByIndex(nodes.intern(pred), nodes.intern(succ), weight);
+  }
+
+  /**
+   * Adds an edge between two nodes already in the batch, identified by the indexes addNode()
+   * returned for them, which saves looking their data up again. If the batch already holds an edge
+   * from u to v, the two weights are combined with the batch's policy instead.
+   *
+   * @param u      the index of the edge's predecessor node
+   * @param v      the index of the edge's successor node
+   * @param weight the non-negative weight of the edge
+   * @return true if the edge is new to the batch, or false if it was merged with an earlier one
+   * @throws IndexOutOfBoundsException if u or v is not the index of a node in the batch
+   * @throws NullPointerException      if weight is null
+   */
+  public boolean addByIndex(int u, int v, EdgeType weight) {
+    if (weight == null)
+      throw new NullPointerException("null weights not allowed");
+    checkNode(u);
+    checkNode(v);
+    int slot = find(u, v);
+    if (index[slot] != 0) {
+      int e = index[slot] - 1;
+      weights[e] = combine(getWeight(e), weight);
+      return false;
+    }
+    if (size == predecessors.length) {
+      predecessors = Arrays.copyOf(predecessors, size * 2);
+      successors = Arrays.copyOf(successors, size * 2);
+      weights = Arrays.copyOf(weights, size * 2);
+    }
+    predecessors[size] = u;
+    successors[size] = v;
+    weights[size] = weight;
+    index[slot] = ++size;
+    if (2 * size > index.length)
+      growIndex();
+    return true;
+  }
+
+  /**
+   * Checks whether the batch holds an edge from pred to succ.
+   *
+   * @param pred the data item of the edge's predecessor node
+   * @param succ the data item of the edge's successor node
+   * @return true if such an edge has been added, or false otherwise
+   * @throws NullPointerException if pred or succ is null
+   */
+  public boolean containsEdge(NodeType pred, NodeType succ) {
+    int u = nodes.idOf(pred);
+    int v = nodes.idOf(succ);
+    return u != -1 && v != -1 && containsEdgeByIndex(u, v);
+  }
+
+  /**
+   * Checks whether the batch holds an edge between two of its nodes, identified by their indexes.
+   *
+   * @param u the index of the edge's predecessor node
+   * @param v the index of the edge's successor node
+   * @return true if such an edge has been added, or false otherwise
+   * @throws IndexOutOfBoundsException if u or v is not the index of a node in the batch
+   */
+  public boolean containsEdgeByIndex(int u, int v) {
+    checkNode(u);
+    checkNode(v);
+    return index[find(u, v)] != 0;
+  }
+
+  /**
+   * Combines the weight kept for an edge with a weight added for it later, using this batch's
+   * policy.
+   *
+   * @param kept  the weight kept so far
+   * @param added the weight being added
+   * @return the weight to keep for the edge
+   */
+  public EdgeType combine(EdgeType kept, EdgeType added) {
+    return policy.combine(kept, added, sum);
+  }
+
+  /**
+   * Returns the policy that duplicate edges are merged with.
+   *
+   * @return the batch's duplicate policy
+   */
+  public DuplicatePolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Returns the number of distinct nodes in the batch, whose indexes are 0 to this count - 1.
+   *
+   * @return the number of nodes in the batch
+   */
+  public int getNodeCount() {
+    return nodes.size();
+  }
+
+  /**
+   * Returns the data item of the node with the provided index.
+   *
+   * @param index the index of the node within this batch
+   * @return the node's data item
+   * @throws IndexOutOfBoundsException if no node has this index
+   */
+  public NodeType getNode(int index) {
+    return nodes.valueOf(index);
+  }
+
+  /**
+   * Returns the number of distinct edges in the batch, whose indexes are 0 to this count - 1 in the
+   * order they were first added.
+   *
+   * @return the number of edges in the batch
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the node index of an edge's predecessor.
+   *
+   * @param edge the index of the edge
+   * @return the index of the node the edge leaves
+   * @throws IndexOutOfBoundsException if no edge has this index
+   */
+  public int getPredecessor(int edge) {
+    return predecessors[checkEdge(edge)];
+  }
+
+  /**
+   * Returns the node index of an edge's successor.
+   *
+   * @param edge the index of the edge
+   * @return the index of the node the edge enters
+   * @throws IndexOutOfBoundsException if no edge has this index
+   */
+  public int getSuccessor(int edge) {
+    return successors[checkEdge(edge)];
+  }
+
+  /**
+   * Returns the weight of an edge, after merging every duplicate of it added so far.
+   *
+   * @param edge the index of the edge
+   * @return the weight of the edge
+   * @throws IndexOutOfBoundsException if no edge has this index
+   */
+  @SuppressWarnings("unchecked")
+  public EdgeType getWeight(int edge) {
+    return (EdgeType) weights[checkEdge(edge)];
+  }
+
+  // throws an IndexOutOfBoundsException unless node is the index of a node in the batch
+  private void checkNode(int node) {
+    if (node < 0 || node >= nodes.size())
+      throw new IndexOutOfBoundsException(node);
+  }
+
+  // returns edge, after checking that it is the index of an edge in the batch
+  private int checkEdge(int edge) {
+    if (edge < 0 || edge >= size)
+      throw new IndexOutOfBoundsException(edge);
+    return edge;
+  }
+
+  // returns the slot holding the edge from u to v, or the empty slot where it would be inserted
+  private int find(int u, int v) {
+    int mask = index.length - 1;
+    long key = ((long) u << 32) | v;
+    for (int slot = (int) ((key * GOLDEN_RATIO) >>> (32 + shift)); ; slot = (slot + 1) & mask) {
+      int e = index[slot] - 1;
+      if (e == -1 || (predecessors[e] == u && successors[e] == v))
+        return slot;
+    }
+  }
+
+  // doubles the capacity of the edge index, and reinserts every edge
+  private void growIndex() {
+    index = new int[index.length * 2];
+    shift--;
+    for (int e = 0; e < size; e++)
+      index[find(predecessors[e], successors[e])] = e + 1;
+  }
+}
@@ -1,6 +1,9 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 import java.io.File;
+import java.io.IOException;
 import java.util.InputMismatchException;
 
 /**
@@ -30,14 +33,24 @@ public class Frontend implements FrontendInterface {
 
   /**
    * This main method initializes a frontend object and calls the startApp() method to start the
-   * application
+   * application. Starting it with --batch answers a file of queries with BatchRouter instead, and
+   * starting it with --serve answers queries over HTTP with PathFinderServer.
    * 
-   * @param args unused
+   * @param args nothing, or --batch or --serve followed by the arguments of BatchRouter.main() or
+   *             PathFinderServer.main()
+   * @throws IOException if a batch can not be read or written, or the server can not start
    */
-  public static void main(String[] args) {
-    DijkstraGraph<String, Double> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+  public static void main(String[] args) throws IOException {
+    if (args.length > 0 && args[0].equals("--batch")) {
+      BatchRouter.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    if (args.length > 0 && args[0].equals("--serve")) {
+      PathFinderServer.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
     Scanner scanner = new Scanner(System.in);
-    Backend backend = new Backend(graph);
+    Backend backend = new Backend();
     // Create an instance of the frontend to call the startApp() method
     Frontend frontend = new Frontend(backend, scanner);
     frontend.startApp();
@@ -223,38 +236,39 @@ public class Frontend implements FrontendInterface {
         System.out.println("Please separate by commas and try again");
         return;
       }
-      // Otherwise, split the string by the comma, and store each building in a string object
-      String[] list = buildings.split(",");
-      startBuilding = list[0];
-      endBuilding = list[1];
-      // Call the backend to find the shortest path between them
-      ArrayList<String> pathData = null;
-      ArrayList<Double> walkingData = null;
-      try {
-        pathData = backend.findShortestPath(startBuilding, endBuilding);
-        walkingData = backend.getWalkingTimes(startBuilding, endBuilding);
-      }
-      catch (Exception e) {
-        System.out.println("The building names were not found in the file. Try again");
-        return;
+      // Otherwise, split the string at a comma, and store each building in a string object.
+      // Building names may contain commas themselves, so try each comma in turn until both halves
+      // name buildings that are connected by a path
+      PathResult<String> path = null;
+      int comma = buildings.indexOf(',');
+      while (path == null && comma >= 0) {
+        startBuilding = buildings.substring(0, comma);
+        endBuilding = buildings.substring(comma + 1);
+        // Call the backend to find the shortest path between them
+        try {
+          path = backend.findPath(startBuilding, endBuilding);
+        } catch (Exception e) {
+          comma = buildings.indexOf(',', comma + 1);
+        }
       }
-      // If the building names aren't found, the pathData returns null
-      if (pathData == null) {
+      // If the building names aren't found, no path is returned
+      if (path == null) {
         System.out.println("The building names were not found in the file. Try again");
         return;
       }
-      String[] pathDataSplit = pathData.get(0).split(",");
+      List<String> pathBuildings = path.getNodes();
+      List<Double> walkingData = path.getSegmentCosts();
       System.out.println("The shortest path: ");
-      // Print out the data in each element of the arrayLists
-      for (int i = 0; i < pathDataSplit.length; i++) {
+      // Print out each building along the path, and the walk time of the segment leading to it
+      for (int i = 0; i < pathBuildings.size(); i++) {
         if (i == 0) {
-          System.out.println(pathDataSplit[i]);
+          System.out.println(pathBuildings.get(i));
         }
         else {
-          System.out.println(pathDataSplit[i] + " Walk Time: " + walkingData.get(i-1));
+          System.out.println(pathBuildings.get(i) + " Walk Time: " + walkingData.get(i-1));
         }
       }
-      System.out.println(pathData.get(1));
+      System.out.println("Total Time: " + path.getTotalCost());
       return;
     }
   }
@@ -371,7 +371,6 @@ public class FrontendDeveloperTests {
         // Pass this graph into the Backend object, and use it to make the frontend object used for
         // testing
         Backend backend = new Backend(graph);
-        backend.totalTime = 22.0;
         Scanner userInput = new Scanner(System.in);
         Frontend frontend = new Frontend(backend, userInput);
         // Call the corresponding frontend method, save its output
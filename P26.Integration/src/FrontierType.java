@@ -0,0 +1,37 @@
+import java.util.function.ToIntFunction;
+
+/**
+ * The SearchFrontier implementations that DijkstraGraph can use to order the nodes it has
+ * discovered but not yet settled.
+ */
+public enum FrontierType {
+
+  /**
+   * An IndexedMinHeap, with O(log n) decreaseKey(). This is the default frontier.
+   */
+  INDEXED_HEAP {
+    @Override
+    public <KeyType> SearchFrontier<KeyType> create(ToIntFunction<? super KeyType> idOf) {
+      return new IndexedMinHeap<>(idOf);
+    }
+  },
+
+  /**
+   * A PriorityQueueFrontier, with O(n) decreaseKey(). Kept for benchmarking.
+   */
+  PRIORITY_QUEUE {
+    @Override
+    public <KeyType> SearchFrontier<KeyType> create(ToIntFunction<? super KeyType> idOf) {
+      return new PriorityQueueFrontier<>();
+    }
+  };
+
+  /**
+   * Creates a new, empty frontier of this type.
+   *
+   * @param idOf returns the dense, non-negative id of each key, which frontiers that index their
+   *             keys by id use instead of hashing them
+   * @return the new frontier
+   */
+  public abstract <KeyType> SearchFrontier<KeyType> create(ToIntFunction<? super KeyType> idOf);
+}
@@ -61,6 +61,37 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
      */
     public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight);
 
+    /**
+     * Insert every node and edge of a batch into the graph, inserting nodes
+     * that are not yet in the graph first. When an edge of the batch is
+     * already in the graph, its new weight is the batch's policy applied to
+     * the existing weight and the batch's weight, as if the existing edge had
+     * been added to the batch first.
+     *
+     * This default inserts the edges one at a time. Graphs override it to
+     * size their storage once for the whole batch instead.
+     *
+     * @param batch the nodes and edges to insert
+     * @return the number of edges that were not already in the graph
+     */
+    public default int insertEdges(EdgeBatch<NodeType, EdgeType> batch) {
+        for (int i = 0; i < batch.getNodeCount(); i++)
+            insertNode(batch.getNode(i));
+        int inserted = 0;
+        for (int e = 0; e < batch.size(); e++) {
+            NodeType pred = batch.getNode(batch.getPredecessor(e));
+            NodeType succ = batch.getNode(batch.getSuccessor(e));
+            EdgeType weight = batch.getWeight(e);
+            EdgeType existing = findEdge(pred, succ);
+            if (existing != null)
+                weight = batch.combine(existing, weight);
+            else
+                inserted++;
+            insertEdge(pred, succ, weight);
+        }
+        return inserted;
+    }
+
     /**
      * Remove an edge from the graph.
      * 
@@ -91,6 +122,24 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
      */
     public EdgeType getEdge(NodeType pred, NodeType succ);
 
+    /**
+     * Return the data associated with a specific edge, or null when the
+     * graph has no such edge. Unlike getEdge, a missing node or edge is not an
+     * error here, so callers that expect misses, such as loaders checking for
+     * duplicate edges, do not pay for building an exception.
+     *
+     * This default asks containsEdge first. Graphs override it to look the
+     * edge up only once.
+     * 
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return the data from the edge between those nodes, or null if either
+     *         node or the edge between them are not found within this graph
+     */
+    public default EdgeType findEdge(NodeType pred, NodeType succ) {
+        return containsEdge(pred, succ) ? getEdge(pred, succ) : null;
+    }
+
     /**
      * Return the number of edges in the graph.
      * 
@@ -124,4 +173,29 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
      */
     public double shortestPathCost(NodeType start, NodeType end);
 
+    /**
+     * Returns the shortest path from the node with the provided start value to
+     * the node with the provided end value, as found by a single search. The
+     * result holds the same list of data values that shortestPathData returns,
+     * the same total cost that shortestPathCost returns, and the weight of each
+     * edge along the path.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the nodes, segment costs and total cost of this shortest path
+     * @throws NoSuchElementException if either node is not found within this
+     *                                graph, or there is no path between them
+     */
+    public PathResult<NodeType> shortestPath(NodeType start, NodeType end);
+
+    /**
+     * Return the number of changes made to the nodes and edges of this graph.
+     * Results computed from the graph are out of date whenever this count
+     * differs from the count when they were computed, which lets caches of
+     * those results tell when to discard them.
+     *
+     * @return the number of changes made to this graph
+     */
+    public int getModificationCount();
+
 }
@@ -0,0 +1,763 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * This class tests the graph classes that the Backend builds on: DijkstraGraph and the data
+ * structures its searches use.
+ */
+public class GraphDeveloperTests {
+
+    static final List<String> LECTURE_NODES = List.of("a", "b", "d", "e", "f", "g", "h", "i", "l", "m");
+
+    /**
+     * Builds the example graph traced through in lecture.
+     */
+    static DijkstraGraph<String, Double> lectureGraph() {
+        DijkstraGraph<String, Double> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+        for (String node : LECTURE_NODES)
+            graph.insertNode(node);
+        graph.insertEdge("a", "b", 1.0);
+        graph.insertEdge("a", "m", 5.0);
+        graph.insertEdge("a", "h", 8.0);
+        graph.insertEdge("b", "m", 3.0);
+        graph.insertEdge("d", "a", 7.0);
+        graph.insertEdge("d", "g", 2.0);
+        graph.insertEdge("f", "g", 9.0);
+        graph.insertEdge("g", "l", 7.0);
+        graph.insertEdge("h", "b", 6.0);
+        graph.insertEdge("h", "i", 2.0);
+        graph.insertEdge("i", "h", 2.0);
+        graph.insertEdge("i", "d", 1.0);
+        graph.insertEdge("i", "l", 5.0);
+        graph.insertEdge("m", "e", 3.0);
+        graph.insertEdge("m", "f", 4.0);
+        return graph;
+    }
+
+    /**
+     * Confirms that the IndexedMinHeap removes keys in priority order, including keys whose
+     * priority was lowered after they were added.
+     */
+    @Test
+    public void testIndexedMinHeap() {
+        // single letter keys, whose ids are their distance from "a"
+        IndexedMinHeap<String> heap = new IndexedMinHeap<>(key -> key.charAt(0) - 'a', 2);
+        heap.add("c", 30.0);
+        heap.add("a", 10.0);
+        heap.add("d", 40.0);
+        heap.add("b", 20.0);
+        heap.decreaseKey("d", 5.0);
+        Assertions.assertTrue(heap.contains("d"));
+        Assertions.assertEquals(4, heap.size());
+        Assertions.assertEquals(5.0, heap.peekPriority());
+        Assertions.assertEquals("d", heap.removeMin());
+        Assertions.assertFalse(heap.contains("d"));
+        Assertions.assertEquals("a", heap.removeMin());
+        Assertions.assertEquals("b", heap.removeMin());
+        Assertions.assertEquals("c", heap.removeMin());
+        Assertions.assertTrue(heap.isEmpty());
+        // cleared keys can be added again
+        heap.add("z", 1.0);
+        heap.add("b", 2.0);
+        heap.clear();
+        Assertions.assertFalse(heap.contains("z"));
+        heap.add("z", 3.0);
+        Assertions.assertEquals("z", heap.removeMin());
+    }
+
+    /**
+     * Confirms that every FrontierType finds the same shortest paths in the lecture graph.
+     */
+    @Test
+    public void testFrontierTypesAgree() {
+        DijkstraGraph<String, Double> graph = lectureGraph();
+        for (FrontierType type : FrontierType.values()) {
+            graph.setFrontierType(type);
+            Assertions.assertEquals(List.of("a", "h", "i", "d", "g"), graph.shortestPathData("a", "g"));
+            Assertions.assertEquals(13.0, graph.shortestPathCost("a", "g"));
+            Assertions.assertEquals(List.of("d", "a", "h", "i"), graph.shortestPathData("d", "i"));
+            Assertions.assertEquals(17.0, graph.shortestPathCost("d", "i"));
+        }
+    }
+
+    /**
+     * Confirms that bounded searches still find paths that fit within their bounds, and throw a
+     * SearchLimitExceededException for paths that do not.
+     */
+    @Test
+    public void testSearchBounds() {
+        DijkstraGraph<String, Double> graph = lectureGraph();
+        graph.setSearchBounds(SearchBounds.maxCost(13.0));
+        Assertions.assertEquals(13.0, graph.shortestPathCost("a", "g"));
+        Assertions.assertThrows(SearchLimitExceededException.class,
+                () -> graph.shortestPathCost("d", "i"));
+        graph.setSearchBounds(SearchBounds.maxSettledNodes(2));
+        Assertions.assertEquals(List.of("a", "b"), graph.shortestPathData("a", "b"));
+        Assertions.assertThrows(SearchLimitExceededException.class,
+                () -> graph.shortestPathData("a", "g"));
+        graph.setSearchBounds(SearchBounds.UNBOUNDED);
+        Assertions.assertEquals(17.0, graph.shortestPathCost("d", "i"));
+    }
+
+    /**
+     * Confirms that a frozen CompactGraph holds the same nodes and edges as the graph it was made
+     * from, finds the same shortest paths, and can not be changed.
+     */
+    @Test
+    public void testFreeze() {
+        DijkstraGraph<String, Double> graph = lectureGraph();
+        CompactGraph<String> snapshot = graph.freeze();
+        Assertions.assertEquals(10, snapshot.getNodeCount());
+        Assertions.assertEquals(15, snapshot.getEdgeCount());
+        Assertions.assertEquals(8.0, snapshot.getEdge("a", "h"));
+        Assertions.assertFalse(snapshot.containsEdge("h", "a"));
+        Assertions.assertEquals("g", snapshot.dataOf(snapshot.idOf("g")));
+        for (String start : LECTURE_NODES) {
+            for (String end : LECTURE_NODES) {
+                if (!reachable(graph, start, end))
+                    Assertions.assertThrows(NoSuchElementException.class,
+                            () -> snapshot.shortestPathCost(start, end));
+                else
+                    Assertions.assertEquals(graph.shortestPath(start, end).getNodes(),
+                            snapshot.shortestPath(start, end).getNodes());
+            }
+        }
+        Assertions.assertEquals(List.of(7.0, 8.0, 2.0), snapshot.shortestPath("d", "i").getSegmentCosts());
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> snapshot.insertEdge("h", "a", 1.0));
+        // the snapshot does not see changes made to the graph after it was frozen
+        graph.insertEdge("h", "a", 1.0);
+        Assertions.assertFalse(snapshot.containsEdge("h", "a"));
+    }
+
+    /**
+     * Confirms that a bidirectional search finds paths with the same cost as a forward search, in
+     * both the lecture graph and a larger random graph, and that it still respects search bounds.
+     */
+    @Test
+    public void testBidirectionalSearch() {
+        assertModeAgrees(lectureGraph(), LECTURE_NODES, SearchMode.BIDIRECTIONAL);
+        assertModeAgrees(randomGraph(200, 800, 3), randomNames(200), SearchMode.BIDIRECTIONAL);
+        DijkstraGraph<String, Double> graph = lectureGraph();
+        graph.setSearchMode(SearchMode.BIDIRECTIONAL);
+        Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost("f", "m"));
+        graph.setSearchBounds(SearchBounds.maxCost(16.0));
+        Assertions.assertThrows(SearchLimitExceededException.class,
+                () -> graph.shortestPathCost("d", "i"));
+    }
+
+    /**
+     * Confirms that A* search finds paths with the same cost as Dijkstra's algorithm when nodes
+     * have positions, while settling fewer nodes, and falls back to Dijkstra's algorithm for nodes
+     * without positions.
+     */
+    @Test
+    public void testAStarSearch() {
+        DijkstraGraph<String, Double> graph = positionedGraph(12, 5);
+        assertModeAgrees(graph, randomNames(144), SearchMode.ASTAR);
+        graph.setSearchMode(SearchMode.DIJKSTRA);
+        double cost = graph.shortestPathCost("n0", "n143");
+        int dijkstraSettled = graph.getLastSettledCount();
+        graph.setSearchMode(SearchMode.ASTAR);
+        Assertions.assertEquals(cost, graph.shortestPathCost("n0", "n143"), 1e-9);
+        Assertions.assertTrue(graph.getLastSettledCount() < dijkstraSettled);
+        // the lecture graph has no positions at all
+        assertModeAgrees(lectureGraph(), LECTURE_NODES, SearchMode.ASTAR);
+    }
+
+    /**
+     * Confirms that ALT search finds paths with the same cost as Dijkstra's algorithm, settles
+     * fewer nodes, and rebuilds its landmark tables after the graph changes.
+     */
+    @Test
+    public void testLandmarkSearch() {
+        DijkstraGraph<String, Double> graph = randomGraph(200, 800, 3);
+        graph.setLandmarkCount(4);
+        assertModeAgrees(graph, randomNames(200), SearchMode.ALT);
+        assertModeAgrees(lectureGraph(), LECTURE_NODES, SearchMode.ALT);
+        DijkstraGraph<String, Double> grid = positionedGraph(12, 5);
+        grid.setSearchMode(SearchMode.DIJKSTRA);
+        grid.shortestPathCost("n0", "n143");
+        int dijkstraSettled = grid.getLastSettledCount();
+        grid.setSearchMode(SearchMode.ALT);
+        grid.shortestPathCost("n0", "n143");
+        Assertions.assertTrue(grid.getLastSettledCount() < dijkstraSettled);
+        // a new shortcut must be found even though the tables were built without it
+        grid.insertEdge("n0", "n143", 1.0);
+        Assertions.assertEquals(1.0, grid.shortestPathCost("n0", "n143"));
+        grid.removeEdge("n0", "n143");
+        grid.removeNode("n1");
+        grid.setSearchMode(SearchMode.DIJKSTRA);
+        double expected = grid.shortestPathCost("n0", "n143");
+        grid.setSearchMode(SearchMode.ALT);
+        Assertions.assertEquals(expected, grid.shortestPathCost("n0", "n143"), 1e-9);
+    }
+
+    /**
+     * Confirms that contraction hierarchy queries find paths with the same cost as Dijkstra's
+     * algorithm, made only of original edges, and that the hierarchy is rebuilt after the graph
+     * changes.
+     */
+    @Test
+    public void testContractionHierarchy() {
+        assertModeAgrees(randomGraph(200, 800, 3), randomNames(200), SearchMode.CONTRACTION_HIERARCHY);
+        assertModeAgrees(randomGraph(150, 300, 11), randomNames(150), SearchMode.CONTRACTION_HIERARCHY);
+        assertModeAgrees(positionedGraph(12, 5), randomNames(144), SearchMode.CONTRACTION_HIERARCHY);
+        assertModeAgrees(lectureGraph(), LECTURE_NODES, SearchMode.CONTRACTION_HIERARCHY);
+        DijkstraGraph<String, Double> graph = lectureGraph();
+        graph.setSearchMode(SearchMode.CONTRACTION_HIERARCHY);
+        Assertions.assertEquals(List.of("d", "a", "h", "i"), graph.shortestPathData("d", "i"));
+        Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost("f", "m"));
+        graph.insertEdge("f", "m", 2.0);
+        Assertions.assertEquals(2.0, graph.shortestPathCost("f", "m"));
+        ContractionHierarchy<String> hierarchy = new ContractionHierarchy<>(graph.freeze());
+        Assertions.assertEquals(16, hierarchy.getEdgeCount());
+        Assertions.assertEquals(17.0, hierarchy.shortestPathCost("d", "i"));
+    }
+
+    /**
+     * Confirms that searches answered from stored shortest path trees cost the same as new
+     * searches, that the least recently used trees are evicted, and that changing the graph
+     * discards every stored tree.
+     */
+    @Test
+    public void testShortestPathTreeCache() {
+        DijkstraGraph<String, Double> expected = randomGraph(120, 500, 9);
+        DijkstraGraph<String, Double> cached = randomGraph(120, 500, 9);
+        cached.setTreeCacheLimits(4, Long.MAX_VALUE);
+        List<String> names = randomNames(120);
+        for (String start : names.subList(0, 6))
+            for (String end : names)
+                if (reachable(expected, start, end))
+                    Assertions.assertEquals(expected.shortestPathCost(start, end),
+                            cached.shortestPath(start, end).getTotalCost(), 1e-9);
+        ShortestPathTreeCache<String> cache = cached.getTreeCache();
+        Assertions.assertEquals(4, cache.size());
+        Assertions.assertEquals(6, cache.getMissCount());
+        cached.shortestPathCost("n5", "n9");
+        Assertions.assertEquals(6, cache.getMissCount());
+        cached.shortestPathCost("n0", "n9"); // evicted as the least recently used tree
+        Assertions.assertEquals(7, cache.getMissCount());
+
+        DijkstraGraph<String, Double> graph = lectureGraph();
+        graph.setTreeCacheLimits(10, 1);
+        Assertions.assertEquals(List.of("d", "a", "h", "i"), graph.shortestPathData("d", "i"));
+        Assertions.assertEquals(0, graph.getTreeCache().size()); // larger than one byte
+        graph.setTreeCacheLimits(10, Long.MAX_VALUE);
+        Assertions.assertEquals(17.0, graph.shortestPathCost("d", "i"));
+        graph.insertEdge("d", "i", 1.0);
+        Assertions.assertEquals(1.0, graph.shortestPathCost("d", "i"));
+        graph.removeEdge("d", "i");
+        Assertions.assertEquals(17.0, graph.shortestPathCost("d", "i"));
+        Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost("f", "m"));
+        graph.setSearchBounds(SearchBounds.maxCost(10.0));
+        Assertions.assertThrows(SearchLimitExceededException.class,
+                () -> graph.shortestPathCost("d", "i"));
+    }
+
+    /**
+     * Confirms that edge lookups on a node with many edges stay in sync with the graph as edges and
+     * nodes are inserted, updated and removed.
+     */
+    @Test
+    public void testEdgeIndex() {
+        DijkstraGraph<String, Double> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+        graph.insertNode("hub");
+        for (int i = 0; i < 2000; i++) {
+            graph.insertNode("n" + i);
+            graph.insertEdge("hub", "n" + i, (double) i);
+            graph.insertEdge("n" + i, "hub", (double) i);
+        }
+        Assertions.assertEquals(1999.0, graph.getEdge("hub", "n1999"));
+        graph.insertEdge("hub", "n1999", 5.0);
+        Assertions.assertEquals(5.0, graph.getEdge("hub", "n1999"));
+        Assertions.assertEquals(4000, graph.getEdgeCount());
+        Assertions.assertTrue(graph.removeEdge("hub", "n7"));
+        Assertions.assertFalse(graph.containsEdge("hub", "n7"));
+        Assertions.assertFalse(graph.removeEdge("hub", "n7"));
+        Assertions.assertTrue(graph.containsEdge("n7", "hub"));
+        Assertions.assertFalse(graph.containsEdge("hub", "missing"));
+        graph.removeNode("n8");
+        Assertions.assertFalse(graph.containsEdge("hub", "n8"));
+        graph.insertNode("n8");
+        Assertions.assertFalse(graph.containsEdge("hub", "n8"));
+        graph.insertEdge("hub", "n8", 1.0);
+        Assertions.assertEquals(1.0, graph.shortestPathCost("hub", "n8"));
+        Assertions.assertEquals(1999, graph.nodes.get("hub").edgesLeaving.size());
+        Assertions.assertEquals(1999, graph.nodes.get("hub").edgesEntering.size());
+        Assertions.assertThrows(NoSuchElementException.class, () -> graph.getEdge("n9", "n10"));
+    }
+
+    /**
+     * Confirms that the primitive weight graphs find the same shortest paths as DijkstraGraph, and
+     * stay consistent as nodes and edges are removed.
+     */
+    @Test
+    public void testPrimitiveWeightGraphs() {
+        DijkstraGraph<String, Double> expected = randomGraph(150, 600, 13);
+        DoubleWeightGraph<String> graph = new DoubleWeightGraph<>();
+        IntWeightGraph<String> intGraph = new IntWeightGraph<>();
+        copyInto(expected, graph, intGraph);
+        for (String node : List.of("n3", "n40", "n77")) {
+            expected.removeNode(node);
+            graph.removeNode(node);
+            intGraph.removeNode(node);
+        }
+        expected.removeEdge("n1", "n2");
+        graph.removeEdge("n1", "n2");
+        intGraph.removeEdge("n1", "n2");
+        Assertions.assertEquals(147, graph.getNodeCount());
+        Assertions.assertFalse(graph.containsNode("n3"));
+        for (String start : randomNames(20)) {
+            for (String end : randomNames(150)) {
+                if (!expected.containsNode(start) || !expected.containsNode(end))
+                    continue;
+                if (!reachable(expected, start, end)) {
+                    Assertions.assertThrows(NoSuchElementException.class,
+                            () -> graph.shortestPath(start, end));
+                    continue;
+                }
+                PathResult<String> path = graph.shortestPath(start, end);
+                Assertions.assertEquals(expected.shortestPathCost(start, end), path.getTotalCost(), 1e-9);
+                Assertions.assertEquals(path.getTotalCost(), intGraph.shortestPathCost(start, end), 1e-9);
+                for (int i = 0; i < path.getSegmentCosts().size(); i++)
+                    Assertions.assertEquals(expected.getEdge(path.getNodes().get(i),
+                            path.getNodes().get(i + 1)), path.getSegmentCosts().get(i));
+            }
+        }
+        Assertions.assertEquals(expected.getEdgeCount(), graph.getEdgeCount());
+        Assertions.assertEquals(expected.freeze().getEdgeCount(), expected.getEdgeCount());
+        Assertions.assertEquals(graph.getEdgeCount(), intGraph.getEdgeCount());
+        Assertions.assertTrue(graph.insertNode("n3"));
+        Assertions.assertFalse(graph.containsEdge("n3", "n4"));
+        Assertions.assertTrue(graph.insertEdge("n3", "n4", 2.5));
+        Assertions.assertEquals(2.5, graph.getEdge("n3", "n4"));
+        Assertions.assertTrue(intGraph.insertEdge("n0", "n149", 1));
+        Assertions.assertEquals(Integer.valueOf(1), intGraph.getEdge("n0", "n149"));
+        Assertions.assertEquals(1.0, intGraph.shortestPathCost("n0", "n149"));
+    }
+
+    /**
+     * Confirms that once the search arrays exist, shortest path searches in a DoubleWeightGraph
+     * allocate nothing while relaxing edges, by measuring this thread's allocations.
+     */
+    @Test
+    public void testPrimitiveWeightGraphAllocation() {
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        DijkstraGraph<Integer, Double> grid = PathFinderBenchmark.gridGraph(50, 42);
+        DoubleWeightGraph<Integer> graph = new DoubleWeightGraph<>();
+        for (int i = 0; i < 2500; i++)
+            graph.insertNode(i);
+        for (int u = 0; u < 2500; u++)
+            for (int v : new int[] {u - 50, u - 1, u + 1, u + 50})
+                if (grid.containsNode(v) && grid.containsEdge(u, v))
+                    graph.insertEdge(u, v, grid.getEdge(u, v));
+        Integer[] keys = new Integer[2500]; // boxed up front, so the measured loop boxes nothing
+        for (int i = 0; i < 2500; i++)
+            keys[i] = i;
+        for (int i = 0; i < 200; i++)
+            graph.shortestPathCost(keys[i], keys[2499 - i]); // create the search arrays and warm up
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        double total = 0.0;
+        for (int i = 0; i < 200; i++)
+            total += graph.shortestPathCost(keys[i], keys[2499 - i]); // relaxes thousands of edges
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        Assertions.assertTrue(total > 0.0);
+        // 200 searches relax hundreds of thousands of edges, so even one allocation per search
+        // (let alone per relaxation) would pass this limit
+        Assertions.assertTrue(allocated < 1024, allocated + " bytes allocated");
+    }
+
+    /**
+     * Confirms that OpenAddressingMap behaves like java.util.HashMap through a long random run of
+     * puts and removes whose keys all collide in a few slots, so that removals have to shift the
+     * rest of their runs back. Also checks pre-sizing, growth and the errors it throws.
+     */
+    @Test
+    public void testOpenAddressingMap() {
+        Assertions.assertEquals(16, new OpenAddressingMap<String, Integer>(7).getCapacity());
+        Assertions.assertEquals(16, new OpenAddressingMap<String, Integer>(6, 0.5f).getCapacity());
+        Assertions.assertEquals(8, new OpenAddressingMap<String, Integer>(6, 0.9f).getCapacity());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new OpenAddressingMap<>(4, 1.0f));
+
+        OpenAddressingMap<CollidingKey, Integer> map = new OpenAddressingMap<>();
+        java.util.HashMap<CollidingKey, Integer> expected = new java.util.HashMap<>();
+        Random random = new Random(14);
+        for (int i = 0; i < 20000; i++) {
+            CollidingKey key = new CollidingKey(random.nextInt(300));
+            if (expected.containsKey(key)) {
+                Assertions.assertThrows(IllegalArgumentException.class, () -> map.put(key, 0));
+                Assertions.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Assertions.assertThrows(NoSuchElementException.class, () -> map.get(key));
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            Assertions.assertEquals(expected.size(), map.getSize());
+            if (i % 1000 == 0)
+                for (CollidingKey present : expected.keySet())
+                    Assertions.assertEquals(expected.get(present), map.get(present));
+        }
+        Assertions.assertTrue(map.getCapacity() > 2 * expected.size());
+        Assertions.assertEquals(new java.util.TreeSet<>(expected.values()),
+                new java.util.TreeSet<>(map.values()));
+        Assertions.assertThrows(NullPointerException.class, () -> map.containsKey(null));
+        map.clear();
+        Assertions.assertEquals(0, map.getSize());
+        Assertions.assertFalse(map.values().iterator().hasNext());
+    }
+
+    /**
+     * Confirms that nodes are given dense ids in the order their data is first inserted, that a
+     * node inserted again after being removed gets its old id back, and that searches through
+     * snapshots still find the right paths once removals have left gaps among the ids.
+     */
+    @Test
+    public void testNodeIds() {
+        DijkstraGraph<String, Double> graph = lectureGraph();
+        for (int i = 0; i < LECTURE_NODES.size(); i++) {
+            Assertions.assertEquals(i, graph.nodes.get(LECTURE_NODES.get(i)).id);
+            Assertions.assertEquals(i, graph.nodes.get(LECTURE_NODES.get(i)).hashCode());
+        }
+        graph.removeNode("b");
+        graph.insertNode("z");
+        Assertions.assertEquals(LECTURE_NODES.size(), graph.nodes.get("z").id);
+        graph.insertNode("b");
+        Assertions.assertEquals(1, graph.nodes.get("b").id);
+        graph.insertEdge("a", "b", 1.0);
+        graph.insertEdge("b", "m", 3.0);
+        graph.removeNode("e");
+        graph.insertEdge("m", "z", 3.0);
+
+        List<String> names = new ArrayList<>(LECTURE_NODES);
+        names.remove("e");
+        names.add("z");
+        Assertions.assertEquals(7.0, graph.shortestPathCost("a", "z"));
+        graph.setTreeCacheLimits(4, 1 << 20);
+        assertModeAgrees(graph, names, SearchMode.ALT);
+        assertModeAgrees(graph, names, SearchMode.DIJKSTRA);
+        Assertions.assertTrue(graph.getTreeCache().getHitCount() > 0);
+    }
+
+    /**
+     * Confirms that searches reusing pooled SearchWorkspaces do not see each other's results,
+     * whether they alternate between graphs of different sizes on one thread or run on the same
+     * snapshot from several threads at once, that short-lived threads reuse the pool's workspaces
+     * instead of each creating one, and that CompactGraph searches with a warm pool allocate
+     * nothing.
+     */
+    @Test
+    public void testSearchWorkspace() throws InterruptedException {
+        DijkstraGraph<String, Double> small = randomGraph(30, 90, 11);
+        DijkstraGraph<String, Double> large = randomGraph(300, 1200, 12);
+        CompactGraph<String> frozenSmall = small.freeze();
+        CompactGraph<String> frozenLarge = large.freeze();
+        DoubleWeightGraph<String> primitive = new DoubleWeightGraph<>();
+        copyInto(small, primitive, new IntWeightGraph<>());
+        List<String> names = randomNames(30);
+        for (String start : names) {
+            for (String end : names) {
+                // a search of the large graph leaves stamps on ids the small graphs also use
+                boolean inLarge = reachable(frozenLarge, start, end);
+                Assertions.assertEquals(reachable(large, start, end), inLarge);
+                if (inLarge)
+                    Assertions.assertEquals(large.shortestPathCost(start, end), frozenLarge.shortestPathCost(start, end));
+                if (!reachable(small, start, end)) {
+                    Assertions.assertFalse(reachable(frozenSmall, start, end));
+                    Assertions.assertFalse(reachable(primitive, start, end));
+                    continue;
+                }
+                PathResult<String> expected = small.shortestPath(start, end);
+                Assertions.assertEquals(expected.getNodes(), frozenSmall.shortestPath(start, end).getNodes());
+                Assertions.assertEquals(expected.getTotalCost(), frozenSmall.shortestPathCost(start, end));
+                Assertions.assertEquals(expected.getTotalCost(), primitive.shortestPath(start, end).getTotalCost());
+            }
+        }
+
+        List<String> largeNames = randomNames(300);
+        double[] expected = new double[largeNames.size()];
+        for (int i = 0; i < expected.length; i++)
+            expected[i] = reachable(large, "n0", largeNames.get(i)) ? large.shortestPathCost("n0", largeNames.get(i)) : -1.0;
+        int[] failures = new int[4];
+        Thread[] threads = new Thread[failures.length];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int round = 0; round < 20; round++) {
+                    for (int i = 0; i < expected.length; i++) {
+                        double cost = reachable(frozenLarge, "n0", largeNames.get(i))
+                                ? frozenLarge.shortestPathCost("n0", largeNames.get(i)) : -1.0;
+                        if (cost != expected[i])
+                            failures[thread]++;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        Assertions.assertArrayEquals(new int[failures.length], failures);
+
+        // one thread per search, as a server with a thread per request runs them
+        Set<SearchWorkspace> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int t = 0; t < 50; t++) {
+            Thread thread = new Thread(() -> {
+                try (SearchWorkspace workspace = SearchWorkspace.acquire(300)) {
+                    synchronized (seen) {
+                        seen.add(workspace);
+                    }
+                }
+            });
+            thread.start();
+            thread.join();
+        }
+        Assertions.assertTrue(seen.size() <= WorkspacePool.DEFAULT_CAPACITY);
+        SearchWorkspace closed = SearchWorkspace.acquire(10);
+        closed.close();
+        Assertions.assertThrows(IllegalStateException.class, closed::close);
+
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        CompactGraph<Integer> grid = PathFinderBenchmark.gridGraph(50, 42).freeze();
+        Integer[] keys = new Integer[2500]; // boxed up front, so the measured loop boxes nothing
+        for (int i = 0; i < 2500; i++)
+            keys[i] = i;
+        for (int i = 0; i < 200; i++)
+            grid.shortestPathCost(keys[i], keys[2499 - i]); // grow the pooled workspace and warm up
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        double total = 0.0;
+        for (int i = 0; i < 200; i++)
+            total += grid.shortestPathCost(keys[i], keys[2499 - i]);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        Assertions.assertTrue(total > 0.0);
+        Assertions.assertTrue(allocated < 1024, allocated + " bytes allocated");
+    }
+
+    /**
+     * Confirms that getOrNull() and findEdge() report missing keys, nodes and edges with null
+     * instead of an exception, on every map and graph that implements them, and that insertEdge()
+     * returns false for a missing node as documented.
+     */
+    @Test
+    public void testExceptionFreeLookups() {
+        for (MapADT<String, Integer> map : List.<MapADT<String, Integer>>of(new PlaceholderMap<>(), new OpenAddressingMap<>())) {
+            map.put("a", 1);
+            map.put("none", null);
+            Assertions.assertEquals(1, map.getOrNull("a"));
+            Assertions.assertNull(map.getOrNull("b"));
+            Assertions.assertNull(map.getOrNull("none"));
+            Assertions.assertNull(map.get("none"));
+            Assertions.assertThrows(NoSuchElementException.class, () -> map.get("b"));
+            Assertions.assertThrows(NullPointerException.class, () -> map.getOrNull(null));
+        }
+        DoubleWeightGraph<String> primitive = new DoubleWeightGraph<>();
+        primitive.insertNode("a");
+        primitive.insertNode("h");
+        primitive.insertEdge("a", "h", 8.0);
+        DijkstraGraph<String, Double> lecture = lectureGraph();
+        for (GraphADT<String, Double> graph : List.of(lecture, primitive, lectureGraph().freeze())) {
+            Assertions.assertEquals(8.0, graph.findEdge("a", "h"));
+            Assertions.assertNull(graph.findEdge("h", "a"));
+            Assertions.assertNull(graph.findEdge("a", "z"));
+            Assertions.assertNull(graph.findEdge("z", "a"));
+            Assertions.assertFalse(graph.containsEdge("z", "a"));
+            Assertions.assertThrows(NoSuchElementException.class, () -> graph.getEdge("h", "a"));
+        }
+        Assertions.assertFalse(lecture.insertEdge("a", "z", 1.0));
+        Assertions.assertFalse(lecture.removeEdge("z", "a"));
+        Assertions.assertFalse(lecture.setNodePosition("z", 1.0, 2.0));
+        Assertions.assertEquals(15, lecture.getEdgeCount());
+        Assertions.assertTrue(lecture.removeEdge("a", "h"));
+        Assertions.assertNull(lecture.findEdge("a", "h"));
+    }
+
+    /**
+     * Confirms that inserting an EdgeBatch merges duplicate edges with each DuplicatePolicy, both
+     * within the batch and with edges the graph already holds, and leaves DijkstraGraph and
+     * DoubleWeightGraph with the same edges as merging them one at a time would.
+     */
+    @Test
+    public void testEdgeBatch() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EdgeBatch<String, Double>(DuplicatePolicy.SUM));
+        for (DuplicatePolicy policy : DuplicatePolicy.values()) {
+            // graphs that already hold a few edges, which the batch adds to
+            List<GraphADT<String, Double>> graphs = List.of(new DijkstraGraph<>(), new DoubleWeightGraph<>());
+            Map<String, Double> expected = new HashMap<>();
+            for (GraphADT<String, Double> graph : graphs) {
+                for (int i = 0; i < 5; i++)
+                    graph.insertNode("n" + i);
+                for (int i = 0; i < 4; i++)
+                    graph.insertEdge("n" + i, "n" + (i + 1), 10.0);
+            }
+            for (int i = 0; i < 4; i++)
+                expected.put("n" + i + " n" + (i + 1), 10.0);
+
+            EdgeBatch<String, Double> batch = new EdgeBatch<>(policy, Double::sum);
+            Random random = new Random(5);
+            int distinct = 0;
+            for (int i = 0; i < 2000; i++) {
+                String pred = "n" + random.nextInt(30);
+                String succ = "n" + random.nextInt(30);
+                double weight = 1.0 + random.nextInt(50);
+                if (batch.add(pred, succ, weight))
+                    distinct++;
+                expected.merge(pred + " " + succ, weight,
+                        (kept, added) -> policy.combine(kept, added, Double::sum));
+            }
+            batch.addNode("lonely");
+            Assertions.assertEquals(distinct, batch.size());
+            Assertions.assertEquals(31, batch.getNodeCount());
+            Assertions.assertTrue(batch.containsEdge("n0", "n1") == expected.containsKey("n0 n1"));
+
+            for (GraphADT<String, Double> graph : graphs) {
+                int version = graph.getModificationCount();
+                int added = graph.insertEdges(batch);
+                Assertions.assertEquals(expected.size() - 4, added, policy + " " + graph.getClass());
+                Assertions.assertEquals(expected.size(), graph.getEdgeCount());
+                Assertions.assertEquals(31, graph.getNodeCount());
+                Assertions.assertEquals(version + 1, graph.getModificationCount(), "one change per batch");
+                for (Map.Entry<String, Double> edge : expected.entrySet()) {
+                    String[] ends = edge.getKey().split(" ");
+                    Assertions.assertEquals(edge.getValue(), graph.getEdge(ends[0], ends[1]), edge.getKey());
+                }
+                // the graph still accepts single edges afterwards
+                Assertions.assertTrue(graph.insertEdge("lonely", "n0", 1.0));
+                Assertions.assertEquals(1.0, graph.shortestPathCost("lonely", "n0"));
+            }
+        }
+    }
+
+    // a map key whose hash code takes only a few values, so that most keys collide
+    record CollidingKey(int id) {
+        @Override
+        public int hashCode() {
+            return id % 5;
+        }
+    }
+
+    // copies the nodes and edges of a graph built by randomGraph() into the primitive weight graphs
+    static void copyInto(DijkstraGraph<String, Double> source, DoubleWeightGraph<String> graph,
+            IntWeightGraph<String> intGraph) {
+        for (String node : randomNames(source.getNodeCount())) {
+            graph.insertNode(node);
+            intGraph.insertNode(node);
+        }
+        for (String pred : randomNames(source.getNodeCount())) {
+            for (String succ : randomNames(source.getNodeCount())) {
+                if (source.containsEdge(pred, succ)) {
+                    graph.insertEdge(pred, succ, source.getEdge(pred, succ));
+                    intGraph.insertEdge(pred, succ, source.getEdge(pred, succ).intValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a side x side grid of nodes named n0, n1, ... that are 100 meters apart, with edges
+     * between neighbors that take at least as long as walking straight there at the default
+     * maximum walking speed.
+     */
+    static DijkstraGraph<String, Double> positionedGraph(int side, long seed) {
+        Random random = new Random(seed);
+        DijkstraGraph<String, Double> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+        for (int i = 0; i < side * side; i++) {
+            graph.insertNode("n" + i);
+            graph.setNodePosition("n" + i, 100.0 * (i % side), 100.0 * (i / side));
+        }
+        double minimum = 100.0 / DijkstraGraph.DEFAULT_MAX_WALKING_SPEED;
+        for (int i = 0; i < side * side; i++) {
+            if (i % side + 1 < side) {
+                graph.insertEdge("n" + i, "n" + (i + 1), minimum * (1 + random.nextDouble()));
+                graph.insertEdge("n" + (i + 1), "n" + i, minimum * (1 + random.nextDouble()));
+            }
+            if (i + side < side * side) {
+                graph.insertEdge("n" + i, "n" + (i + side), minimum * (1 + random.nextDouble()));
+                graph.insertEdge("n" + (i + side), "n" + i, minimum * (1 + random.nextDouble()));
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Confirms that, between every pair of the provided nodes, the search mode finds a path that
+     * follows real edges and costs the same as the path a forward Dijkstra search finds.
+     */
+    static void assertModeAgrees(DijkstraGraph<String, Double> graph, List<String> names,
+            SearchMode mode) {
+        for (String start : names) {
+            for (String end : names) {
+                graph.setSearchMode(SearchMode.DIJKSTRA);
+                if (!reachable(graph, start, end))
+                    continue;
+                double expected = graph.shortestPathCost(start, end);
+                graph.setSearchMode(mode);
+                PathResult<String> actual = graph.shortestPath(start, end);
+                Assertions.assertEquals(expected, actual.getTotalCost(), 1e-9);
+                Assertions.assertEquals(start, actual.getStart());
+                Assertions.assertEquals(end, actual.getEnd());
+                double sum = 0.0;
+                for (int i = 0; i < actual.getSegmentCosts().size(); i++) {
+                    Assertions.assertEquals(graph.getEdge(actual.getNodes().get(i),
+                            actual.getNodes().get(i + 1)), actual.getSegmentCosts().get(i));
+                    sum += actual.getSegmentCosts().get(i);
+                }
+                Assertions.assertEquals(actual.getTotalCost(), sum, 1e-9);
+            }
+        }
+        graph.setSearchMode(SearchMode.DIJKSTRA);
+    }
+
+    /**
+     * Builds a graph of nodes named n0, n1, ... connected by randomly chosen, randomly weighted
+     * edges.
+     */
+    static DijkstraGraph<String, Double> randomGraph(int nodeCount, int edgeCount, long seed) {
+        Random random = new Random(seed);
+        DijkstraGraph<String, Double> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+        for (int i = 0; i < nodeCount; i++)
+            graph.insertNode("n" + i);
+        for (int i = 0; i < edgeCount; i++)
+            graph.insertEdge("n" + random.nextInt(nodeCount), "n" + random.nextInt(nodeCount),
+                    1.0 + random.nextInt(100));
+        return graph;
+    }
+
+    // returns the names of the nodes in a graph built by randomGraph()
+    static List<String> randomNames(int nodeCount) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++)
+            names.add("n" + i);
+        return names;
+    }
+
+    // checks whether graph has any path from start to end
+    static boolean reachable(GraphADT<String, Double> graph, String start, String end) {
+        try {
+            graph.shortestPathCost(start, end);
+            return true;
+        } catch (NoSuchElementException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class defines the PathFinder binary graph format, and writes graphs in it. A graph file
+ * holds a graph in compressed sparse row form along with its node names and a hash index of those
+ * names, laid out so that MappedGraph can answer queries straight from a memory mapping of the file
+ * without reading it into objects first. All values are little-endian, and every section starts at
+ * a multiple of 8 bytes:
+ * <ul>
+ * <li>header: the magic bytes "PFGR", the format version, the node count, the edge count, the total
+ * walking time read from the original file, the size of the name index and the number of name
+ * bytes</li>
+ * <li>offsets: nodeCount + 1 ints, where the edges leaving node u are edges offsets[u] to
+ * offsets[u + 1] - 1</li>
+ * <li>targets: edgeCount ints, the successor of each edge</li>
+ * <li>weights: edgeCount doubles, the weight of each edge</li>
+ * <li>name offsets: nodeCount + 1 ints, where the UTF-8 name of node u is name bytes nameOffsets[u]
+ * to nameOffsets[u + 1] - 1</li>
+ * <li>name index: a power of two number of ints, holding id + 1 for each node at the slot its
+ * name's String.hashCode() probes to with linear probing, and 0 in empty slots</li>
+ * <li>name bytes: the UTF-8 bytes of every node name, one after another</li>
+ * </ul>
+ *
+ * Run this class with a .dot file and an output file to convert one to the other.
+ */
+public final class GraphFile {
+
+  /**
+   * The first four bytes of every graph file.
+   */
+  public static final byte[] MAGIC = {'P', 'F', 'G', 'R'};
+
+  /**
+   * The version of the format that this class writes and MappedGraph reads. It changes whenever
+   * the layout does.
+   */
+  public static final int VERSION = 1;
+
+  static final int HEADER_SIZE = 32;
+  private static final int GOLDEN_RATIO = 0x9E3779B9; // 2^32 divided by the golden ratio
+
+  private GraphFile() {
+  }
+
+  /**
+   * Converts a DOT file to a graph file, reading it the same way Backend.readData() does.
+   *
+   * @param args the DOT file to read, followed by the graph file to write
+   * @throws IOException if either file can not be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("usage: java GraphFile <input.dot> <output.pfg>");
+      System.exit(2);
+    }
+    convert(new File(args[0]), Path.of(args[1]));
+  }
+
+  /**
+   * Converts a DOT file to a graph file, reading it the same way Backend.readData() does.
+   *
+   * @param dotFile   the DOT file to read
+   * @param graphFile the graph file to write
+   * @throws IOException if the DOT file can not be read or is not valid, or if the graph file can not
+   *                     be written
+   */
+  public static void convert(File dotFile, Path graphFile) throws IOException {
+    Backend backend = new Backend();
+    if (!backend.readData(dotFile))
+      throw new IOException("could not read " + dotFile);
+    Backend.Snapshot snapshot = backend.getSnapshot();
+    if (!(snapshot.getGraph() instanceof CompactGraph))
+      throw new IOException(dotFile + " is not a DOT file");
+    write(graphFile, (CompactGraph<String>) snapshot.getGraph(), snapshot.getTotalTime());
+  }
+
+  /**
+   * Checks whether a file starts with the magic bytes of a graph file.
+   *
+   * @param file the file to check
+   * @return true if the file is a graph file, or false if it is not or can not be read
+   */
+  public static boolean isGraphFile(Path file) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer start = ByteBuffer.allocate(MAGIC.length);
+      while (start.hasRemaining() && channel.read(start) > 0)
+        ;
+      return !start.hasRemaining() && start.flip().equals(ByteBuffer.wrap(MAGIC));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Writes a graph to a graph file.
+   *
+   * @param file      the file to write, which is replaced if it exists
+   * @param graph     the graph to write
+   * @param totalTime the sum of the walking times read from the original file, which Backend
+   *                  keeps to report in pathData()
+   * @throws IOException if the file can not be written, or the graph is too large for the format
+   */
+  public static void write(Path file, CompactGraph<String> graph, double totalTime)
+      throws IOException {
+    int nodeCount = graph.getNodeCount();
+    byte[][] names = new byte[nodeCount][];
+    long nameByteCount = 0;
+    for (int u = 0; u < nodeCount; u++) {
+      names[u] = graph.dataOf(u).getBytes(StandardCharsets.UTF_8);
+      nameByteCount += names[u].length;
+    }
+    if (nameByteCount > Integer.MAX_VALUE)
+      throw new IOException("node names are too long for the graph file format");
+    int indexSize = indexSize(nodeCount);
+    Layout layout = new Layout(nodeCount, graph.getEdgeCount(), indexSize, (int) nameByteCount);
+    if (layout.size > Integer.MAX_VALUE)
+      throw new IOException("graph is too large for the graph file format");
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.size);
+      out.order(ByteOrder.LITTLE_ENDIAN);
+      out.put(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(graph.getEdgeCount())
+          .putDouble(totalTime).putInt(indexSize).putInt((int) nameByteCount);
+      for (int u = 0; u <= nodeCount; u++)
+        out.putInt((int) layout.offsets + 4 * u, graph.offsets[u]);
+      for (int e = 0; e < graph.targets.length; e++) {
+        out.putInt((int) layout.targets + 4 * e, graph.targets[e]);
+        out.putDouble((int) layout.weights + 8 * e, graph.weights[e]);
+      }
+      int nameOffset = 0;
+      for (int u = 0; u < nodeCount; u++) {
+        out.putInt((int) layout.nameOffsets + 4 * u, nameOffset);
+        out.put((int) layout.nameBytes + nameOffset, names[u]);
+        nameOffset += names[u].length;
+        int slot = homeSlot(graph.dataOf(u).hashCode(), indexSize);
+        while (out.getInt((int) layout.nameIndex + 4 * slot) != 0)
+          slot = (slot + 1) & (indexSize - 1);
+        out.putInt((int) layout.nameIndex + 4 * slot, u + 1);
+      }
+      out.putInt((int) layout.nameOffsets + 4 * nodeCount, nameOffset);
+      out.force();
+    }
+  }
+
+  // returns the number of name index slots for nodeCount names, keeping it at most half full
+  static int indexSize(int nodeCount) {
+    int size = 8;
+    while (size < 2L * nodeCount)
+      size *= 2;
+    return size;
+  }
+
+  // returns the name index slot where the probe sequence for a name with the provided hash starts
+  static int homeSlot(int hash, int indexSize) {
+    return ((hash ^ (hash >>> 16)) * GOLDEN_RATIO) >>> Integer.numberOfLeadingZeros(indexSize - 1);
+  }
+
+  /**
+   * The byte offsets of the sections of a graph file, computed from the counts in its header.
+   */
+  static class Layout {
+    final long offsets;
+    final long targets;
+    final long weights;
+    final long nameOffsets;
+    final long nameIndex;
+    final long nameBytes;
+    final long size; // the size of the whole file
+
+    Layout(int nodeCount, int edgeCount, int indexSize, int nameByteCount) {
+      offsets = HEADER_SIZE;
+      targets = align(offsets + 4L * (nodeCount + 1));
+      weights = align(targets + 4L * edgeCount);
+      nameOffsets = align(weights + 8L * edgeCount);
+      nameIndex = align(nameOffsets + 4L * (nodeCount + 1));
+      nameBytes = align(nameIndex + 4L * indexSize);
+      size = nameBytes + nameByteCount;
+    }
+
+    // rounds position up to a multiple of 8
+    private static long align(long position) {
+      return (position + 7) & ~7L;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Implements SearchFrontier using an array based binary min heap. Each key has a dense,
+ * non-negative id, and the position of each key within the heap array is kept in an array indexed
+ * by that id, like IntMinHeap does, so that decreaseKey() and contains() neither scan the heap nor
+ * hash or box anything: add(), decreaseKey() and removeMin() all run in O(log n) time.
+ *
+ * @param KeyType is the type used to identify the nodes stored in this heap
+ */
+public class IndexedMinHeap<KeyType> implements SearchFrontier<KeyType> {
+
+  private final ToIntFunction<? super KeyType> idOf; // the dense id of each key
+  private Object[] keys; // heap ordered keys, the key with the lowest priority is at index 0
+  private int[] ids; // ids[i] is the id of keys[i]
+  private double[] priorities; // priorities[i] is the priority of keys[i]
+  private int[] positions; // positions[id] is the index of the key with id in keys, or -1
+  private int size = 0;
+
+  /**
+   * Creates an empty heap with a small default capacity.
+   *
+   * @param idOf returns the dense, non-negative id of each key, such as its interned node id
+   */
+  public IndexedMinHeap(ToIntFunction<? super KeyType> idOf) {
+    this(idOf, 16);
+  }
+
+  /**
+   * Creates an empty heap that can hold the provided number of keys before it needs to grow.
+   *
+   * @param idOf            returns the dense, non-negative id of each key, such as its interned
+   *                        node id
+   * @param initialCapacity the number of keys to make room for
+   */
+  public IndexedMinHeap(ToIntFunction<? super KeyType> idOf, int initialCapacity) {
+    if (initialCapacity < 1)
+      initialCapacity = 1;
+    this.idOf = idOf;
+    keys = new Object[initialCapacity];
+    ids = new int[initialCapacity];
+    priorities = new double[initialCapacity];
+    positions = new int[initialCapacity];
+    Arrays.fill(positions, -1);
+  }
+
+  @Override
+  public void add(KeyType key, double priority) {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    int id = idOf.applyAsInt(key);
+    if (id >= positions.length) {
+      int length = positions.length;
+      positions = Arrays.copyOf(positions, Math.max(id + 1, length * 2));
+      Arrays.fill(positions, length, positions.length, -1);
+    } else if (positions[id] != -1) {
+      throw new IllegalArgumentException("key " + key.toString() + " already present in heap");
+    }
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      ids = Arrays.copyOf(ids, size * 2);
+      priorities = Arrays.copyOf(priorities, size * 2);
+    }
+    keys[size] = key;
+    ids[size] = id;
+    priorities[size] = priority;
+    positions[id] = size;
+    size++;
+    siftUp(size - 1);
+  }
+
+  @Override
+  public void decreaseKey(KeyType key, double priority) {
+    int index = indexOf(key);
+    if (index == -1)
+      throw new NoSuchElementException("key " + key + " not in heap");
+    if (priority > priorities[index])
+      throw new IllegalArgumentException("decreaseKey cannot raise the priority of " + key);
+    priorities[index] = priority;
+    siftUp(index);
+  }
+
+  @Override
+  public boolean contains(KeyType key) {
+    return indexOf(key) != -1;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public KeyType removeMin() {
+    if (size == 0)
+      throw new NoSuchElementException("heap is empty");
+    KeyType min = (KeyType) keys[0];
+    positions[ids[0]] = -1;
+    size--;
+    if (size > 0) {
+      // move the last key to the root, and restore the heap order below it
+      move(size, 0);
+      siftDown(0);
+    }
+    keys[size] = null;
+    return min;
+  }
+
+  @Override
+  public double peekPriority() {
+    if (size == 0)
+      throw new NoSuchElementException("heap is empty");
+    return priorities[0];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < size; i++)
+      positions[ids[i]] = -1;
+    Arrays.fill(keys, 0, size, null);
+    size = 0;
+  }
+
+  // returns the index of key in keys, or -1 when it is not in this heap
+  private int indexOf(KeyType key) {
+    int id = idOf.applyAsInt(key);
+    return id < positions.length ? positions[id] : -1;
+  }
+
+  // moves the key at index from into index to, and records its new position
+  private void move(int from, int to) {
+    keys[to] = keys[from];
+    ids[to] = ids[from];
+    priorities[to] = priorities[from];
+    positions[ids[to]] = to;
+  }
+
+  private void siftUp(int index) {
+    Object key = keys[index];
+    int id = ids[index];
+    double priority = priorities[index];
+    // shift parents down until the hole reaches a parent with a lower or equal priority
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (priorities[parent] <= priority)
+        break;
+      move(parent, index);
+      index = parent;
+    }
+    place(key, id, priority, index);
+  }
+
+  private void siftDown(int index) {
+    Object key = keys[index];
+    int id = ids[index];
+    double priority = priorities[index];
+    // shift the smaller child up until both children have a greater or equal priority
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= size)
+        break;
+      if (child + 1 < size && priorities[child + 1] < priorities[child])
+        child++;
+      if (priorities[child] >= priority)
+        break;
+      move(child, index);
+      index = child;
+    }
+    place(key, id, priority, index);
+  }
+
+  private void place(Object key, int id, double priority, int index) {
+    keys[index] = key;
+    ids[index] = id;
+    priorities[index] = priority;
+    positions[id] = index;
+  }
+}
@@ -0,0 +1,178 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is an indexed binary min heap of integer ids in the range [0, capacity), ordered by a
+ * double priority. The position of each id within the heap is kept in an array, so contains() is
+ * O(1) and add(), decreaseKey() and removeMin() are O(log n), without any hashing or boxing.
+ */
+public class IntMinHeap {
+
+  private int[] heap; // heap ordered ids, the id with the lowest priority is at index 0
+  private double[] priorities; // priorities[id] is the priority of id while it is in the heap
+  private int[] positions; // positions[id] is the index of id in heap, or -1 when it is absent
+  private int size = 0;
+
+  /**
+   * Creates an empty heap for ids in the range [0, capacity).
+   *
+   * @param capacity one more than the largest id this heap can hold
+   */
+  public IntMinHeap(int capacity) {
+    heap = new int[capacity];
+    priorities = new double[capacity];
+    positions = new int[capacity];
+    Arrays.fill(positions, -1);
+  }
+
+  /**
+   * Adds an id that is not yet in this heap.
+   *
+   * @param id       the id to add
+   * @param priority the priority of that id
+   * @throws IllegalArgumentException if id is already in this heap
+   */
+  public void add(int id, double priority) {
+    if (positions[id] != -1)
+      throw new IllegalArgumentException("id " + id + " already present in heap");
+    priorities[id] = priority;
+    siftUp(id, size++);
+  }
+
+  /**
+   * Lowers the priority of an id that is already in this heap.
+   *
+   * @param id       the id whose priority is lowered
+   * @param priority the new priority, which must not be greater than the current one
+   * @throws NoSuchElementException if id is not in this heap
+   */
+  public void decreaseKey(int id, double priority) {
+    int index = positions[id];
+    if (index == -1)
+      throw new NoSuchElementException("id " + id + " not in heap");
+    priorities[id] = priority;
+    siftUp(id, index);
+  }
+
+  /**
+   * Changes the priority of an id that is already in this heap, in either direction.
+   *
+   * @param id       the id whose priority changes
+   * @param priority the new priority
+   * @throws NoSuchElementException if id is not in this heap
+   */
+  public void update(int id, double priority) {
+    int index = positions[id];
+    if (index == -1)
+      throw new NoSuchElementException("id " + id + " not in heap");
+    double old = priorities[id];
+    priorities[id] = priority;
+    if (priority < old)
+      siftUp(id, index);
+    else
+      siftDown(id, index);
+  }
+
+  /**
+   * Checks whether an id is currently in this heap.
+   *
+   * @param id the id to check
+   * @return true if id is in this heap, or false otherwise
+   */
+  public boolean contains(int id) {
+    return positions[id] != -1;
+  }
+
+  /**
+   * Removes and returns the id with the lowest priority.
+   *
+   * @return the id with the lowest priority
+   * @throws NoSuchElementException if this heap is empty
+   */
+  public int removeMin() {
+    if (size == 0)
+      throw new NoSuchElementException("heap is empty");
+    int min = heap[0];
+    positions[min] = -1;
+    size--;
+    if (size > 0)
+      siftDown(heap[size], 0);
+    return min;
+  }
+
+  /**
+   * Returns the lowest priority in this heap without removing its id.
+   *
+   * @return the lowest priority in this heap
+   * @throws NoSuchElementException if this heap is empty
+   */
+  public double peekPriority() {
+    if (size == 0)
+      throw new NoSuchElementException("heap is empty");
+    return priorities[heap[0]];
+  }
+
+  /**
+   * Retrieves the number of ids in this heap.
+   *
+   * @return the number of ids in this heap
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks whether this heap contains no ids.
+   *
+   * @return true if this heap is empty, or false otherwise
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Removes all ids from this heap. Only the ids still in the heap are touched, so this is
+   * O(size()) rather than O(capacity).
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++)
+      positions[heap[i]] = -1;
+    size = 0;
+  }
+
+  // moves id up from index until its parent has a lower or equal priority
+  private void siftUp(int id, int index) {
+    double priority = priorities[id];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      int parentId = heap[parent];
+      if (priorities[parentId] <= priority)
+        break;
+      heap[index] = parentId;
+      positions[parentId] = index;
+      index = parent;
+    }
+    heap[index] = id;
+    positions[id] = index;
+  }
+
+  // moves id down from index until both of its children have a greater or equal priority
+  private void siftDown(int id, int index) {
+    double priority = priorities[id];
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= size)
+        break;
+      if (child + 1 < size && priorities[heap[child + 1]] < priorities[heap[child]])
+        child++;
+      int childId = heap[child];
+      if (priorities[childId] >= priority)
+        break;
+      heap[index] = childId;
+      positions[childId] = index;
+      index = child;
+    }
+    heap[index] = id;
+    positions[id] = index;
+  }
+}
@@ -0,0 +1,41 @@
+import java.util.Arrays;
+
+/**
+ * This class is a graph whose edge weights are stored as primitive ints, such as walking times
+ * rounded to whole seconds. Path costs are summed as doubles, which is exact for any path shorter
+ * than 2^53. Shortest path searches read the weights straight from these arrays, so relaxing an edge
+ * never unboxes or allocates an Integer.
+ *
+ * @param NodeType is the data type stored at each graph node
+ */
+public class IntWeightGraph<NodeType> extends PrimitiveWeightGraph<NodeType, Integer> {
+
+  private int[][] weights = new int[16][]; // weights[u][i] is the weight of u's edge i
+
+  @Override
+  protected double weight(int u, int i) {
+    return weights[u][i];
+  }
+
+  @Override
+  protected Integer boxedWeight(int u, int i) {
+    return weights[u][i];
+  }
+
+  @Override
+  protected void storeWeight(int u, int i, Integer weight, int capacity) {
+    if (weights[u] == null || weights[u].length < capacity)
+      weights[u] = weights[u] == null ? new int[capacity] : Arrays.copyOf(weights[u], capacity);
+    weights[u][i] = weight;
+  }
+
+  @Override
+  protected void moveWeight(int u, int from, int to) {
+    weights[u][to] = weights[u][from];
+  }
+
+  @Override
+  protected void growNodes(int capacity) {
+    weights = Arrays.copyOf(weights, capacity);
+  }
+}
@@ -0,0 +1,112 @@
+import java.util.stream.IntStream;
+
+/**
+ * This class holds the precomputed tables for ALT (A*, Landmarks and Triangle inequality) search.
+ * For each of a few landmark nodes, it stores the cost of the shortest path from the landmark to
+ * every node, and from every node to the landmark. By the triangle inequality, for any landmark L
+ * the cost of the shortest path from v to t is at least d(L, t) - d(L, v), and at least
+ * d(v, L) - d(t, L). The largest of these differences is a lower bound that works on graphs that
+ * have no node positions at all.
+ *
+ * An index is built from a CompactGraph snapshot, and uses that snapshot's node ids. It does not
+ * change, so it must be rebuilt when the graph it was built from changes.
+ */
+public class LandmarkIndex {
+
+  private final int[] landmarks; // ids of the landmark nodes
+  private final double[][] fromLandmark; // fromLandmark[i][v] is the cost from landmarks[i] to v
+  private final double[][] toLandmark; // toLandmark[i][v] is the cost from v to landmarks[i]
+
+  /**
+   * Builds the tables for the provided landmarks. The searches for different landmarks run in
+   * parallel.
+   *
+   * @param graph     the graph to build the tables for
+   * @param landmarks the ids of the landmark nodes
+   */
+  public LandmarkIndex(CompactGraph<?> graph, int[] landmarks) {
+    this(graph, landmarks, new double[landmarks.length][]);
+  }
+
+  // builds the tables, reusing any fromLandmark tables that were already computed
+  private LandmarkIndex(CompactGraph<?> graph, int[] landmarks, double[][] fromLandmark) {
+    this.landmarks = landmarks.clone();
+    this.fromLandmark = fromLandmark;
+    this.toLandmark = new double[landmarks.length][];
+    IntStream.range(0, 2 * landmarks.length).parallel().forEach(task -> {
+      int i = task / 2;
+      if (task % 2 == 0) {
+        if (fromLandmark[i] == null)
+          fromLandmark[i] = graph.distancesFrom(landmarks[i]);
+      } else {
+        toLandmark[i] = graph.distancesTo(landmarks[i]);
+      }
+    });
+  }
+
+  /**
+   * Chooses up to count landmarks by farthest point selection and builds their tables. The first
+   * landmark is the node farthest from node 0, and each later landmark is the node whose distance
+   * to the nearest landmark chosen so far is greatest, which spreads the landmarks out towards the
+   * edges of the graph. Only nodes reachable from node 0 are considered.
+   *
+   * @param graph the graph to build the tables for
+   * @param count the number of landmarks to choose
+   * @return the index for the chosen landmarks
+   */
+  public static LandmarkIndex build(CompactGraph<?> graph, int count) {
+    int nodeCount = graph.getNodeCount();
+    count = Math.min(count, nodeCount);
+    int[] landmarks = new int[count];
+    double[][] fromLandmark = new double[count][];
+    if (count == 0)
+      return new LandmarkIndex(graph, landmarks, fromLandmark);
+    // the distance from the nearest landmark so far, starting with node 0 as a stand in
+    double[] nearest = graph.distancesFrom(0);
+    for (int i = 0; i < count; i++) {
+      int farthest = 0;
+      for (int v = 0; v < nodeCount; v++)
+        if (nearest[v] != Double.POSITIVE_INFINITY && nearest[v] > nearest[farthest])
+          farthest = v;
+      landmarks[i] = farthest;
+      // each landmark's search is needed for its table anyway, so it is not repeated later
+      fromLandmark[i] = graph.distancesFrom(farthest);
+      if (i == 0)
+        nearest = fromLandmark[0].clone();
+      else
+        for (int v = 0; v < nodeCount; v++)
+          nearest[v] = Math.min(nearest[v], fromLandmark[i][v]);
+    }
+    return new LandmarkIndex(graph, landmarks, fromLandmark);
+  }
+
+  /**
+   * Returns a lower bound on the cost of the shortest path from one node to another.
+   *
+   * @param from the id of the node the path starts at
+   * @param to   the id of the node the path ends at
+   * @return a cost that is no greater than the cost of the shortest path from from to to
+   */
+  public double lowerBound(int from, int to) {
+    double bound = 0.0;
+    for (int i = 0; i < landmarks.length; i++) {
+      double[] forward = fromLandmark[i];
+      double[] backward = toLandmark[i];
+      // skip landmarks that do not reach (or are not reached by) both nodes
+      if (forward[from] != Double.POSITIVE_INFINITY && forward[to] != Double.POSITIVE_INFINITY)
+        bound = Math.max(bound, forward[to] - forward[from]);
+      if (backward[from] != Double.POSITIVE_INFINITY && backward[to] != Double.POSITIVE_INFINITY)
+        bound = Math.max(bound, backward[from] - backward[to]);
+    }
+    return bound;
+  }
+
+  /**
+   * Returns the ids of the landmark nodes.
+   *
+   * @return a copy of the landmark ids
+   */
+  public int[] getLandmarks() {
+    return landmarks.clone();
+  }
+}
@@ -1,3 +1,4 @@
+import java.util.Collection;
 import java.util.NoSuchElementException;
 
 /**
@@ -32,6 +33,19 @@ public interface MapADT<KeyType, ValueType> {
      */
     public ValueType get(KeyType key) throws NoSuchElementException;
 
+    /**
+     * Retrieves the value that a key maps to, or null when the key is not
+     * stored. Unlike get(), a missing key is not an error here, so lookups
+     * that often miss do not pay for building an exception.
+     * @param key the key to look up
+     * @return the value that key maps to, or null when key is not stored in
+     *         this collection
+     * @throws NullPointerException if key is null
+     */
+    public default ValueType getOrNull(KeyType key) {
+        return containsKey(key) ? get(key) : null;
+    }
+
     /**
      * Remove the mapping for a key from this collection.
      * @param key the key whose mapping to remove
@@ -52,10 +66,25 @@ public interface MapADT<KeyType, ValueType> {
      */
     public int getSize();
 
+    /**
+     * Retrieves the values stored in this collection, in no particular order.
+     * @return a read only view of the values in this collection
+     */
+    public Collection<ValueType> values();
+
     /**
      * Retrieves this collection's capacity.
      * @return the size of te underlying array for this collection
      */
     public int getCapacity();
 
+    /**
+     * Makes room for this collection to hold expectedSize keys, so that
+     * adding that many keys does not grow it step by step. Collections that
+     * can not be sized ahead of time ignore this.
+     * @param expectedSize the number of keys the collection is expected to hold
+     */
+    public default void ensureCapacity(int expectedSize) {
+    }
+
 }
@@ -0,0 +1,287 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is a read-only graph that answers queries straight from a memory mapping of a file
+ * written by GraphFile. Opening a graph only maps the file and checks its header, so it takes the
+ * same few milliseconds however large the graph is. The operating system reads pages of the file
+ * in as searches touch them, and every process that maps the same file shares those pages.
+ *
+ * Node names are found through the name index stored in the file, and are only decoded from UTF-8
+ * when a path is returned. Since the mapping is read-only, the methods that would change the graph
+ * throw UnsupportedOperationException. Each search keeps its state in a SearchWorkspace of its
+ * own, so any number of threads may query the same MappedGraph at once.
+ */
+public class MappedGraph implements GraphADT<String, Double> {
+
+  private final int nodeCount;
+  private final int edgeCount;
+  private final double totalTime;
+  private final IntBuffer offsets; // edges leaving u are at [offsets[u], offsets[u + 1])
+  private final IntBuffer targets; // successor id of each edge
+  private final DoubleBuffer weights; // weight of each edge
+  private final IntBuffer nameOffsets; // name of u is at [nameOffsets[u], nameOffsets[u + 1])
+  private final IntBuffer nameIndex; // id + 1 of the node whose name probes to each slot, or 0
+  private final ByteBuffer nameBytes; // UTF-8 bytes of every node name
+
+  /**
+   * Maps a graph file into memory.
+   *
+   * @param file the graph file to map
+   * @return a graph that reads from the mapping
+   * @throws IOException if the file can not be read, is not a graph file, has a different version
+   *                     than GraphFile.VERSION, or is not as long as its header says
+   */
+  public static MappedGraph open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE)
+        throw new IOException(file + " is too large to map");
+      // the mapping stays valid after the channel is closed
+      return new MappedGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), file);
+    }
+  }
+
+  /**
+   * Reads the header of a mapped graph file, and creates views of each of its sections.
+   *
+   * @param map  the mapping of the whole file
+   * @param file the file that was mapped, for error messages
+   * @throws IOException if the mapping does not hold a graph file of the current version
+   */
+  private MappedGraph(MappedByteBuffer map, Path file) throws IOException {
+    map.order(ByteOrder.LITTLE_ENDIAN);
+    byte[] magic = new byte[GraphFile.MAGIC.length];
+    if (map.capacity() >= GraphFile.HEADER_SIZE)
+      map.get(0, magic);
+    if (!Arrays.equals(magic, GraphFile.MAGIC))
+      throw new IOException(file + " is not a graph file");
+    int version = map.getInt(4);
+    if (version != GraphFile.VERSION)
+      throw new IOException(file + " has graph file version " + version + ", but only version "
+          + GraphFile.VERSION + " can be read");
+    nodeCount = map.getInt(8);
+    edgeCount = map.getInt(12);
+    totalTime = map.getDouble(16);
+    int indexSize = map.getInt(24);
+    int nameByteCount = map.getInt(28);
+    if (nodeCount < 0 || edgeCount < 0 || nameByteCount < 0 || Integer.bitCount(indexSize) != 1)
+      throw new IOException(file + " has a corrupt header");
+    GraphFile.Layout layout = new GraphFile.Layout(nodeCount, edgeCount, indexSize, nameByteCount);
+    if (layout.size != map.capacity())
+      throw new IOException(file + " is " + map.capacity() + " bytes long, but its header says "
+          + layout.size);
+    offsets = section(map, layout.offsets, layout.targets).asIntBuffer();
+    targets = section(map, layout.targets, layout.weights).asIntBuffer();
+    weights = section(map, layout.weights, layout.nameOffsets).asDoubleBuffer();
+    nameOffsets = section(map, layout.nameOffsets, layout.nameIndex).asIntBuffer();
+    nameIndex = section(map, layout.nameIndex, layout.nameBytes).asIntBuffer();
+    nameBytes = section(map, layout.nameBytes, layout.size);
+  }
+
+  // returns a little-endian view of bytes start to end of map
+  private static ByteBuffer section(ByteBuffer map, long start, long end) {
+    return map.slice((int) start, (int) (end - start)).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Returns the sum of the walking times read from the file this graph was converted from.
+   *
+   * @return the total walking time stored in the graph file
+   */
+  public double getTotalTime() {
+    return totalTime;
+  }
+
+  /**
+   * Returns the id of the node with the provided name, by looking it up in the file's name index.
+   *
+   * @param name the name of the node
+   * @return the id of that node, or -1 if there is no node with this name
+   * @throws NullPointerException if name is null
+   */
+  public int idOf(String name) {
+    if (name == null)
+      throw new NullPointerException("null keys not allowed");
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    int mask = nameIndex.capacity() - 1;
+    for (int slot = GraphFile.homeSlot(name.hashCode(), nameIndex.capacity()); ;
+        slot = (slot + 1) & mask) {
+      int id = nameIndex.get(slot) - 1;
+      if (id == -1)
+        return -1;
+      int start = nameOffsets.get(id);
+      if (nameOffsets.get(id + 1) - start == bytes.length
+          && nameBytes.slice(start, bytes.length).equals(ByteBuffer.wrap(bytes)))
+        return id;
+    }
+  }
+
+  /**
+   * Returns the name of the node with the provided id, decoded from the mapping.
+   *
+   * @param id the id of the node
+   * @return the name of that node
+   * @throws IndexOutOfBoundsException if no node has this id
+   */
+  public String nameOf(int id) {
+    if (id < 0 || id >= nodeCount)
+      throw new IndexOutOfBoundsException(id);
+    int start = nameOffsets.get(id);
+    byte[] bytes = new byte[nameOffsets.get(id + 1) - start];
+    nameBytes.get(start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public boolean insertNode(String data) {
+    throw new UnsupportedOperationException("MappedGraph is read-only");
+  }
+
+  @Override
+  public boolean removeNode(String data) {
+    throw new UnsupportedOperationException("MappedGraph is read-only");
+  }
+
+  @Override
+  public boolean containsNode(String data) {
+    return idOf(data) != -1;
+  }
+
+  @Override
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  @Override
+  public boolean insertEdge(String pred, String succ, Double weight) {
+    throw new UnsupportedOperationException("MappedGraph is read-only");
+  }
+
+  @Override
+  public boolean removeEdge(String pred, String succ) {
+    throw new UnsupportedOperationException("MappedGraph is read-only");
+  }
+
+  @Override
+  public boolean containsEdge(String pred, String succ) {
+    return findEdgeIndex(pred, succ) != -1;
+  }
+
+  @Override
+  public Double getEdge(String pred, String succ) {
+    int e = findEdgeIndex(pred, succ);
+    if (e == -1)
+      throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+    return weights.get(e);
+  }
+
+  @Override
+  public Double findEdge(String pred, String succ) {
+    int e = findEdgeIndex(pred, succ);
+    return e == -1 ? null : weights.get(e);
+  }
+
+  @Override
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  @Override
+  public int getModificationCount() {
+    return 0; // mapped files are never changed
+  }
+
+  @Override
+  public List<String> shortestPathData(String start, String end) {
+    return shortestPath(start, end).getNodes();
+  }
+
+  @Override
+  public double shortestPathCost(String start, String end) {
+    int source = endpoint(start);
+    int target = endpoint(end);
+    try (SearchWorkspace workspace = search(source, target)) {
+      return workspace.dist(target);
+    }
+  }
+
+  @Override
+  public PathResult<String> shortestPath(String start, String end) {
+    int source = endpoint(start);
+    int target = endpoint(end);
+    try (SearchWorkspace workspace = search(source, target)) {
+      // count the path's nodes first, so the result lists can be filled from the back
+      int length = 1;
+      for (int v = target; v != source; v = workspace.parent(v))
+        length++;
+      String[] pathNodes = new String[length];
+      Double[] segmentCosts = new Double[length - 1];
+      int index = length - 1;
+      for (int v = target; v != source; v = workspace.parent(v)) {
+        pathNodes[index] = nameOf(v);
+        segmentCosts[--index] = weights.get(workspace.parentEdge(v));
+      }
+      pathNodes[0] = nameOf(source);
+      return new PathResult<>(Arrays.asList(pathNodes), Arrays.asList(segmentCosts),
+          workspace.dist(target));
+    }
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from source until target is settled, reading the edges from the
+   * mapping and keeping the search state in a pooled SearchWorkspace. When this returns, the
+   * workspace holds the cost of the shortest path to target, and following its parents from target
+   * leads back to source.
+   *
+   * @param source the id of the start node
+   * @param target the id of the end node
+   * @return the workspace holding the search's results, which the caller must close
+   * @throws NoSuchElementException if there is no path from source to target
+   */
+  private SearchWorkspace search(int source, int target) {
+    SearchWorkspace workspace = SearchWorkspace.acquire(nodeCount);
+    workspace.start(source);
+    while (!workspace.isEmpty()) {
+      int u = workspace.removeMin();
+      if (u == target)
+        return workspace;
+      double uCost = workspace.dist(u);
+      for (int e = offsets.get(u), last = offsets.get(u + 1); e < last; e++)
+        workspace.relax(targets.get(e), uCost + weights.get(e), u, e);
+    }
+    workspace.close();
+    throw new NoSuchElementException("There is no way to connect start and end node");
+  }
+
+  // returns the id of a query's start or end node
+  private int endpoint(String name) {
+    int id = idOf(name);
+    if (id == -1)
+      throw new NoSuchElementException();
+    return id;
+  }
+
+  // returns the index of the edge from pred to succ, or -1 if there is no such edge
+  private int findEdgeIndex(String pred, String succ) {
+    int u = idOf(pred);
+    int v = idOf(succ);
+    if (u == -1 || v == -1)
+      return -1;
+    for (int e = offsets.get(u), last = offsets.get(u + 1); e < last; e++)
+      if (targets.get(e) == v)
+        return e;
+    return -1;
+  }
+}
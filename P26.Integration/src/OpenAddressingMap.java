@@ -0,0 +1,268 @@
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is a MapADT that stores its keys and values directly in two parallel arrays, using
+ * open addressing with linear probing. A key's home slot is chosen by Fibonacci hashing its
+ * hashCode(), and a key that collides is stored in the next free slot after its home. Every get,
+ * put and remove makes a single probe sequence through those slots, and no entry objects are
+ * allocated. Removing a key shifts the keys probed after it back into the gap, so lookups never
+ * have to step over deleted markers.
+ *
+ * The table doubles in size whenever it becomes fuller than its load factor. A lower load factor
+ * makes probe sequences shorter at the cost of memory. Maps that will hold a known number of keys
+ * can be created at the right size up front, so that they never have to grow.
+ *
+ * @param KeyType   is the type of the keys
+ * @param ValueType is the type of the values
+ */
+public class OpenAddressingMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+  /**
+   * The load factor of maps created without one.
+   */
+  public static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+  private static final int MINIMUM_CAPACITY = 8;
+  private static final int GOLDEN_RATIO = 0x9E3779B9; // 2^32 divided by the golden ratio
+
+  private final float loadFactor; // the most full the table may get before it grows
+  private Object[] keys; // keys[i] is null for empty slots
+  private Object[] values; // values[i] is the value of keys[i]
+  private int size = 0;
+  private int shift; // 32 minus log2 of the capacity, so a hash >>> shift is a slot index
+  private int maxSize; // the number of keys at which the table grows
+
+  /**
+   * Creates an empty map with the default capacity and load factor.
+   */
+  public OpenAddressingMap() {
+    this(MINIMUM_CAPACITY / 2, DEFAULT_LOAD_FACTOR);
+  }
+
+  /**
+   * Creates an empty map large enough to hold expectedSize keys without growing.
+   *
+   * @param expectedSize the number of keys the map is expected to hold
+   */
+  public OpenAddressingMap(int expectedSize) {
+    this(expectedSize, DEFAULT_LOAD_FACTOR);
+  }
+
+  /**
+   * Creates an empty map large enough to hold expectedSize keys without growing, which grows once
+   * it is fuller than loadFactor.
+   *
+   * @param expectedSize the number of keys the map is expected to hold
+   * @param loadFactor   the fraction of slots that may be used before the map grows
+   * @throws IllegalArgumentException if expectedSize is negative or loadFactor is not between 0
+   *                                  and 1 (exclusive)
+   */
+  public OpenAddressingMap(int expectedSize, float loadFactor) {
+    if (expectedSize < 0)
+      throw new IllegalArgumentException("expectedSize must not be negative");
+    if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+      throw new IllegalArgumentException("loadFactor must be between 0 and 1");
+    this.loadFactor = loadFactor;
+    int capacity = MINIMUM_CAPACITY;
+    while ((int) (capacity * loadFactor) <= expectedSize)
+      capacity *= 2;
+    allocate(capacity);
+  }
+
+  @Override
+  public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    int slot = find(key);
+    if (slot >= 0)
+      throw new IllegalArgumentException("key " + key.toString() + " already present in map");
+    slot = -slot - 1;
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size >= maxSize)
+      grow();
+  }
+
+  @Override
+  public boolean containsKey(KeyType key) {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    return find(key) >= 0;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    int slot = find(key);
+    if (slot < 0)
+      throw new NoSuchElementException("key " + key.toString() + " not in map");
+    return (ValueType) values[slot];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType getOrNull(KeyType key) {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    int slot = find(key);
+    return slot < 0 ? null : (ValueType) values[slot];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType remove(KeyType key) throws NoSuchElementException {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    int slot = find(key);
+    if (slot < 0)
+      throw new NoSuchElementException("key " + key.toString() + " not in map");
+    ValueType removed = (ValueType) values[slot];
+    closeGap(slot);
+    size--;
+    return removed;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(keys, null);
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public Collection<ValueType> values() {
+    return new AbstractCollection<ValueType>() {
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public Iterator<ValueType> iterator() {
+        return new Iterator<ValueType>() {
+          private int next = nextFilled(0);
+
+          @Override
+          public boolean hasNext() {
+            return next < keys.length;
+          }
+
+          @Override
+          @SuppressWarnings("unchecked")
+          public ValueType next() {
+            if (next >= keys.length)
+              throw new NoSuchElementException();
+            ValueType value = (ValueType) values[next];
+            next = nextFilled(next + 1);
+            return value;
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public int getCapacity() {
+    return keys.length;
+  }
+
+  @Override
+  public void ensureCapacity(int expectedSize) {
+    int capacity = keys.length;
+    while ((int) (capacity * loadFactor) <= expectedSize)
+      capacity *= 2;
+    if (capacity > keys.length)
+      rehash(capacity);
+  }
+
+  /**
+   * Looks for key along its probe sequence.
+   *
+   * @param key the key to look for
+   * @return the slot holding key, or -(slot + 1) for the empty slot where key would be inserted
+   */
+  private int find(Object key) {
+    int mask = keys.length - 1;
+    for (int slot = home(key); ; slot = (slot + 1) & mask) {
+      Object candidate = keys[slot];
+      if (candidate == null)
+        return -slot - 1;
+      if (candidate == key || candidate.equals(key))
+        return slot;
+    }
+  }
+
+  // returns the slot where key's probe sequence starts
+  private int home(Object key) {
+    int hash = key.hashCode();
+    return ((hash ^ (hash >>> 16)) * GOLDEN_RATIO) >>> shift;
+  }
+
+  /**
+   * Empties a slot, moving later keys of the same run back into the gap whenever the gap lies
+   * between their home slot and their current slot, so that every key stays reachable from its
+   * home slot without passing an empty slot.
+   *
+   * @param gap the slot to empty
+   */
+  private void closeGap(int gap) {
+    int mask = keys.length - 1;
+    for (int slot = (gap + 1) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+      int home = home(keys[slot]);
+      // the key may stay only if its home is cyclically within (gap, slot]
+      boolean stays = gap < slot ? home > gap && home <= slot : home > gap || home <= slot;
+      if (!stays) {
+        keys[gap] = keys[slot];
+        values[gap] = values[slot];
+        gap = slot;
+      }
+    }
+    keys[gap] = null;
+    values[gap] = null;
+  }
+
+  // doubles the capacity, and reinserts every key
+  private void grow() {
+    rehash(keys.length * 2);
+  }
+
+  // replaces the arrays with ones of the provided power of two capacity, and reinserts every key
+  private void rehash(int capacity) {
+    Object[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        int slot = -find(oldKeys[i]) - 1;
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  // replaces the arrays with empty ones of the provided power of two capacity
+  private void allocate(int capacity) {
+    keys = new Object[capacity];
+    values = new Object[capacity];
+    shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    maxSize = Math.min(capacity - 1, (int) (capacity * loadFactor));
+  }
+
+  // returns the first filled slot at or after start, or the capacity if there is none
+  private int nextFilled(int start) {
+    while (start < keys.length && keys[start] == null)
+      start++;
+    return start;
+  }
+}
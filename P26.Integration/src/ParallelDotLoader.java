@@ -0,0 +1,319 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * This class parses large DOT files on several threads at once. The file is split into chunks at
+ * line breaks, and each chunk is parsed by its own DotParser on a ForkJoinPool into a buffer of the
+ * statements it holds. The buffers are then replayed to a single Handler on the calling thread, in
+ * the order the statements appear in the file, so the handler sees exactly what a sequential
+ * DotParser would have reported and does not need to be thread-safe.
+ *
+ * A chunk is parsed on the assumption that it starts between two statements of a graph. That is
+ * not true when a line break inside a statement, quoted string or comment was chosen as its start,
+ * but then the chunk before it ends part way through that statement, and one of the two chunks
+ * fails to parse or ends in the wrong place. Whenever that happens, or the file is not valid DOT,
+ * the whole file is parsed again sequentially, which also reports any syntax error with its real
+ * line number.
+ */
+public class ParallelDotLoader {
+
+  /**
+   * The smallest chunk that files are split into by default. Files smaller than two chunks are
+   * parsed sequentially.
+   */
+  public static final int DEFAULT_MIN_CHUNK_SIZE = 1 << 20;
+
+  private final ForkJoinPool pool;
+  private final int minChunkSize;
+
+  /**
+   * Creates a loader that parses on the common ForkJoinPool.
+   */
+  public ParallelDotLoader() {
+    this(ForkJoinPool.commonPool(), DEFAULT_MIN_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a loader that parses on the provided pool, splitting files into chunks of at least
+   * minChunkSize bytes.
+   *
+   * @param pool         the pool to parse chunks on
+   * @param minChunkSize the smallest chunk to split a file into
+   * @throws IllegalArgumentException if minChunkSize is not positive
+   */
+  public ParallelDotLoader(ForkJoinPool pool, int minChunkSize) {
+    if (pool == null)
+      throw new NullPointerException("pool must not be null");
+    if (minChunkSize < 1)
+      throw new IllegalArgumentException("minChunkSize must be positive");
+    this.pool = pool;
+    this.minChunkSize = minChunkSize;
+  }
+
+  /**
+   * Parses a DOT file, reporting its statements to handler on the calling thread in file order.
+   *
+   * @param file    the file to parse
+   * @param handler receives the nodes and edges read
+   * @return the number of chunks the file was parsed in, which is 1 if it was parsed sequentially
+   * @throws IOException        if the file can not be read
+   * @throws DotSyntaxException if the file is not valid DOT
+   */
+  public int parse(Path file, DotParser.Handler handler) throws IOException {
+    long[] bounds;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      bounds = chunkBounds(channel);
+    }
+    if (bounds.length > 2) {
+      List<ForkJoinTask<StatementBuffer>> tasks = new ArrayList<>();
+      for (int i = 0; i + 1 < bounds.length; i++) {
+        boolean first = i == 0;
+        boolean last = i + 2 == bounds.length;
+        long start = bounds[i];
+        long end = bounds[i + 1];
+        tasks.add(pool.submit(() -> parseChunk(file, start, end, first, last)));
+      }
+      List<StatementBuffer> buffers = new ArrayList<>();
+      for (ForkJoinTask<StatementBuffer> task : tasks)
+        buffers.add(result(task));
+      if (!buffers.contains(null)) {
+        DotParser.Attributes nodeDefaults = new DotParser.Attributes();
+        DotParser.Attributes edgeDefaults = new DotParser.Attributes();
+        DotParser.Attributes attributes = new DotParser.Attributes();
+        for (StatementBuffer buffer : buffers)
+          buffer.replay(handler, nodeDefaults, edgeDefaults, attributes);
+        return buffers.size();
+      }
+    }
+    DotParser.parse(file, handler);
+    return 1;
+  }
+
+  /**
+   * Chooses where the chunks of a file start: at the first byte of a line, as close as possible to
+   * an even split of the file between twice as many chunks as the pool has threads.
+   *
+   * @param channel the file to split
+   * @return the offsets where chunks start, followed by the size of the file
+   * @throws IOException if the file can not be read
+   */
+  private long[] chunkBounds(FileChannel channel) throws IOException {
+    long size = channel.size();
+    int chunks = (int) Math.max(1, Math.min(2L * pool.getParallelism(), size / minChunkSize));
+    long[] bounds = new long[chunks + 1];
+    ByteBuffer window = ByteBuffer.allocate(4096);
+    int count = 1;
+    for (int i = 1; i < chunks; i++) {
+      long start = Math.max(size * i / chunks, bounds[count - 1] + 1);
+      long lineStart = nextLineStart(channel, start, window);
+      if (lineStart < size && lineStart > bounds[count - 1])
+        bounds[count++] = lineStart;
+    }
+    bounds[count++] = size;
+    return Arrays.copyOf(bounds, count);
+  }
+
+  // returns the offset just after the first line break at or after position, or the file's size
+  private static long nextLineStart(FileChannel channel, long position, ByteBuffer window)
+      throws IOException {
+    while (true) {
+      window.clear();
+      int count = channel.read(window, position);
+      if (count < 0)
+        return channel.size();
+      for (int i = 0; i < count; i++)
+        if (window.get(i) == '\n')
+          return position + i + 1;
+      position += count;
+    }
+  }
+
+  /**
+   * Parses bytes start to end of a file into a StatementBuffer.
+   *
+   * @param file  the file to parse
+   * @param start the offset of the chunk's first byte
+   * @param end   the offset after the chunk's last byte
+   * @param first true for the chunk that starts the file, which starts outside of any graph
+   * @param last  true for the chunk that ends the file, which must end outside of any graph
+   * @return the chunk's statements, or null if the chunk could not be parsed on its own
+   * @throws IOException if the file can not be read
+   */
+  private static StatementBuffer parseChunk(Path file, long start, long end, boolean first,
+      boolean last) throws IOException {
+    StatementBuffer buffer = new StatementBuffer();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      channel.position(start);
+      boolean endsInsideGraph =
+          new DotParser(new BoundedChannel(channel, end - start), buffer).parse(!first);
+      return endsInsideGraph != last ? buffer : null;
+    } catch (DotSyntaxException e) {
+      return null;
+    }
+  }
+
+  // waits for a chunk's task, and returns its result
+  private static StatementBuffer result(ForkJoinTask<StatementBuffer> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("interrupted while parsing", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException)
+        throw (IOException) e.getCause();
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * A channel that reads at most a fixed number of bytes from another channel.
+   */
+  private static class BoundedChannel implements ReadableByteChannel {
+    private final ReadableByteChannel channel;
+    private long remaining;
+
+    BoundedChannel(ReadableByteChannel channel, long length) {
+      this.channel = channel;
+      this.remaining = length;
+    }
+
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+      if (remaining == 0)
+        return -1;
+      int limit = destination.limit();
+      if (destination.remaining() > remaining)
+        destination.limit(destination.position() + (int) remaining);
+      int count = channel.read(destination);
+      destination.limit(limit);
+      if (count > 0)
+        remaining -= count;
+      return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  /**
+   * The statements of one chunk, stored in arrays until they are replayed. Only the attributes a
+   * statement sets itself are stored, since node [...] and edge [...] statements in earlier chunks
+   * may change the defaults; replay() applies the defaults in file order instead.
+   */
+  private static class StatementBuffer implements DotParser.Handler {
+    // the kinds of statements
+    private static final byte NODE = 0;
+    private static final byte EDGE = 1;
+    private static final byte DIRECTED_EDGE = 2;
+    private static final byte NODE_DEFAULTS = 3;
+    private static final byte EDGE_DEFAULTS = 4;
+
+    private byte[] kinds = new byte[1024];
+    private String[] names = new String[2048]; // the node, or the two ends of the edge, of each
+    private int[] firstAttribute = new int[1025]; // statement i's attributes are firstAttribute[i]
+                                                  // to firstAttribute[i + 1] - 1
+    private int size = 0;
+    private String[] attributeNames = new String[1024];
+    private int[] valueEnd = new int[1024]; // attribute i's value ends at valueEnd[i] of values
+    private int attributeCount = 0;
+    private byte[] values = new byte[16384];
+    private int valueBytes = 0;
+
+    @Override
+    public void node(String name, DotParser.Attributes attributes) {
+      add(NODE, name, null, attributes);
+    }
+
+    @Override
+    public void edge(String from, String to, boolean directed, DotParser.Attributes attributes) {
+      add(directed ? DIRECTED_EDGE : EDGE, from, to, attributes);
+    }
+
+    @Override
+    public void defaults(boolean edges, DotParser.Attributes attributes) {
+      add(edges ? EDGE_DEFAULTS : NODE_DEFAULTS, null, null, attributes);
+    }
+
+    // stores a statement and the attributes that it sets itself
+    private void add(byte kind, String first, String second, DotParser.Attributes attributes) {
+      if (size == kinds.length) {
+        kinds = Arrays.copyOf(kinds, size * 2);
+        names = Arrays.copyOf(names, size * 4);
+        firstAttribute = Arrays.copyOf(firstAttribute, size * 2 + 1);
+      }
+      kinds[size] = kind;
+      names[2 * size] = first;
+      names[2 * size + 1] = second;
+      for (int i = 0; i < attributes.size(); i++) {
+        int length = attributes.valueLength(i);
+        if (attributeCount == attributeNames.length) {
+          attributeNames = Arrays.copyOf(attributeNames, attributeCount * 2);
+          valueEnd = Arrays.copyOf(valueEnd, attributeCount * 2);
+        }
+        if (valueBytes + length > values.length)
+          values = Arrays.copyOf(values, Math.max(values.length * 2, valueBytes + length));
+        attributes.copyValue(i, values, valueBytes);
+        valueBytes += length;
+        attributeNames[attributeCount] = attributes.name(i);
+        valueEnd[attributeCount++] = valueBytes;
+      }
+      firstAttribute[++size] = attributeCount;
+    }
+
+    /**
+     * Reports every stored statement to handler, in the order they were parsed.
+     *
+     * @param handler      receives the statements
+     * @param nodeDefaults the node defaults set by earlier chunks, which this chunk's node [...]
+     *                     statements add to
+     * @param edgeDefaults the edge defaults set by earlier chunks, which this chunk's edge [...]
+     *                     statements add to
+     * @param attributes   reused to pass each statement's attributes to handler
+     */
+    void replay(DotParser.Handler handler, DotParser.Attributes nodeDefaults,
+        DotParser.Attributes edgeDefaults, DotParser.Attributes attributes) {
+      for (int s = 0; s < size; s++) {
+        byte kind = kinds[s];
+        boolean setsDefaults = kind == NODE_DEFAULTS || kind == EDGE_DEFAULTS;
+        attributes.reset(setsDefaults ? null : kind == NODE ? nodeDefaults : edgeDefaults);
+        for (int a = firstAttribute[s]; a < firstAttribute[s + 1]; a++) {
+          int start = a == 0 ? 0 : valueEnd[a - 1];
+          attributes.set(attributeNames[a], values, start, valueEnd[a] - start);
+        }
+        switch (kind) {
+          case NODE:
+            handler.node(names[2 * s], attributes);
+            break;
+          case EDGE:
+          case DIRECTED_EDGE:
+            handler.edge(names[2 * s], names[2 * s + 1], kind == DIRECTED_EDGE, attributes);
+            break;
+          default:
+            DotParser.Attributes defaults = kind == EDGE_DEFAULTS ? edgeDefaults : nodeDefaults;
+            defaults.setAll(attributes);
+            handler.defaults(kind == EDGE_DEFAULTS, attributes);
+        }
+      }
+    }
+  }
+}
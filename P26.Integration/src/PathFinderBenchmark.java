@@ -0,0 +1,560 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class contains simple wall clock benchmarks for the PathFinder graph classes. Each
+ * benchmark builds a synthetic walking graph (a grid of buildings with randomly weighted paths
+ * between neighbors), warms up, and then times a fixed set of random queries.
+ *
+ * Run with no arguments to run every benchmark, or pass the names of the benchmarks to run.
+ */
+public class PathFinderBenchmark {
+
+  private static final int WARMUP_ROUNDS = 3;
+  private static final int MEASURED_ROUNDS = 5;
+  // results of benchmarked code that computes a value, kept so the JIT can not discard that code
+  private static volatile double sink;
+
+  /**
+   * Runs the benchmarks named in args, or all benchmarks when no names are given.
+   *
+   * @param args the names of the benchmarks to run
+   */
+  public static void main(String[] args) {
+    boolean all = args.length == 0;
+    if (all || contains(args, "frontier"))
+      benchmarkFrontiers(60, 200);
+    if (all || contains(args, "modes"))
+      benchmarkSearchModes(100, 200);
+    if (all || contains(args, "snapshot"))
+      benchmarkSnapshot(100, 200);
+    if (all || contains(args, "hierarchy"))
+      benchmarkHierarchy(100, 200);
+    if (all || contains(args, "adjacency"))
+      benchmarkAdjacency(5000);
+    if (all || contains(args, "map"))
+      benchmarkMaps(100000);
+    if (all || contains(args, "dot"))
+      benchmarkDotLoading(200);
+    if (all || contains(args, "binary"))
+      benchmarkGraphFile(200, 200);
+    if (all || contains(args, "batch"))
+      benchmarkBatch(100, 50, 40);
+  }
+
+  /**
+   * Compares the time taken by point to point queries when DijkstraGraph uses each FrontierType.
+   *
+   * @param side    the number of buildings along each side of the grid graph
+   * @param queries the number of random queries timed in each round
+   */
+  public static void benchmarkFrontiers(int side, int queries) {
+    DijkstraGraph<Integer, Double> graph = gridGraph(side, 42);
+    int[][] pairs = randomPairs(side * side, queries, 7);
+    System.out.println("frontier benchmark: " + graph.getNodeCount() + " nodes, "
+        + graph.getEdgeCount() + " edges, " + queries + " queries");
+    for (FrontierType type : FrontierType.values()) {
+      graph.setFrontierType(type);
+      double millis = time(() -> {
+        for (int[] pair : pairs)
+          graph.shortestPathCost(pair[0], pair[1]);
+      });
+      report(type.toString(), millis, queries);
+    }
+  }
+
+  /**
+   * Compares the time taken by point to point queries when DijkstraGraph uses each SearchMode.
+   *
+   * @param side    the number of buildings along each side of the grid graph
+   * @param queries the number of random queries timed in each round
+   */
+  public static void benchmarkSearchModes(int side, int queries) {
+    DijkstraGraph<Integer, Double> graph = gridGraph(side, 42);
+    int[][] pairs = randomPairs(side * side, queries, 7);
+    System.out.println("search mode benchmark: " + graph.getNodeCount() + " nodes, "
+        + graph.getEdgeCount() + " edges, " + queries + " queries");
+    for (SearchMode mode : SearchMode.values()) {
+      graph.setSearchMode(mode);
+      report(mode.toString(), time(() -> {
+        for (int[] pair : pairs)
+          graph.shortestPathCost(pair[0], pair[1]);
+      }), queries);
+    }
+  }
+
+  /**
+   * Compares the time taken by point to point queries on a DijkstraGraph and on the CompactGraph
+   * snapshot frozen from it.
+   *
+   * @param side    the number of buildings along each side of the grid graph
+   * @param queries the number of random queries timed in each round
+   */
+  public static void benchmarkSnapshot(int side, int queries) {
+    DijkstraGraph<Integer, Double> graph = gridGraph(side, 42);
+    CompactGraph<Integer> snapshot = graph.freeze();
+    int[][] pairs = randomPairs(side * side, queries, 7);
+    System.out.println("snapshot benchmark: " + graph.getNodeCount() + " nodes, "
+        + graph.getEdgeCount() + " edges, " + queries + " queries");
+    report("DijkstraGraph", time(() -> {
+      for (int[] pair : pairs)
+        graph.shortestPathCost(pair[0], pair[1]);
+    }), queries);
+    report("CompactGraph", time(() -> {
+      for (int[] pair : pairs)
+        snapshot.shortestPathCost(pair[0], pair[1]);
+    }), queries);
+  }
+
+  /**
+   * Measures how long it takes to build a ContractionHierarchy, and compares its query time with
+   * Dijkstra's algorithm on the same graph.
+   *
+   * @param side    the number of buildings along each side of the grid graph
+   * @param queries the number of random queries timed in each round
+   */
+  public static void benchmarkHierarchy(int side, int queries) {
+    DijkstraGraph<Integer, Double> graph = gridGraph(side, 42);
+    CompactGraph<Integer> snapshot = graph.freeze();
+    int[][] pairs = randomPairs(side * side, queries, 7);
+    System.out.println("contraction hierarchy benchmark: " + graph.getNodeCount() + " nodes, "
+        + graph.getEdgeCount() + " edges, " + queries + " queries");
+    long begin = System.nanoTime();
+    ContractionHierarchy<Integer> hierarchy = new ContractionHierarchy<>(snapshot);
+    System.out.printf("  preprocessing %.0f ms, %d shortcuts%n", (System.nanoTime() - begin) / 1e6,
+        hierarchy.getShortcutCount());
+    report("DijkstraGraph", time(() -> {
+      for (int[] pair : pairs)
+        graph.shortestPathCost(pair[0], pair[1]);
+    }), queries);
+    report("CompactGraph", time(() -> {
+      for (int[] pair : pairs)
+        snapshot.shortestPathCost(pair[0], pair[1]);
+    }), queries);
+    report("ContractionHierarchy", time(() -> {
+      for (int[] pair : pairs)
+        hierarchy.shortestPathCost(pair[0], pair[1]);
+    }), queries);
+  }
+
+  /**
+   * Compares the cost of relaxing and removing the edges of a single high degree node, when the
+   * node's edges are kept in a LinkedList and when they are kept in the array-backed EdgeList that
+   * BaseGraph uses. Relaxing through the LinkedList reads each edge by index twice, as searches
+   * once did, and removing from it has to find each edge first. The EdgeList reads each edge from
+   * an array, and removes an edge by moving the last edge into the slot the removed edge records.
+   *
+   * @param degree the number of edges leaving the node
+   */
+  public static void benchmarkAdjacency(int degree) {
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    graph.insertNode(0);
+    Random random = new Random(42);
+    for (int i = 1; i <= degree; i++) {
+      graph.insertNode(i);
+      graph.insertEdge(0, i, 40 + random.nextDouble() * 200);
+    }
+    BaseGraph<Integer, Double>.EdgeList edges = graph.nodes.get(0).edgesLeaving;
+    LinkedList<BaseGraph<Integer, Double>.Edge> linked = new LinkedList<>();
+    for (BaseGraph<Integer, Double>.Edge edge : edges)
+      linked.add(edge);
+    List<BaseGraph<Integer, Double>.Edge> removalOrder = new ArrayList<>(linked);
+    Collections.shuffle(removalOrder, random);
+    System.out.println("adjacency benchmark: one node with " + degree + " edges");
+    report("relax LinkedList by index", time(() -> {
+      double total = 0.0;
+      for (int i = 0; i < linked.size(); i++)
+        total += linked.get(i).data + linked.get(i).successor.data;
+      sink = total;
+    }), degree);
+    report("relax EdgeList by index", time(() -> {
+      double total = 0.0;
+      for (int i = 0, size = edges.size(); i < size; i++) {
+        BaseGraph<Integer, Double>.Edge edge = edges.get(i);
+        total += edge.data + edge.successor.data;
+      }
+      sink = total;
+    }), degree);
+    report("search from node", time(() -> {
+      sink = graph.shortestPathCost(0, degree);
+    }), degree);
+    report("remove LinkedList", time(() -> {
+      LinkedList<BaseGraph<Integer, Double>.Edge> copy = new LinkedList<>(linked);
+      for (BaseGraph<Integer, Double>.Edge edge : removalOrder)
+        copy.remove(edge);
+    }), degree);
+    // this list reuses the leaving slots of the star's edges, so the graph is not used afterwards
+    report("remove EdgeList", time(() -> {
+      BaseGraph<Integer, Double>.EdgeList copy = graph.new EdgeList(true);
+      for (BaseGraph<Integer, Double>.Edge edge : linked)
+        copy.add(edge);
+      for (BaseGraph<Integer, Double>.Edge edge : removalOrder)
+        copy.remove(edge);
+    }), degree);
+  }
+
+  /**
+   * Compares OpenAddressingMap with PlaceholderMap, by timing how long each takes to put a set of
+   * building names, get every one of them, check for names that are not there, and remove them
+   * all again. The open-addressing map is measured both growing from its default size and
+   * pre-sized for every key.
+   *
+   * @param keyCount the number of keys to store
+   */
+  public static void benchmarkMaps(int keyCount) {
+    String[] present = new String[keyCount];
+    String[] absent = new String[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      present[i] = "Building " + i;
+      absent[i] = "Missing building " + i;
+    }
+    System.out.println("map benchmark: " + keyCount + " keys");
+    List<MapADT<String, Integer>> maps = List.of(new PlaceholderMap<>(), new OpenAddressingMap<>(),
+        new OpenAddressingMap<>(keyCount));
+    for (int m = 0; m < maps.size(); m++) {
+      MapADT<String, Integer> map = maps.get(m);
+      String name = m == 0 ? "Placeholder" : m == 1 ? "OpenAddressing" : "OpenAddressing sized";
+      report(name + " put", time(() -> {
+        map.clear();
+        for (int i = 0; i < keyCount; i++)
+          map.put(present[i], i);
+      }), keyCount);
+      report(name + " get", time(() -> {
+        long total = 0;
+        for (String key : present)
+          total += map.get(key);
+        sink = total;
+      }), keyCount);
+      report(name + " miss", time(() -> {
+        int found = 0;
+        for (String key : absent)
+          if (map.containsKey(key))
+            found++;
+        sink = found;
+      }), keyCount);
+      report(name + " put+remove", time(() -> {
+        map.clear();
+        for (int i = 0; i < keyCount; i++)
+          map.put(present[i], i);
+        for (String key : present)
+          map.remove(key);
+      }), keyCount);
+    }
+  }
+
+  /**
+   * Builds a side x side grid graph, where each building has a path to and from each of its four
+   * neighbors. Buildings are placed 100 meters apart, and path weights are random walking times
+   * between 40 and 240 seconds, so no path is faster than the default maximum walking speed.
+   *
+   * @param side the number of buildings along each side of the grid
+   * @param seed the seed for the random weights
+   * @return the grid graph, whose nodes are numbered row by row from 0
+   */
+  public static DijkstraGraph<Integer, Double> gridGraph(int side, long seed) {
+    Random random = new Random(seed);
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    for (int i = 0; i < side * side; i++) {
+      graph.insertNode(i);
+      graph.setNodePosition(i, 100.0 * (i % side), 100.0 * (i / side));
+    }
+    for (int row = 0; row < side; row++) {
+      for (int col = 0; col < side; col++) {
+        int node = row * side + col;
+        if (col + 1 < side) {
+          graph.insertEdge(node, node + 1, 40 + random.nextDouble() * 200);
+          graph.insertEdge(node + 1, node, 40 + random.nextDouble() * 200);
+        }
+        if (row + 1 < side) {
+          graph.insertEdge(node, node + side, 40 + random.nextDouble() * 200);
+          graph.insertEdge(node + side, node, 40 + random.nextDouble() * 200);
+        }
+      }
+    }
+    return graph;
+  }
+
+  /**
+   * Picks random (source, destination) pairs of node numbers.
+   *
+   * @param nodeCount the number of nodes to pick from
+   * @param count     the number of pairs to pick
+   * @param seed      the seed for the random choices
+   * @return an array of {source, destination} pairs
+   */
+  public static int[][] randomPairs(int nodeCount, int count, long seed) {
+    Random random = new Random(seed);
+    int[][] pairs = new int[count][2];
+    for (int[] pair : pairs) {
+      pair[0] = random.nextInt(nodeCount);
+      pair[1] = random.nextInt(nodeCount);
+    }
+    return pairs;
+  }
+
+  /**
+   * Runs the task a few times to warm up, and then returns the fastest of several timed runs.
+   *
+   * @param task the code to time
+   * @return the fastest measured running time in milliseconds
+   */
+  public static double time(Runnable task) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++)
+      task.run();
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      long begin = System.nanoTime();
+      task.run();
+      best = Math.min(best, System.nanoTime() - begin);
+    }
+    return best / 1e6;
+  }
+
+  /**
+   * Compares the throughput of loading a DOT file with DotParser against the line by line Scanner
+   * and regular expression loader that Backend used before it. The file lists every path of a side
+   * x side grid of buildings in both directions, like campus.dot does. Parsing alone is measured
+   * too, to separate the cost of reading the file from the cost of building the graph, both
+   * sequentially and with ParallelDotLoader on as many threads as there are processors.
+   *
+   * @param side the number of buildings along each side of the grid
+   */
+  public static void benchmarkDotLoading(int side) {
+    File file;
+    try {
+      file = File.createTempFile("benchmark", ".dot");
+      file.deleteOnExit();
+      writeGridDot(file, side, 42);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    long bytes = file.length();
+    System.out.printf("dot benchmark: %.1f MB, %d buildings%n", bytes / 1e6, side * side);
+    reportThroughput("Scanner and regex", time(() -> scannerLoad(file, new DoubleWeightGraph<>())),
+        bytes);
+    reportThroughput("Backend.readData", time(() -> new Backend().readData(file)), bytes);
+    DotParser.Handler parseOnly = new DotParser.Handler() {
+      public void node(String name, DotParser.Attributes attributes) {
+      }
+
+      public void edge(String from, String to, boolean directed, DotParser.Attributes attributes) {
+        sink = attributes.getDouble("seconds", 0.0);
+      }
+    };
+    reportThroughput("DotParser alone", time(() -> {
+      try {
+        DotParser.parse(file.toPath(), parseOnly);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }), bytes);
+    // parsing alone on 1, 2, 4, ... threads, up to the number of processors
+    for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors();
+        threads *= 2) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      ParallelDotLoader loader = new ParallelDotLoader(pool, 256 * 1024);
+      reportThroughput("ParallelDotLoader x" + threads, time(() -> {
+        try {
+          loader.parse(file.toPath(), parseOnly);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }), bytes);
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Compares loading a grid graph from a DOT file with mapping the same graph from a graph file,
+   * and compares the queries answered by each.
+   *
+   * @param side    the number of buildings along each side of the grid graph
+   * @param queries the number of random queries timed in each round
+   */
+  public static void benchmarkGraphFile(int side, int queries) {
+    File dotFile;
+    File graphFile;
+    try {
+      dotFile = File.createTempFile("benchmark", ".dot");
+      dotFile.deleteOnExit();
+      writeGridDot(dotFile, side, 42);
+      graphFile = File.createTempFile("benchmark", ".pfg");
+      graphFile.deleteOnExit();
+      GraphFile.convert(dotFile, graphFile.toPath());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    System.out.printf("binary benchmark: %.1f MB of DOT, %.1f MB graph file, %d buildings%n",
+        dotFile.length() / 1e6, graphFile.length() / 1e6, side * side);
+    report("Backend.readData .dot", time(() -> new Backend().readData(dotFile)), 1);
+    report("Backend.readData .pfg", time(() -> new Backend().readData(graphFile)), 1);
+
+    MappedGraph mapped;
+    try {
+      mapped = MappedGraph.open(graphFile.toPath());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    DijkstraGraph<String, Double> loaded = new DijkstraGraph<>();
+    scannerLoad(dotFile, loaded);
+    int[][] pairs = randomPairs(side * side, queries, 7);
+    report("DijkstraGraph queries", time(() -> {
+      for (int[] pair : pairs)
+        sink = loaded.shortestPathCost("Building " + pair[0], "Building " + pair[1]);
+    }), queries);
+    report("MappedGraph queries", time(() -> {
+      for (int[] pair : pairs)
+        sink = mapped.shortestPathCost("Building " + pair[0], "Building " + pair[1]);
+    }), queries);
+  }
+
+  /**
+   * Compares answering a file of queries with BatchRouter, which searches once per source, against
+   * asking the Backend for each query in turn. Every source is queried for several destinations,
+   * the way nightly jobs list them.
+   *
+   * @param side         the number of buildings along each side of the grid
+   * @param sources      the number of distinct sources queried
+   * @param destinations the number of destinations queried from each source
+   */
+  public static void benchmarkBatch(int side, int sources, int destinations) {
+    Backend backend = new Backend();
+    try {
+      File dotFile = File.createTempFile("benchmark", ".dot");
+      dotFile.deleteOnExit();
+      writeGridDot(dotFile, side, 42);
+      backend.readData(dotFile);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    int[][] pairs = randomPairs(side * side, sources * destinations, 7);
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < pairs.length; i++)
+      text.append("Building ").append(pairs[i / destinations * destinations][0])
+          .append(",Building ").append(pairs[i][1]).append('\n');
+    String queries = text.toString();
+    System.out.println("batch benchmark: " + side * side + " buildings, " + sources
+        + " sources, " + pairs.length + " queries");
+    report("one query at a time", time(() -> {
+      for (int i = 0; i < pairs.length; i++)
+        sink = backend.getSnapshot().getGraph().shortestPathCost(
+            "Building " + pairs[i / destinations * destinations][0], "Building " + pairs[i][1]);
+    }), pairs.length);
+    BatchRouter router = new BatchRouter(backend);
+    router.setIncludePaths(false);
+    report("BatchRouter", time(() -> {
+      try {
+        router.run(new BufferedReader(new StringReader(queries)), OutputStream.nullOutputStream());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }), pairs.length);
+  }
+
+  /**
+   * Loads a DOT file the way Backend.readData() did before DotParser, reading it line by line with
+   * a Scanner and matching each edge line against a regular expression.
+   *
+   * @param file  the DOT file to load
+   * @param graph the graph to load it into
+   */
+  static void scannerLoad(File file, GraphADT<String, Double> graph) {
+    try (Scanner scanner = new Scanner(file)) {
+      Pattern pattern =
+          Pattern.compile("\"([^\"]+)\"\\s*--\\s*\"([^\"]+)\"\\s*\\[seconds=(\\d+\\.?\\d*)\\]");
+      while (scanner.hasNextLine()) {
+        String line = scanner.nextLine();
+        if (line.contains("seconds")) {
+          Matcher matcher = pattern.matcher(line);
+          if (matcher.find()) {
+            String node1 = matcher.group(1);
+            String node2 = matcher.group(2);
+            double seconds = Double.parseDouble(matcher.group(3));
+            if (!graph.containsNode(node1))
+              graph.insertNode(node1);
+            if (!graph.containsNode(node2))
+              graph.insertNode(node2);
+            if (!graph.containsEdge(node1, node2))
+              graph.insertEdge(node1, node2, seconds);
+            else
+              graph.insertEdge(node2, node1, seconds);
+          }
+        }
+      }
+    } catch (FileNotFoundException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Writes the paths of a side x side grid of buildings to a DOT file, listing each path once in
+   * each direction with a random walking time.
+   *
+   * @param file the file to write
+   * @param side the number of buildings along each side of the grid
+   * @param seed the seed for the random walking times
+   * @throws IOException if the file can not be written
+   */
+  static void writeGridDot(File file, int side, long seed) throws IOException {
+    Random random = new Random(seed);
+    try (PrintWriter out = new PrintWriter(file)) {
+      out.println("graph grid {");
+      for (int i = 0; i < side * side; i++) {
+        for (int j : new int[] {i + 1, i + side}) {
+          if ((j == i + 1 && j % side == 0) || j >= side * side)
+            continue;
+          double seconds = 30.0 + random.nextInt(3000) / 10.0;
+          out.println("\t\"Building " + i + "\" -- \"Building " + j + "\" [seconds=" + seconds + "];");
+          out.println("\t\"Building " + j + "\" -- \"Building " + i + "\" [seconds=" + seconds + "];");
+        }
+      }
+      out.println("}");
+    }
+  }
+
+  /**
+   * Prints one line of throughput results.
+   *
+   * @param label  the name of what was measured
+   * @param millis the measured running time in milliseconds
+   * @param bytes  the number of bytes processed in that time
+   */
+  public static void reportThroughput(String label, double millis, long bytes) {
+    System.out.printf("  %-28s %10.2f ms %12.1f MB/s%n", label, millis, bytes / 1e3 / millis);
+  }
+
+  /**
+   * Prints one line of benchmark results.
+   *
+   * @param label      the name of what was measured
+   * @param millis     the measured running time in milliseconds
+   * @param operations the number of operations performed in that time
+   */
+  public static void report(String label, double millis, int operations) {
+    System.out.printf("  %-28s %10.2f ms %12.1f us/op%n", label, millis,
+        millis * 1000 / operations);
+  }
+
+  // checks whether name is one of the provided benchmark names
+  private static boolean contains(String[] names, String name) {
+    for (String candidate : names)
+      if (candidate.equals(name))
+        return true;
+    return false;
+  }
+}
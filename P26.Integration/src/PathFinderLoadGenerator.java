@@ -0,0 +1,259 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class measures a PathFinderServer by sending it route queries between random buildings
+ * from several threads at once, and reports the throughput and the latency percentiles it saw.
+ * Each request asks /route, /walking-times or /total-time, chosen at random like the buildings.
+ *
+ * Run this class with a graph file to start a server for it on a free localhost port and measure
+ * that, so that everything runs offline, or add --url to measure a server that is already running
+ * with the same file.
+ */
+public final class PathFinderLoadGenerator {
+
+  private static final String[] ENDPOINTS = {"/route", "/walking-times", "/total-time"};
+
+  private PathFinderLoadGenerator() {
+  }
+
+  /**
+   * The measurements of one run.
+   */
+  public static final class Report {
+    private final int requests;
+    private final int notFound;
+    private final int errors;
+    private final double seconds;
+    private final long[] latencies; // of every request, in nanoseconds, sorted
+
+    Report(int requests, int notFound, int errors, double seconds, long[] latencies) {
+      this.requests = requests;
+      this.notFound = notFound;
+      this.errors = errors;
+      this.seconds = seconds;
+      this.latencies = latencies;
+    }
+
+    /**
+     * Returns the number of requests sent.
+     *
+     * @return the request count
+     */
+    public int getRequests() {
+      return requests;
+    }
+
+    /**
+     * Returns the number of requests answered with status 404, for routes between buildings that
+     * no path connects. These are answers, not errors.
+     *
+     * @return the count of routes not found
+     */
+    public int getNotFound() {
+      return notFound;
+    }
+
+    /**
+     * Returns the number of requests that failed, or were answered with a status other than 200 or
+     * 404.
+     *
+     * @return the error count
+     */
+    public int getErrors() {
+      return errors;
+    }
+
+    /**
+     * Returns the number of requests answered per second, over the whole run.
+     *
+     * @return the throughput
+     */
+    public double getThroughput() {
+      return requests / seconds;
+    }
+
+    /**
+     * Returns the latency that the provided fraction of requests were answered within.
+     *
+     * @param fraction a fraction from 0.0 to 1.0, such as 0.99 for the 99th percentile
+     * @return that latency in milliseconds
+     */
+    public double getLatencyPercentile(double fraction) {
+      int index = (int) Math.ceil(fraction * latencies.length) - 1;
+      return latencies[Math.max(0, Math.min(latencies.length - 1, index))] / 1e6;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d requests (%d without a route), %d errors, %.0f requests/s,"
+          + " latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms", requests, notFound,
+          errors, getThroughput(), getLatencyPercentile(0.50), getLatencyPercentile(0.90),
+          getLatencyPercentile(0.99), getLatencyPercentile(1.0));
+    }
+  }
+
+  /**
+   * Sends requests for random routes between buildings to a server, from concurrency threads at
+   * once, and measures how long each takes to be answered.
+   *
+   * @param base        the address of the server, such as http://localhost:8080
+   * @param buildings   the buildings to pick the ends of each route from
+   * @param concurrency the number of requests in flight at once
+   * @param requests    the total number of requests to send
+   * @param seed        the seed of the random choice of routes
+   * @return the measurements
+   * @throws InterruptedException if interrupted while waiting for the requests
+   */
+  public static Report run(URI base, List<String> buildings, int concurrency, int requests,
+      long seed) throws InterruptedException {
+    if (concurrency < 1 || requests < 1 || buildings.isEmpty())
+      throw new IllegalArgumentException("needs buildings, requests and a concurrency of at least 1");
+    Random random = new Random(seed);
+    URI[] uris = new URI[requests];
+    for (int i = 0; i < requests; i++)
+      uris[i] = base.resolve(ENDPOINTS[random.nextInt(ENDPOINTS.length)] + "?from="
+          + encode(buildings.get(random.nextInt(buildings.size()))) + "&to="
+          + encode(buildings.get(random.nextInt(buildings.size()))));
+
+    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    long[] latencies = new long[requests];
+    AtomicInteger next = new AtomicInteger();
+    AtomicLong notFound = new AtomicLong();
+    AtomicLong errors = new AtomicLong();
+    ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+    long begin = System.nanoTime();
+    for (int t = 0; t < concurrency; t++) {
+      workers.execute(() -> {
+        for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+          long start = System.nanoTime();
+          try {
+            HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uris[i]).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 404)
+              notFound.incrementAndGet();
+            else if (response.statusCode() != 200)
+              errors.incrementAndGet();
+          } catch (IOException e) {
+            errors.incrementAndGet();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+          latencies[i] = System.nanoTime() - start;
+        }
+      });
+    }
+    workers.shutdown();
+    if (!workers.awaitTermination(1, TimeUnit.HOURS))
+      workers.shutdownNow();
+    double seconds = (System.nanoTime() - begin) / 1e9;
+    Arrays.sort(latencies);
+    return new Report(requests, (int) notFound.get(), (int) errors.get(), seconds,
+        latencies);
+  }
+
+  /**
+   * Measures a server on the command line.
+   *
+   * @param args the DOT or graph file the server answers from, optionally followed by --url and
+   *             the server's address, --requests and a count (10000 by default), and
+   *             --concurrency and a count (16 by default)
+   * @throws IOException          if the file can not be read, or a server can not be started
+   * @throws InterruptedException if interrupted while waiting for the requests
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    String dataFile = null;
+    String url = null;
+    int requests = 10000;
+    int concurrency = 16;
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if (args[i].equals("--url"))
+          url = args[++i];
+        else if (args[i].equals("--requests"))
+          requests = Integer.parseInt(args[++i]);
+        else if (args[i].equals("--concurrency"))
+          concurrency = Integer.parseInt(args[++i]);
+        else
+          dataFile = args[i];
+      }
+    } catch (RuntimeException e) {
+      dataFile = null; // a missing or invalid option value
+    }
+    if (dataFile == null || requests < 1 || concurrency < 1) {
+      System.err.println("usage: java PathFinderLoadGenerator <graph.dot|graph.pfg> [--url base]"
+          + " [--requests n] [--concurrency n]");
+      System.exit(2);
+    }
+
+    PathFinderServer server = null;
+    List<String> buildings;
+    if (url == null) {
+      server = new PathFinderServer(Backend::new, new File(dataFile),
+          new InetSocketAddress("localhost", 0));
+      server.start();
+      url = "http://localhost:" + server.getPort();
+      buildings = buildings(server.getBackend());
+    } else {
+      Backend backend = new Backend();
+      if (!backend.readData(new File(dataFile)))
+        throw new IOException("could not read " + dataFile);
+      buildings = buildings(backend);
+    }
+    try {
+      // a first, shorter run warms up both ends before the measured one
+      run(URI.create(url), buildings, concurrency, Math.max(1, requests / 10), 1);
+      System.out.println(run(URI.create(url), buildings, concurrency, requests, 2));
+    } finally {
+      if (server != null)
+        server.stop(0);
+    }
+  }
+
+  /**
+   * Returns the names of every building a Backend's current snapshot holds.
+   *
+   * @param backend the backend to list the buildings of
+   * @return the building names
+   * @throws IllegalArgumentException if the snapshot's graph can not list its buildings
+   */
+  static List<String> buildings(Backend backend) {
+    GraphADT<String, Double> graph = backend.getSnapshot().getGraph();
+    List<String> buildings = new ArrayList<>();
+    if (graph instanceof CompactGraph) {
+      CompactGraph<String> compact = (CompactGraph<String>) graph;
+      for (int id = 0; id < compact.getNodeCount(); id++)
+        buildings.add(compact.dataOf(id));
+    } else if (graph instanceof MappedGraph) {
+      MappedGraph mapped = (MappedGraph) graph;
+      for (int id = 0; id < mapped.getNodeCount(); id++)
+        buildings.add(mapped.nameOf(id));
+    } else {
+      throw new IllegalArgumentException("can not list the buildings of a "
+          + graph.getClass().getSimpleName());
+    }
+    return buildings;
+  }
+
+  // encodes a building name as a query parameter value
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+  }
+}
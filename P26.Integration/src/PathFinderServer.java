@@ -0,0 +1,347 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * This class serves a Backend over HTTP with the JDK's built-in com.sun.net.httpserver, so that
+ * other programs can ask for routes without going through the Frontend. Every answer is a JSON
+ * object, and errors are reported with an HTTP status and an "error" field:
+ * <ul>
+ * <li>GET /route?from=A&amp;to=B answers with the source, destination, path, walkingTimes and
+ * totalTime of the shortest route from A to B</li>
+ * <li>GET /walking-times?from=A&amp;to=B answers with only its walkingTimes</li>
+ * <li>GET /total-time?from=A&amp;to=B answers with only its totalTime</li>
+ * <li>GET /statistics answers with the number of buildings and edges and the totalWalkingTime, as
+ * Backend.pathData() reports them</li>
+ * <li>POST /reload reads the server's data file again into a new Backend, and then replaces the
+ * served Backend with it, answering with the new statistics</li>
+ * </ul>
+ * A building that is not in the graph, or a route that does not exist, is a 404; a missing query
+ * parameter is a 400.
+ *
+ * Queries run lock-free on the served Backend's snapshot, so each request gets its own virtual
+ * thread where the JDK has them. Otherwise requests share a fixed pool of one platform thread per
+ * core, since queries never block and more threads would only add memory. Either way, searches
+ * borrow their arrays from a bounded pool shared by all threads. A reload builds the new Backend
+ * off to the side, so requests keep being answered from the old one until it is ready. Only the
+ * data file the server was started with is ever read, whatever a request asks.
+ *
+ * Run this class with a graph file, and optionally --port and --host, to serve it until stopped.
+ */
+public final class PathFinderServer {
+
+  /**
+   * The port the server listens on when main() is not given one.
+   */
+  public static final int DEFAULT_PORT = 8080;
+
+  static {
+    // Without TCP_NODELAY, each small answer waits out the client's delayed ACK, which held
+    // localhost requests at about 40 ms each. The JDK reads this once, when it creates its first
+    // server, so it is only set here when nothing has set it already.
+    if (System.getProperty("sun.net.httpserver.nodelay") == null)
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  private final Supplier<Backend> backends;
+  private final File dataFile;
+  private final AtomicReference<Backend> backend = new AtomicReference<>();
+  private final Object reloadLock = new Object(); // held by reloads, so that they do not overlap
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final boolean virtualThreads;
+
+  /**
+   * Creates a server for the data in dataFile, and reads it into a first Backend. The server does
+   * not accept requests until start() is called.
+   *
+   * @param backends creates each Backend that the data file is read into, such as Backend::new
+   * @param dataFile the DOT or graph file to serve, which /reload reads again
+   * @param address  the address to listen on, where a port of 0 picks any free port
+   * @throws IOException if the data file can not be read, or the address can not be bound
+   */
+  public PathFinderServer(Supplier<Backend> backends, File dataFile, InetSocketAddress address)
+      throws IOException {
+    this.backends = backends;
+    this.dataFile = dataFile;
+    backend.set(load());
+    ExecutorService virtual = newVirtualThreadExecutor();
+    virtualThreads = virtual != null;
+    executor = virtualThreads ? virtual
+        : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    server = HttpServer.create(address, 0);
+    server.setExecutor(executor);
+    server.createContext("/route", route(this::routeAnswer));
+    server.createContext("/walking-times", route((text, backend, from, to) -> {
+      appendNumbers(text.append("{\"walkingTimes\":"), backend.getWalkingTimes(from, to));
+      text.append('}');
+    }));
+    server.createContext("/total-time", route((text, backend, from, to) ->
+        text.append("{\"totalTime\":").append(backend.getTotalTime(from, to)).append('}')));
+    server.createContext("/statistics", exchange -> {
+      if (checkMethod(exchange, "GET"))
+        send(exchange, 200, statistics(backend.get()));
+    });
+    server.createContext("/reload", exchange -> {
+      if (!checkMethod(exchange, "POST"))
+        return;
+      try {
+        send(exchange, 200, statistics(reload()));
+      } catch (IOException e) {
+        sendError(exchange, 500, e.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Starts accepting requests.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Stops accepting requests, waits up to delaySeconds for the requests being answered to finish,
+   * and then shuts down the request threads.
+   *
+   * @param delaySeconds the longest time to wait for requests to finish
+   */
+  public void stop(int delaySeconds) {
+    server.stop(delaySeconds);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Returns the port the server listens on, which is the one picked for it when it was created
+   * with port 0.
+   *
+   * @return the server's port
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Returns whether requests are answered on virtual threads, which needs a JDK that has them.
+   *
+   * @return true for virtual threads, or false for a fixed pool of platform threads
+   */
+  public boolean usesVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * Returns the Backend that requests are currently answered by.
+   *
+   * @return the served Backend
+   */
+  public Backend getBackend() {
+    return backend.get();
+  }
+
+  /**
+   * Reads the data file into a new Backend, and serves that Backend from then on. Requests that
+   * arrive while the file is read are answered by the old Backend.
+   *
+   * @return the new Backend
+   * @throws IOException if the data file can not be read, in which case the old Backend is kept
+   */
+  public Backend reload() throws IOException {
+    synchronized (reloadLock) {
+      Backend loaded = load();
+      backend.set(loaded);
+      return loaded;
+    }
+  }
+
+  /**
+   * Serves a data file on the command line until the process is stopped.
+   *
+   * @param args the DOT or graph file to serve, optionally followed by --port and a port number,
+   *             and --host and the name or address to listen on (localhost by default)
+   * @throws IOException if the file can not be read, or the address can not be bound
+   */
+  public static void main(String[] args) throws IOException {
+    String dataFile = null;
+    String host = "localhost";
+    int port = DEFAULT_PORT;
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if (args[i].equals("--port"))
+          port = Integer.parseInt(args[++i]);
+        else if (args[i].equals("--host"))
+          host = args[++i];
+        else
+          dataFile = args[i];
+      }
+    } catch (RuntimeException e) {
+      dataFile = null; // a missing or invalid option value
+    }
+    if (dataFile == null) {
+      System.err.println("usage: java PathFinderServer <graph.dot|graph.pfg> [--port n]"
+          + " [--host name]");
+      System.exit(2);
+    }
+    PathFinderServer server =
+        new PathFinderServer(Backend::new, new File(dataFile), new InetSocketAddress(host, port));
+    server.start();
+    System.err.println("serving " + dataFile + " on http://" + host + ":" + server.getPort()
+        + (server.usesVirtualThreads() ? " with virtual threads" : ""));
+  }
+
+  /**
+   * Creates an executor that runs each task on a new virtual thread, if this JDK has virtual
+   * threads. It is looked up by reflection, so that the server still compiles and runs on JDKs
+   * from before Java 21.
+   *
+   * @return the executor, or null if virtual threads are not available
+   */
+  static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    } catch (InvocationTargetException e) {
+      return null; // a JDK where virtual threads are a preview feature that is not enabled
+    }
+  }
+
+  // reads the data file into a new Backend
+  private Backend load() throws IOException {
+    Backend loaded = backends.get();
+    if (!loaded.readData(dataFile))
+      throw new IOException("could not read " + dataFile);
+    return loaded;
+  }
+
+  /**
+   * Writes the answer to one route query.
+   */
+  private interface RouteAnswer {
+    /**
+     * Appends the JSON answer for the route from source to destination to text.
+     *
+     * @param text        where the answer is written
+     * @param backend     the Backend to answer with
+     * @param source      the building the route starts at
+     * @param destination the building the route ends at
+     * @throws NoSuchElementException if either building or the route does not exist
+     */
+    void append(StringBuilder text, Backend backend, String source, String destination);
+  }
+
+  // handles GET requests with from and to parameters by answering them with answer
+  private HttpHandler route(RouteAnswer answer) {
+    return exchange -> {
+      if (!checkMethod(exchange, "GET"))
+        return;
+      Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+      String from = parameters.get("from");
+      String to = parameters.get("to");
+      if (from == null || to == null) {
+        sendError(exchange, 400, "the from and to parameters are required");
+        return;
+      }
+      StringBuilder text = new StringBuilder();
+      try {
+        answer.append(text, backend.get(), from, to);
+      } catch (NoSuchElementException e) {
+        sendError(exchange, 404, "no route from " + from + " to " + to);
+        return;
+      }
+      send(exchange, 200, text);
+    };
+  }
+
+  // appends the whole route from source to destination to text
+  private void routeAnswer(StringBuilder text, Backend backend, String source,
+      String destination) {
+    PathResult<String> path = backend.findPath(source, destination);
+    BatchRouter.appendJson(text.append("{\"source\":"), source).append(",\"destination\":");
+    BatchRouter.appendJson(text, destination).append(",\"path\":[");
+    List<String> nodes = path.getNodes();
+    for (int i = 0; i < nodes.size(); i++)
+      BatchRouter.appendJson(i == 0 ? text : text.append(','), nodes.get(i));
+    appendNumbers(text.append("],\"walkingTimes\":"), path.getSegmentCosts());
+    text.append(",\"totalTime\":").append(path.getTotalCost()).append('}');
+  }
+
+  // returns the statistics of a Backend as a JSON object
+  private static StringBuilder statistics(Backend backend) {
+    List<Double> data = backend.pathData();
+    return new StringBuilder().append("{\"buildings\":").append(data.get(0).longValue())
+        .append(",\"edges\":").append(data.get(1).longValue())
+        .append(",\"totalWalkingTime\":").append(data.get(2)).append('}');
+  }
+
+  // appends numbers to text as a JSON array
+  private static void appendNumbers(StringBuilder text, List<Double> numbers) {
+    text.append('[');
+    for (int i = 0; i < numbers.size(); i++)
+      (i == 0 ? text : text.append(',')).append(numbers.get(i));
+    text.append(']');
+  }
+
+  // decodes the parameters of a raw query string, keeping the first value of each name
+  private static Map<String, String> parameters(String query) {
+    Map<String, String> parameters = new HashMap<>();
+    if (query == null)
+      return parameters;
+    for (String pair : query.split("&")) {
+      int equals = pair.indexOf('=');
+      if (equals <= 0)
+        continue;
+      try {
+        parameters.putIfAbsent(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+            URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+      } catch (IllegalArgumentException e) {
+        // skip parameters with malformed % escapes
+      }
+    }
+    return parameters;
+  }
+
+  // answers with a 405 unless the request uses method
+  private static boolean checkMethod(HttpExchange exchange, String method) throws IOException {
+    if (exchange.getRequestMethod().equals(method))
+      return true;
+    exchange.getResponseHeaders().set("Allow", method);
+    sendError(exchange, 405, "use " + method);
+    return false;
+  }
+
+  // answers with an error status and a JSON object holding message
+  private static void sendError(HttpExchange exchange, int status, String message)
+      throws IOException {
+    send(exchange, status, BatchRouter.appendJson(new StringBuilder("{\"error\":"), message)
+        .append('}'));
+  }
+
+  // answers with a status and a JSON body
+  private static void send(HttpExchange exchange, int status, CharSequence json)
+      throws IOException {
+    byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
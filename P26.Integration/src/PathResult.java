@@ -0,0 +1,89 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class holds everything a single shortest path search learns about one route: the data from
+ * each node along the path (in order from start to end), the weight of each edge between
+ * consecutive nodes, and the total cost of the path. PathResult objects are immutable.
+ *
+ * @param NodeType is the data type stored at each graph node
+ */
+public class PathResult<NodeType> {
+
+  private final List<NodeType> nodes; // node data from start to end
+  private final List<Double> segmentCosts; // segmentCosts.get(i) is the cost from node i to i+1
+  private final double totalCost; // sum of all segment costs
+
+  /**
+   * Creates a PathResult from the nodes along a path and the costs of the edges between them.
+   *
+   * @param nodes        the data from each node along the path, from start to end
+   * @param segmentCosts the weight of each edge along the path, in the same order
+   * @param totalCost    the total cost of the path
+   * @throws IllegalArgumentException if nodes is empty, or there is not exactly one segment cost
+   *                                  between each pair of consecutive nodes
+   */
+  public PathResult(List<NodeType> nodes, List<Double> segmentCosts, double totalCost) {
+    if (nodes.isEmpty())
+      throw new IllegalArgumentException("a path must contain at least one node");
+    if (segmentCosts.size() != nodes.size() - 1)
+      throw new IllegalArgumentException(
+          "a path of " + nodes.size() + " nodes needs " + (nodes.size() - 1) + " segment costs");
+    this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+    this.segmentCosts = Collections.unmodifiableList(new ArrayList<>(segmentCosts));
+    this.totalCost = totalCost;
+  }
+
+  /**
+   * Returns the data from each node along this path, starting with the start node's data and
+   * ending with the end node's data.
+   *
+   * @return an unmodifiable list of node data along this path
+   */
+  public List<NodeType> getNodes() {
+    return nodes;
+  }
+
+  /**
+   * Returns the weight of each edge along this path. The cost at index i is the weight of the edge
+   * from getNodes().get(i) to getNodes().get(i + 1).
+   *
+   * @return an unmodifiable list of segment costs along this path
+   */
+  public List<Double> getSegmentCosts() {
+    return segmentCosts;
+  }
+
+  /**
+   * Returns the total cost of this path (the sum of its segment costs).
+   *
+   * @return the total cost of this path
+   */
+  public double getTotalCost() {
+    return totalCost;
+  }
+
+  /**
+   * Returns the data in the first node of this path.
+   *
+   * @return the start of this path
+   */
+  public NodeType getStart() {
+    return nodes.get(0);
+  }
+
+  /**
+   * Returns the data in the last node of this path.
+   *
+   * @return the end of this path
+   */
+  public NodeType getEnd() {
+    return nodes.get(nodes.size() - 1);
+  }
+
+  @Override
+  public String toString() {
+    return nodes.toString() + " (total cost " + totalCost + ")";
+  }
+}
@@ -1,3 +1,5 @@
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.NoSuchElementException;
 
@@ -29,12 +31,20 @@ public class PlaceholderMap<KeyType, ValueType> implements MapADT<KeyType, Value
     public ValueType get(KeyType key) throws NoSuchElementException {
         if (key == null)
             throw new NullPointerException("null keys not allowed");
-        if (baseMap.containsKey(key)) {
-            return baseMap.get(key);
+        ValueType value = baseMap.get(key);
+        if (value != null || baseMap.containsKey(key)) {
+            return value;
         }
         throw new NoSuchElementException("key " + key.toString() + " not in map");
     }
 
+    @Override
+    public ValueType getOrNull(KeyType key) {
+        if (key == null)
+            throw new NullPointerException("null keys not allowed");
+        return baseMap.get(key);
+    }
+
     @Override
     public ValueType remove(KeyType key) throws NoSuchElementException {
         if (key == null)
@@ -55,6 +65,11 @@ public class PlaceholderMap<KeyType, ValueType> implements MapADT<KeyType, Value
         return baseMap.size();
     }
 
+    @Override
+    public Collection<ValueType> values() {
+        return Collections.unmodifiableCollection(baseMap.values());
+    }
+
     @Override
     public int getCapacity() {
         throw new UnsupportedOperationException("PlaceholderMap does not support the .getCapacity() method");
@@ -0,0 +1,522 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is the base of the graphs that store their edge weights in primitive arrays instead
+ * of as boxed Number objects. Each node's data is given a dense integer id, and each node keeps the
+ * ids of its successors in a growable int array. The weights are kept by subclasses in a parallel
+ * primitive array per node, so that a shortest path search reads them without unboxing anything.
+ *
+ * Searches keep their distances, parents and heap in a SearchWorkspace taken from a pool that every
+ * thread shares. Once the pool is warm, a search therefore allocates nothing at all; only building
+ * the returned path does. Several threads may search the graph at once, but like BaseGraph, this
+ * class is not thread-safe while it is being changed.
+ *
+ * Finding a particular edge scans the predecessor's successor array, which is fast for the small
+ * degrees of walking graphs. Node positions, which A* searches estimate remaining costs from, are
+ * kept in parallel primitive arrays by node id, like BaseGraph keeps them in each Node.
+ *
+ * @param NodeType is the data type stored at each graph node
+ * @param EdgeType is the numeric type of the edge weights
+ */
+public abstract class PrimitiveWeightGraph<NodeType, EdgeType extends Number>
+    implements GraphADT<NodeType, EdgeType> {
+
+  private static final int INITIAL_DEGREE_CAPACITY = 4;
+
+  protected final SymbolTable<NodeType> symbols = new SymbolTable<>(); // ids of node data
+  protected boolean[] present = new boolean[16]; // false for ids whose node was removed
+  protected int[][] targets = new int[16][]; // targets[u][0 .. outDegree[u]) are u's successors
+  protected int[] outDegree = new int[16];
+  protected int[][] sources = new int[16][]; // sources[v][0 .. inDegree[v]) are v's predecessors
+  protected int[] inDegree = new int[16];
+  // optional position of each node: planar meters, or longitude (x) and latitude (y) in degrees
+  // when geographic is true. NaN when the position is unknown
+  protected double[] xs = newUnknownPositions(16);
+  protected double[] ys = newUnknownPositions(16);
+  protected boolean[] geographic = new boolean[16];
+  protected int nodeCount = 0;
+  protected int edgeCount = 0;
+  protected int modificationCount = 0;
+
+  /**
+   * Returns the weight of the edge stored at index i of u's successor array.
+   *
+   * @param u the id of the edge's predecessor
+   * @param i the index of the edge among u's leaving edges
+   * @return the weight of that edge
+   */
+  protected abstract double weight(int u, int i);
+
+  /**
+   * Returns the weight of the edge stored at index i of u's successor array as an EdgeType.
+   *
+   * @param u the id of the edge's predecessor
+   * @param i the index of the edge among u's leaving edges
+   * @return the weight of that edge
+   */
+  protected abstract EdgeType boxedWeight(int u, int i);
+
+  /**
+   * Stores the weight of the edge at index i of u's successor array, growing u's weight array to
+   * at least capacity entries first if needed.
+   *
+   * @param u        the id of the edge's predecessor
+   * @param i        the index of the edge among u's leaving edges
+   * @param weight   the weight to store
+   * @param capacity the length of u's successor array
+   */
+  protected abstract void storeWeight(int u, int i, EdgeType weight, int capacity);
+
+  /**
+   * Copies the weight stored at index from of u's weight array to index to.
+   *
+   * @param u    the id of the edges' predecessor
+   * @param from the index to copy from
+   * @param to   the index to copy to
+   */
+  protected abstract void moveWeight(int u, int from, int to);
+
+  /**
+   * Grows the per node weight storage so that it holds at least capacity nodes.
+   *
+   * @param capacity the number of node ids to make room for
+   */
+  protected abstract void growNodes(int capacity);
+
+  @Override
+  public boolean insertNode(NodeType data) {
+    int id = symbols.intern(data); // throws NPE when data is null
+    if (id == present.length)
+      growAllNodes(id * 2);
+    if (!addNode(id))
+      return false;
+    modificationCount++;
+    return true;
+  }
+
+  // makes the node with an interned id present, without counting it as a change
+  private boolean addNode(int id) {
+    if (present[id])
+      return false;
+    present[id] = true;
+    targets[id] = new int[INITIAL_DEGREE_CAPACITY];
+    sources[id] = new int[INITIAL_DEGREE_CAPACITY];
+    xs[id] = Double.NaN; // a node that was removed and inserted again has no position
+    ys[id] = Double.NaN;
+    nodeCount++;
+    return true;
+  }
+
+  @Override
+  public boolean removeNode(NodeType data) {
+    int u = liveId(data);
+    if (u == -1)
+      return false;
+    int removedEdges = outDegree[u] + inDegree[u];
+    for (int i = 0; i < outDegree[u]; i++) {
+      int v = targets[u][i];
+      if (v == u)
+        removedEdges--; // a loop is both a leaving and an entering edge of u
+      else
+        removeSource(v, u);
+    }
+    for (int i = 0; i < inDegree[u]; i++) {
+      int w = sources[u][i];
+      if (w != u)
+        removeTarget(w, indexOf(w, u));
+    }
+    outDegree[u] = 0;
+    inDegree[u] = 0;
+    present[u] = false;
+    edgeCount -= removedEdges;
+    nodeCount--;
+    modificationCount++;
+    return true;
+  }
+
+  @Override
+  public boolean containsNode(NodeType data) {
+    return liveId(data) != -1;
+  }
+
+  @Override
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  @Override
+  public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
+    int u = liveId(pred);
+    int v = liveId(succ);
+    if (u == -1 || v == -1)
+      return false;
+    int i = indexOf(u, v);
+    if (i != -1) {
+      storeWeight(u, i, weight, targets[u].length);
+    } else {
+      i = outDegree[u];
+      if (i == targets[u].length)
+        targets[u] = Arrays.copyOf(targets[u], i * 2);
+      storeWeight(u, i, weight, targets[u].length);
+      targets[u][i] = v;
+      outDegree[u]++;
+      if (inDegree[v] == sources[v].length)
+        sources[v] = Arrays.copyOf(sources[v], inDegree[v] * 2);
+      sources[v][inDegree[v]++] = u;
+      edgeCount++;
+    }
+    modificationCount++;
+    return true;
+  }
+
+  /**
+   * Inserts every node and edge of a batch, growing each node's successor, predecessor and weight
+   * arrays once to their final sizes before adding the edges in a single sweep over the batch. The
+   * whole batch counts as one change.
+   *
+   * @param batch the nodes and edges to insert
+   * @return the number of edges that were not already in the graph
+   */
+  @Override
+  public int insertEdges(EdgeBatch<NodeType, EdgeType> batch) {
+    int idsNeeded = symbols.size() + batch.getNodeCount();
+    if (idsNeeded > present.length)
+      growAllNodes(Math.max(idsNeeded, present.length * 2));
+    int[] ids = new int[batch.getNodeCount()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = symbols.intern(batch.getNode(i));
+      addNode(ids[i]);
+    }
+    // find the edges already in the graph, and count the new edges of each node
+    int[] existing = new int[batch.size()];
+    int[] leaving = new int[ids.length];
+    int[] entering = new int[ids.length];
+    for (int e = 0; e < batch.size(); e++) {
+      existing[e] = indexOf(ids[batch.getPredecessor(e)], ids[batch.getSuccessor(e)]);
+      if (existing[e] == -1) {
+        leaving[batch.getPredecessor(e)]++;
+        entering[batch.getSuccessor(e)]++;
+      }
+    }
+    for (int i = 0; i < ids.length; i++) {
+      int u = ids[i];
+      if (outDegree[u] + leaving[i] > targets[u].length)
+        targets[u] = Arrays.copyOf(targets[u], outDegree[u] + leaving[i]);
+      if (inDegree[u] + entering[i] > sources[u].length)
+        sources[u] = Arrays.copyOf(sources[u], inDegree[u] + entering[i]);
+    }
+    // then add or update every edge
+    int inserted = 0;
+    for (int e = 0; e < batch.size(); e++) {
+      int u = ids[batch.getPredecessor(e)];
+      int v = ids[batch.getSuccessor(e)];
+      int i = existing[e];
+      if (i != -1) {
+        storeWeight(u, i, batch.combine(boxedWeight(u, i), batch.getWeight(e)), targets[u].length);
+        continue;
+      }
+      i = outDegree[u]++;
+      storeWeight(u, i, batch.getWeight(e), targets[u].length);
+      targets[u][i] = v;
+      sources[v][inDegree[v]++] = u;
+      inserted++;
+    }
+    edgeCount += inserted;
+    modificationCount++;
+    return inserted;
+  }
+
+  @Override
+  public boolean removeEdge(NodeType pred, NodeType succ) {
+    int u = liveId(pred);
+    int v = liveId(succ);
+    int i = u == -1 || v == -1 ? -1 : indexOf(u, v);
+    if (i == -1)
+      return false;
+    removeTarget(u, i);
+    removeSource(v, u);
+    edgeCount--;
+    modificationCount++;
+    return true;
+  }
+
+  @Override
+  public boolean containsEdge(NodeType pred, NodeType succ) {
+    int u = liveId(pred);
+    int v = liveId(succ);
+    return u != -1 && v != -1 && indexOf(u, v) != -1;
+  }
+
+  @Override
+  public EdgeType getEdge(NodeType pred, NodeType succ) {
+    int u = liveId(pred);
+    int v = liveId(succ);
+    int i = u == -1 || v == -1 ? -1 : indexOf(u, v);
+    if (i == -1)
+      throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+    return boxedWeight(u, i);
+  }
+
+  @Override
+  public EdgeType findEdge(NodeType pred, NodeType succ) {
+    int u = liveId(pred);
+    int v = liveId(succ);
+    int i = u == -1 || v == -1 ? -1 : indexOf(u, v);
+    return i == -1 ? null : boxedWeight(u, i);
+  }
+
+  @Override
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  @Override
+  public int getModificationCount() {
+    return modificationCount;
+  }
+
+  /**
+   * Records the position of a node on a flat map, in meters.
+   *
+   * @param data the data item stored in the node
+   * @param x    the node's east-west coordinate in meters
+   * @param y    the node's north-south coordinate in meters
+   * @return true if the position was recorded, or false if data is not found in the graph
+   */
+  public boolean setNodePosition(NodeType data, double x, double y) {
+    return setPosition(liveId(data), x, y, false);
+  }
+
+  /**
+   * Records the geographic location of a node.
+   *
+   * @param data      the data item stored in the node
+   * @param latitude  the node's latitude in degrees
+   * @param longitude the node's longitude in degrees
+   * @return true if the location was recorded, or false if data is not found in the graph
+   */
+  public boolean setNodeLocation(NodeType data, double latitude, double longitude) {
+    return setPosition(liveId(data), longitude, latitude, true);
+  }
+
+  /**
+   * Returns the position recorded for a node.
+   *
+   * @param data the data item stored in the node
+   * @return {x, y} in meters, {longitude, latitude} in degrees for geographic locations, or null if
+   *         the node has no recorded position
+   * @throws NoSuchElementException if data is not found in the graph
+   */
+  public double[] getNodePosition(NodeType data) {
+    int id = liveId(data);
+    if (id == -1)
+      throw new NoSuchElementException("No node stores " + data);
+    if (Double.isNaN(xs[id]))
+      return null;
+    return new double[] {xs[id], ys[id]};
+  }
+
+  // records a position for the node with id, unless id is -1
+  private boolean setPosition(int id, double x, double y, boolean isGeographic) {
+    if (id == -1)
+      return false;
+    xs[id] = x;
+    ys[id] = y;
+    geographic[id] = isGeographic;
+    return true;
+  }
+
+  /**
+   * Compiles the current contents of this graph, including the positions of its nodes, into an
+   * immutable CompactGraph snapshot, the way BaseGraph.freeze() does. Later changes to this graph
+   * do not affect the snapshot.
+   *
+   * @return a compressed sparse row copy of this graph
+   */
+  public CompactGraph<NodeType> freeze() {
+    int[] frozenIds = new int[symbols.size()];
+    SymbolTable<NodeType> frozenSymbols = new SymbolTable<>(nodeCount);
+    double[] frozenXs = new double[nodeCount];
+    double[] frozenYs = new double[nodeCount];
+    boolean[] frozenGeographic = new boolean[nodeCount];
+    for (int u = 0; u < symbols.size(); u++) {
+      frozenIds[u] = present[u] ? frozenSymbols.intern(symbols.valueOf(u)) : -1;
+      if (present[u]) {
+        frozenXs[frozenIds[u]] = xs[u];
+        frozenYs[frozenIds[u]] = ys[u];
+        frozenGeographic[frozenIds[u]] = geographic[u];
+      }
+    }
+    // count the edges leaving each node to find where each node's edges start
+    int[] offsets = new int[nodeCount + 1];
+    for (int u = 0; u < symbols.size(); u++)
+      if (present[u])
+        offsets[frozenIds[u] + 1] = outDegree[u];
+    for (int u = 0; u < nodeCount; u++)
+      offsets[u + 1] += offsets[u];
+    // then copy each node's edges into its own range of the edge arrays
+    int[] frozenTargets = new int[offsets[nodeCount]];
+    double[] frozenWeights = new double[offsets[nodeCount]];
+    for (int u = 0; u < symbols.size(); u++) {
+      if (!present[u])
+        continue;
+      int e = offsets[frozenIds[u]];
+      for (int i = 0; i < outDegree[u]; i++, e++) {
+        frozenTargets[e] = frozenIds[targets[u][i]];
+        frozenWeights[e] = weight(u, i);
+      }
+    }
+    return new CompactGraph<>(frozenSymbols, offsets, frozenTargets, frozenWeights, frozenXs,
+        frozenYs, frozenGeographic);
+  }
+
+  @Override
+  public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+    return shortestPath(start, end).getNodes();
+  }
+
+  @Override
+  public double shortestPathCost(NodeType start, NodeType end) {
+    int source = liveId(start);
+    int target = liveId(end);
+    if (source == -1 || target == -1)
+      throw new NoSuchElementException();
+    SearchWorkspace workspace = search(source, target);
+    if (workspace == null)
+      throw new NoSuchElementException("There is no way to connect start and end node");
+    try (workspace) {
+      return workspace.dist(target);
+    }
+  }
+
+  @Override
+  public PathResult<NodeType> shortestPath(NodeType start, NodeType end) {
+    int[] ids = endpoints(start, end);
+    SearchWorkspace workspace = search(ids[0], ids[1]);
+    if (workspace == null)
+      throw new NoSuchElementException("There is no way to connect start and end node");
+    try (workspace) {
+      // count the path's nodes first, so the result lists can be filled from the back
+      int length = 1;
+      for (int v = ids[1]; v != ids[0]; v = workspace.parent(v))
+        length++;
+      Object[] pathNodes = new Object[length];
+      Double[] segmentCosts = new Double[length - 1];
+      int index = length - 1;
+      for (int v = ids[1]; v != ids[0]; v = workspace.parent(v)) {
+        pathNodes[index] = symbols.valueOf(v);
+        segmentCosts[--index] = weight(workspace.parent(v), workspace.parentEdge(v));
+      }
+      pathNodes[0] = symbols.valueOf(ids[0]);
+      @SuppressWarnings("unchecked")
+      List<NodeType> nodeList = (List<NodeType>) Arrays.asList(pathNodes);
+      return new PathResult<>(nodeList, Arrays.asList(segmentCosts), workspace.dist(ids[1]));
+    }
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from source until target is settled, in a pooled SearchWorkspace.
+   * Each node's parent edge is the index of the edge among its parent's leaving edges. Nothing is
+   * allocated unless the pooled workspace has never searched a graph this large before.
+   *
+   * @param source the id of the start node
+   * @param target the id of the end node
+   * @return the workspace holding the search's results, which the caller must close, or null if
+   *         there is no path to target
+   */
+  private SearchWorkspace search(int source, int target) {
+    SearchWorkspace workspace = SearchWorkspace.acquire(symbols.size());
+    workspace.start(source);
+    while (!workspace.isEmpty()) {
+      int u = workspace.removeMin();
+      if (u == target)
+        return workspace;
+      double uCost = workspace.dist(u);
+      int[] uTargets = targets[u];
+      for (int i = 0, degree = outDegree[u]; i < degree; i++)
+        workspace.relax(uTargets[i], uCost + weight(u, i), u, i);
+    }
+    workspace.close();
+    return null;
+  }
+
+  /**
+   * Looks up the ids of the start and end nodes of a query.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return an array holding the start id followed by the end id
+   * @throws NoSuchElementException if either node is not in this graph
+   */
+  protected int[] endpoints(NodeType start, NodeType end) {
+    int startId = liveId(start);
+    int endId = liveId(end);
+    if (startId == -1 || endId == -1)
+      throw new NoSuchElementException();
+    return new int[] {startId, endId};
+  }
+
+  /**
+   * Returns the id of the node holding data, or -1 if there is no such node.
+   *
+   * @param data the node data to look up
+   * @return the id of data's node, or -1
+   * @throws NullPointerException if data is null
+   */
+  protected int liveId(NodeType data) {
+    int id = symbols.idOf(data);
+    return id != -1 && present[id] ? id : -1;
+  }
+
+  // returns the index of the edge from u to v within u's successor array, or -1 if there is none
+  private int indexOf(int u, int v) {
+    int[] uTargets = targets[u];
+    for (int i = 0, degree = outDegree[u]; i < degree; i++)
+      if (uTargets[i] == v)
+        return i;
+    return -1;
+  }
+
+  // removes the edge at index i of u's successor array by moving u's last edge into its place
+  private void removeTarget(int u, int i) {
+    int last = --outDegree[u];
+    targets[u][i] = targets[u][last];
+    moveWeight(u, last, i);
+  }
+
+  // removes u from v's predecessor array by moving v's last predecessor into its place
+  private void removeSource(int v, int u) {
+    int[] vSources = sources[v];
+    for (int i = 0; i < inDegree[v]; i++) {
+      if (vSources[i] == u) {
+        vSources[i] = vSources[--inDegree[v]];
+        return;
+      }
+    }
+  }
+
+  // grows every per node array to hold capacity node ids
+  private void growAllNodes(int capacity) {
+    present = Arrays.copyOf(present, capacity);
+    targets = Arrays.copyOf(targets, capacity);
+    outDegree = Arrays.copyOf(outDegree, capacity);
+    sources = Arrays.copyOf(sources, capacity);
+    inDegree = Arrays.copyOf(inDegree, capacity);
+    int known = xs.length;
+    xs = Arrays.copyOf(xs, capacity);
+    ys = Arrays.copyOf(ys, capacity);
+    Arrays.fill(xs, known, capacity, Double.NaN);
+    Arrays.fill(ys, known, capacity, Double.NaN);
+    geographic = Arrays.copyOf(geographic, capacity);
+    growNodes(capacity);
+  }
+
+  // creates a position array in which every position is unknown
+  private static double[] newUnknownPositions(int capacity) {
+    double[] positions = new double[capacity];
+    Arrays.fill(positions, Double.NaN);
+    return positions;
+  }
+}
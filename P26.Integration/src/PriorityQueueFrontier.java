@@ -0,0 +1,96 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Implements SearchFrontier using an instance of java.util.PriorityQueue. Since the queue does not
+ * track where each key is stored, contains() and decreaseKey() must walk the whole queue, which
+ * makes them O(n). This is how DijkstraGraph originally kept its frontier, and it is kept so that
+ * it can be benchmarked against IndexedMinHeap.
+ *
+ * @param KeyType is the type used to identify the nodes stored in this frontier
+ */
+public class PriorityQueueFrontier<KeyType> implements SearchFrontier<KeyType> {
+
+  // Each entry pairs a key with its priority, and entries are sorted by that priority
+  private class Entry implements Comparable<Entry> {
+    public KeyType key;
+    public double priority;
+
+    public Entry(KeyType key, double priority) {
+      this.key = key;
+      this.priority = priority;
+    }
+
+    public int compareTo(Entry other) {
+      return Double.compare(priority, other.priority);
+    }
+  }
+
+  private PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+  @Override
+  public void add(KeyType key, double priority) {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    if (contains(key))
+      throw new IllegalArgumentException("key " + key.toString() + " already present in queue");
+    queue.add(new Entry(key, priority));
+  }
+
+  @Override
+  public void decreaseKey(KeyType key, double priority) {
+    Entry entry = find(key);
+    if (entry == null)
+      throw new NoSuchElementException("key " + key + " not in queue");
+    // java.util.PriorityQueue cannot reorder an entry in place, so remove and re-add it
+    queue.remove(entry);
+    entry.priority = priority;
+    queue.add(entry);
+  }
+
+  @Override
+  public boolean contains(KeyType key) {
+    return find(key) != null;
+  }
+
+  @Override
+  public KeyType removeMin() {
+    if (queue.isEmpty())
+      throw new NoSuchElementException("queue is empty");
+    return queue.remove().key;
+  }
+
+  @Override
+  public double peekPriority() {
+    if (queue.isEmpty())
+      throw new NoSuchElementException("queue is empty");
+    return queue.peek().priority;
+  }
+
+  @Override
+  public int size() {
+    return queue.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return queue.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    queue.clear();
+  }
+
+  // walks the queue looking for the entry that stores key, returning null when there is none
+  private Entry find(KeyType key) {
+    Iterator<Entry> iterator = queue.iterator();
+    while (iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (entry.key.equals(key))
+        return entry;
+    }
+    return null;
+  }
+}
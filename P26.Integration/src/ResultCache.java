@@ -0,0 +1,222 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * This class is a thread-safe cache of query results that is bounded in size, drops results after
+ * a fixed time to live, and evicts results that have not been used recently when it is full.
+ *
+ * Every result is stored along with the version of the data it was computed from (such as
+ * GraphADT.getModificationCount()), and a lookup only returns a result stored for exactly the
+ * version it asks for. A thread still answering from older data therefore never gets a result
+ * computed from newer data, nor the other way around. The cache also counts the lookups that found
+ * a result (hits), those that did not (misses) and the results it evicted, to show how well it is
+ * working.
+ *
+ * Lookups never lock: the results are held in a ConcurrentHashMap, and a hit only marks its result
+ * as referenced. Stores, which only follow a lookup that missed, take turns. When the cache is
+ * full, a store evicts with the CLOCK approximation of least recently used: a hand sweeps over the
+ * held results, giving each one that was referenced since the hand last passed it another round,
+ * and evicting the first that was not. Results for an older version or that have expired are
+ * replaced before any other.
+ *
+ * @param KeyType   is the type of the queries
+ * @param ValueType is the type of the results
+ */
+public class ResultCache<KeyType, ValueType> {
+
+  // A stored result, the data version it was computed from, and when it expires in the clock's
+  // nanoseconds
+  private static class Entry<KeyType, ValueType> {
+    final KeyType key;
+    final ValueType value;
+    final int version;
+    final long expiresAt;
+    int slot; // the index of this entry in slots; guarded by the cache
+    volatile boolean referenced = false; // whether a lookup found this entry since the hand passed
+
+    Entry(KeyType key, ValueType value, int version, long expiresAt) {
+      this.key = key;
+      this.value = value;
+      this.version = version;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final int maxEntries; // the most results held at once
+  private final long timeToLiveNanos; // how long a result may be returned after it was stored
+  private final LongSupplier clock; // the current time in nanoseconds
+  private final ConcurrentHashMap<KeyType, Entry<KeyType, ValueType>> entries =
+      new ConcurrentHashMap<>();
+  // every held entry, in the order the clock hand sweeps over them; guarded by this
+  private Object[] slots = new Object[16];
+  private int used = 0; // the number of slots holding an entry; guarded by this
+  private int hand = 0; // the next slot the clock hand looks at; guarded by this
+  private int newestVersion = Integer.MIN_VALUE; // the newest version stored; guarded by this
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private long evictionCount = 0; // guarded by this
+
+  /**
+   * Creates an empty cache with the provided limits.
+   *
+   * @param maxEntries the most results this cache may hold
+   * @param timeToLive how long a stored result may be returned
+   * @param unit       the unit of timeToLive
+   * @throws IllegalArgumentException if maxEntries or timeToLive is not positive
+   */
+  public ResultCache(int maxEntries, long timeToLive, TimeUnit unit) {
+    this(maxEntries, timeToLive, unit, System::nanoTime);
+  }
+
+  /**
+   * Creates an empty cache that reads the time from the provided clock, so that tests can control
+   * when results expire.
+   *
+   * @param maxEntries the most results this cache may hold
+   * @param timeToLive how long a stored result may be returned
+   * @param unit       the unit of timeToLive
+   * @param clock      returns the current time in nanoseconds
+   * @throws IllegalArgumentException if maxEntries or timeToLive is not positive
+   */
+  ResultCache(int maxEntries, long timeToLive, TimeUnit unit, LongSupplier clock) {
+    if (maxEntries < 1)
+      throw new IllegalArgumentException("maxEntries must be positive");
+    if (timeToLive < 1)
+      throw new IllegalArgumentException("timeToLive must be positive");
+    this.maxEntries = maxEntries;
+    this.timeToLiveNanos = unit.toNanos(timeToLive);
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the stored result for key, if one was stored for exactly the provided data version and
+   * has not expired. This never locks.
+   *
+   * @param key     the query to look up
+   * @param version the version of the data the caller is answering from
+   * @return the stored result, or null if there is none
+   */
+  public ValueType get(KeyType key, int version) {
+    Entry<KeyType, ValueType> entry = entries.get(key);
+    if (entry == null || entry.version != version || isExpired(entry)) {
+      missCount.increment();
+      return null;
+    }
+    if (!entry.referenced)
+      entry.referenced = true; // only written once per sweep, so hot results are not contended
+    hitCount.increment();
+    return entry.value;
+  }
+
+  /**
+   * Stores the result of a query computed from the provided data version, evicting a result that
+   * has not been used recently if this cache is full. A result stored for a newer version of the
+   * same query is not replaced.
+   *
+   * @param key     the query
+   * @param value   the result of the query
+   * @param version the version of the data that value was computed from
+   */
+  public synchronized void put(KeyType key, ValueType value, int version) {
+    Entry<KeyType, ValueType> old = entries.get(key);
+    if (old != null && old.version > version)
+      return;
+    newestVersion = Math.max(newestVersion, version);
+    Entry<KeyType, ValueType> entry =
+        new Entry<>(key, value, version, clock.getAsLong() + timeToLiveNanos);
+    if (old != null) {
+      entry.slot = old.slot;
+    } else if (used < maxEntries) {
+      if (used == slots.length)
+        slots = Arrays.copyOf(slots, (int) Math.min(maxEntries, 2L * slots.length));
+      entry.slot = used++;
+    } else {
+      entry.slot = evict();
+    }
+    slots[entry.slot] = entry;
+    entries.put(key, entry);
+  }
+
+  /**
+   * Removes every result from this cache.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    Arrays.fill(slots, 0, used, null);
+    used = 0;
+    hand = 0;
+  }
+
+  /**
+   * Returns the number of results this cache holds, including any that have expired or were
+   * computed from an older version but have not been replaced yet.
+   *
+   * @return the number of results
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the number of lookups that found a result.
+   *
+   * @return the number of cache hits
+   */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Returns the number of lookups that found no result.
+   *
+   * @return the number of cache misses
+   */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Returns the number of current results removed to make room for newer ones. Results that had
+   * expired or were computed from an older version are not counted.
+   *
+   * @return the number of evictions
+   */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "ResultCache[size=" + entries.size() + ", hits=" + hitCount.sum() + ", misses="
+        + missCount.sum() + ", evictions=" + evictionCount + "]";
+  }
+
+  // moves the clock hand to the first slot whose entry can be replaced, removes that entry, and
+  // returns its slot. Every referenced entry the hand passes loses its mark, so this stops within
+  // two sweeps
+  @SuppressWarnings("unchecked")
+  private int evict() {
+    while (true) {
+      int slot = hand;
+      hand = hand + 1 == used ? 0 : hand + 1;
+      Entry<KeyType, ValueType> entry = (Entry<KeyType, ValueType>) slots[slot];
+      boolean current = entry.version == newestVersion && !isExpired(entry);
+      if (current && entry.referenced) {
+        entry.referenced = false;
+        continue;
+      }
+      entries.remove(entry.key, entry);
+      if (current)
+        evictionCount++;
+      return slot;
+    }
+  }
+
+  // checks whether an entry may no longer be returned
+  private boolean isExpired(Entry<KeyType, ValueType> entry) {
+    return clock.getAsLong() - entry.expiresAt >= 0;
+  }
+}
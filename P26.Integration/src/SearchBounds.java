@@ -0,0 +1,76 @@
+/**
+ * This class holds the limits that a single shortest path search is allowed to use before it gives
+ * up. Bounding searches keeps one query on a very large graph from occupying a worker for too long.
+ * SearchBounds objects are immutable.
+ */
+public class SearchBounds {
+
+  /**
+   * Bounds that never stop a search early.
+   */
+  public static final SearchBounds UNBOUNDED =
+      new SearchBounds(Double.POSITIVE_INFINITY, Integer.MAX_VALUE);
+
+  private final double maxCost; // paths that cost more than this are not explored
+  private final int maxSettledNodes; // the number of nodes a search may settle
+
+  /**
+   * Creates bounds with the provided limits.
+   *
+   * @param maxCost         the largest path cost a search may explore
+   * @param maxSettledNodes the largest number of nodes a search may settle
+   * @throws IllegalArgumentException if maxCost is negative or NaN, or maxSettledNodes is not
+   *                                  positive
+   */
+  public SearchBounds(double maxCost, int maxSettledNodes) {
+    if (!(maxCost >= 0.0))
+      throw new IllegalArgumentException("maxCost must be non-negative");
+    if (maxSettledNodes < 1)
+      throw new IllegalArgumentException("maxSettledNodes must be positive");
+    this.maxCost = maxCost;
+    this.maxSettledNodes = maxSettledNodes;
+  }
+
+  /**
+   * Creates bounds that only limit the cost of the paths a search explores.
+   *
+   * @param maxCost the largest path cost a search may explore
+   * @return the new bounds
+   */
+  public static SearchBounds maxCost(double maxCost) {
+    return new SearchBounds(maxCost, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates bounds that only limit the number of nodes a search settles.
+   *
+   * @param maxSettledNodes the largest number of nodes a search may settle
+   * @return the new bounds
+   */
+  public static SearchBounds maxSettledNodes(int maxSettledNodes) {
+    return new SearchBounds(Double.POSITIVE_INFINITY, maxSettledNodes);
+  }
+
+  /**
+   * Returns the largest path cost a search may explore.
+   *
+   * @return the maximum path cost
+   */
+  public double getMaxCost() {
+    return maxCost;
+  }
+
+  /**
+   * Returns the largest number of nodes a search may settle.
+   *
+   * @return the maximum number of settled nodes
+   */
+  public int getMaxSettledNodes() {
+    return maxSettledNodes;
+  }
+
+  @Override
+  public String toString() {
+    return "SearchBounds[maxCost=" + maxCost + ", maxSettledNodes=" + maxSettledNodes + "]";
+  }
+}
@@ -0,0 +1,72 @@
+import java.util.NoSuchElementException;
+
+/**
+ * This interface represents the frontier of a shortest path search: the set of nodes that have
+ * been discovered but not yet settled, ordered by their tentative path cost. Each key is stored at
+ * most once, and the priority of a stored key can only be lowered.
+ *
+ * @param KeyType is the type used to identify the nodes stored in this frontier
+ */
+public interface SearchFrontier<KeyType> {
+
+  /**
+   * Adds a new key to this frontier with the provided priority.
+   *
+   * @param key      the key to add
+   * @param priority the tentative cost associated with the key
+   * @throws IllegalArgumentException if key is already stored in this frontier
+   */
+  public void add(KeyType key, double priority);
+
+  /**
+   * Lowers the priority of a key that is already stored in this frontier.
+   *
+   * @param key      the key whose priority is lowered
+   * @param priority the new priority, which must not be greater than the current one
+   * @throws NoSuchElementException if key is not stored in this frontier
+   */
+  public void decreaseKey(KeyType key, double priority);
+
+  /**
+   * Checks whether a key is currently stored in this frontier.
+   *
+   * @param key the key to check
+   * @return true if the key is stored in this frontier, or false otherwise
+   */
+  public boolean contains(KeyType key);
+
+  /**
+   * Removes and returns the key with the lowest priority.
+   *
+   * @return the key with the lowest priority
+   * @throws NoSuchElementException if this frontier is empty
+   */
+  public KeyType removeMin();
+
+  /**
+   * Returns the lowest priority stored in this frontier without removing its key.
+   *
+   * @return the lowest priority in this frontier
+   * @throws NoSuchElementException if this frontier is empty
+   */
+  public double peekPriority();
+
+  /**
+   * Retrieves the number of keys stored in this frontier.
+   *
+   * @return the number of keys stored in this frontier
+   */
+  public int size();
+
+  /**
+   * Checks whether this frontier contains no keys.
+   *
+   * @return true if this frontier is empty, or false otherwise
+   */
+  public boolean isEmpty();
+
+  /**
+   * Removes all keys from this frontier.
+   */
+  public void clear();
+}
@@ -0,0 +1,21 @@
+import java.util.NoSuchElementException;
+
+/**
+ * Thrown when a shortest path search stops because it reached one of its SearchBounds before
+ * settling the destination. This is a NoSuchElementException because, as far as the caller is
+ * concerned, no path was found, but it lets callers tell a bounded search apart from a destination
+ * that cannot be reached at all.
+ */
+public class SearchLimitExceededException extends NoSuchElementException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates an exception with the provided message.
+   *
+   * @param message the reason the search stopped
+   */
+  public SearchLimitExceededException(String message) {
+    super(message);
+  }
+}
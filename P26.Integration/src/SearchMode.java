@@ -0,0 +1,37 @@
+/**
+ * The algorithms that DijkstraGraph, and Backend for the snapshots it searches, can use to compute
+ * shortest paths. Every mode returns a path with the same, lowest cost.
+ */
+public enum SearchMode {
+
+  /**
+   * Dijkstra's algorithm, searching forward from the start node. This is the default mode.
+   */
+  DIJKSTRA,
+
+  /**
+   * Dijkstra's algorithm, searching forward from the start node and backward from the end node at
+   * the same time until the two searches meet.
+   */
+  BIDIRECTIONAL,
+
+  /**
+   * A* search, which settles nodes closer to the end node first, using the straight line distance
+   * between node positions and the graph's maximum walking speed to bound the remaining cost.
+   * Nodes without a position fall back to Dijkstra's algorithm.
+   */
+  ASTAR,
+
+  /**
+   * A* search using landmark lower bounds (ALT), which needs no node positions. The landmark
+   * tables are built by the first ALT search, and rebuilt after the graph changes.
+   */
+  ALT,
+
+  /**
+   * Bidirectional upward search in a ContractionHierarchy. The hierarchy is built by the first such
+   * search, and rebuilt after the graph changes. Preprocessing takes much longer than the other
+   * modes, but queries on large graphs are far faster.
+   */
+  CONTRACTION_HIERARCHY
+}
@@ -0,0 +1,232 @@
+import java.util.Arrays;
+
+/**
+ * This class holds the distance, parent and heap arrays of a single-source shortest path search
+ * over node ids, so that searches can reuse them instead of allocating their own. Idle workspaces
+ * are kept in a bounded WorkspacePool that every thread shares: acquire() takes one out for a
+ * search on any graph, and close() gives it back. Threads that only run one search, such as the
+ * virtual thread serving a request, therefore still reuse the arrays of earlier searches.
+ *
+ * Instead of resetting the arrays between searches, each search gets a new generation number, and
+ * an entry only counts as set if it was stamped with the current generation. Starting a search is
+ * therefore O(1) no matter how many nodes the last search reached, and a search with a warm pool
+ * allocates nothing. The arrays only grow when a search needs more ids than any search before it.
+ *
+ * A workspace belongs to whoever acquired it until they close it, so it is best used in a
+ * try-with-resources statement. Its results are only valid until then.
+ */
+public class SearchWorkspace implements AutoCloseable {
+
+  private static final WorkspacePool<SearchWorkspace> POOL =
+      new WorkspacePool<>(SearchWorkspace::new);
+
+  private double[] dist = new double[0]; // cost of the cheapest path found to each node
+  private int[] parent = new int[0]; // predecessor of each node along that path
+  private int[] parentEdge = new int[0]; // index of the edge from that predecessor
+  private int[] stamps = new int[0]; // generation in which each node's entries were last set
+  private int generation = 0;
+  private int settledCount = 0; // the number of nodes removeMin() settled in this search
+  private IntMinHeap heap = new IntMinHeap(0);
+  private boolean inUse = false; // whether this workspace was acquired and not closed since
+
+  private SearchWorkspace() {
+  }
+
+  /**
+   * Takes an idle workspace from the shared pool, or creates one if none is idle, ready for a new
+   * search over ids [0, nodeCount). The caller must close it once done with its results.
+   *
+   * @param nodeCount one more than the largest node id the search may reach
+   * @return the workspace, with no node reached and an empty heap
+   */
+  public static SearchWorkspace acquire(int nodeCount) {
+    SearchWorkspace workspace = POOL.take();
+    workspace.inUse = true;
+    workspace.begin(nodeCount);
+    return workspace;
+  }
+
+  /**
+   * Returns this workspace to the shared pool, so that a later search may reuse it. Its results
+   * must not be read afterwards.
+   *
+   * @throws IllegalStateException if this workspace was already closed
+   */
+  @Override
+  public void close() {
+    if (!inUse)
+      throw new IllegalStateException("workspace already closed");
+    inUse = false;
+    POOL.release(this);
+  }
+
+  // forgets the last search, growing the arrays first if they are too small for nodeCount ids
+  private void begin(int nodeCount) {
+    if (stamps.length < nodeCount) {
+      int capacity = Math.max(nodeCount, 2 * stamps.length);
+      dist = new double[capacity];
+      parent = new int[capacity];
+      parentEdge = new int[capacity];
+      stamps = new int[capacity];
+      heap = new IntMinHeap(capacity);
+      generation = 0;
+    } else {
+      heap.clear();
+    }
+    settledCount = 0;
+    if (++generation == 0) {
+      // after 2^32 searches the generations wrap around, and old stamps could look current
+      Arrays.fill(stamps, 0);
+      generation = 1;
+    }
+  }
+
+  /**
+   * Starts the search at source, with a cost of 0.0 and no parent.
+   *
+   * @param source the id of the start node
+   */
+  public void start(int source) {
+    reach(source, 0.0, -1, -1);
+    heap.add(source, 0.0);
+  }
+
+  /**
+   * Offers a path to v that costs cost and ends with the edge from u with index edge. The first
+   * path found to v adds it to the heap, and a cheaper path replaces its current one. Since edge
+   * weights are never negative, nodes that have already been settled are never reached more
+   * cheaply.
+   *
+   * @param v    the node at the far end of the edge
+   * @param cost the cost of the path to v through the edge
+   * @param u    the node at the near end of the edge
+   * @param edge the index of the edge, in whatever numbering the graph uses
+   * @return true if this path was recorded, or false if one at least as cheap was already known
+   */
+  public boolean relax(int v, double cost, int u, int edge) {
+    if (stamps[v] != generation) {
+      reach(v, cost, u, edge);
+      heap.add(v, cost);
+      return true;
+    }
+    if (cost >= dist[v])
+      return false;
+    reach(v, cost, u, edge);
+    heap.decreaseKey(v, cost);
+    return true;
+  }
+
+  /**
+   * Offers a path to v the way relax(v, cost, u, edge) does, but orders v in the heap by priority
+   * instead of by cost, as goal-directed searches order nodes by their cost plus an estimate of the
+   * cost remaining. A node that was already settled is added to the heap again if a cheaper path
+   * to it is found, which only happens when the estimate is not consistent.
+   *
+   * @param v        the node at the far end of the edge
+   * @param cost     the cost of the path to v through the edge
+   * @param priority the priority that v is removed from the heap by
+   * @param u        the node at the near end of the edge
+   * @param edge     the index of the edge, in whatever numbering the graph uses
+   * @return true if this path was recorded, or false if one at least as cheap was already known
+   */
+  public boolean relax(int v, double cost, double priority, int u, int edge) {
+    if (stamps[v] == generation && cost >= dist[v])
+      return false;
+    reach(v, cost, u, edge);
+    if (heap.contains(v))
+      heap.decreaseKey(v, priority);
+    else
+      heap.add(v, priority);
+    return true;
+  }
+
+  /**
+   * Returns the lowest heap priority of the reached nodes that have not been settled yet, which
+   * for relax(v, cost, u, edge) is the lowest cost.
+   *
+   * @return that priority
+   * @throws java.util.NoSuchElementException if every reached node has been settled
+   */
+  public double peekPriority() {
+    return heap.peekPriority();
+  }
+
+  /**
+   * Removes the reached node with the lowest cost that has not been settled yet, settling it.
+   *
+   * @return the id of that node
+   * @throws java.util.NoSuchElementException if every reached node has been settled
+   */
+  public int removeMin() {
+    int min = heap.removeMin();
+    settledCount++;
+    return min;
+  }
+
+  /**
+   * Returns the number of nodes this search has settled so far, which shows how much of the graph
+   * it had to look at.
+   *
+   * @return the number of calls to removeMin() since the search began
+   */
+  public int getSettledCount() {
+    return settledCount;
+  }
+
+  /**
+   * Checks whether every node reached so far has been settled.
+   *
+   * @return true if there is nothing left to settle
+   */
+  public boolean isEmpty() {
+    return heap.isEmpty();
+  }
+
+  /**
+   * Checks whether this search has found any path to v.
+   *
+   * @param v the id of the node
+   * @return true if v has been reached
+   */
+  public boolean reached(int v) {
+    return stamps[v] == generation;
+  }
+
+  /**
+   * Returns the cost of the cheapest path this search has found to v.
+   *
+   * @param v the id of the node
+   * @return that cost, or Double.POSITIVE_INFINITY if v has not been reached
+   */
+  public double dist(int v) {
+    return stamps[v] == generation ? dist[v] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Returns the predecessor of v along the cheapest path this search has found to it.
+   *
+   * @param v the id of a reached node
+   * @return the id of v's predecessor, or -1 for the start node
+   */
+  public int parent(int v) {
+    return parent[v];
+  }
+
+  /**
+   * Returns the index of the edge that the cheapest path this search has found to v ends with.
+   *
+   * @param v the id of a reached node
+   * @return the index of the edge from v's predecessor, or -1 for the start node
+   */
+  public int parentEdge(int v) {
+    return parentEdge[v];
+  }
+
+  // records a path to v, stamping it as set by this search
+  private void reach(int v, double cost, int u, int edge) {
+    dist[v] = cost;
+    parent[v] = u;
+    parentEdge[v] = edge;
+    stamps[v] = generation;
+  }
+}
@@ -26,5 +26,12 @@ public interface ShortestPath {
      */
     public double getTotalTime(String source,String destination);
 
-
+    /**
+     * Returns the whole shortest path from one place to another. getShortestPath, getWalkingTimes
+     * and getTotalTime each return one part of this result.
+     * @param source String of the building path started at.
+     * @param destination String of building path ends at.
+     * @return the buildings, walking times and total time of the shortest path.
+     */
+    public PathResult<String> findPath(String source, String destination);
 }
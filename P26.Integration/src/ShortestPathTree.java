@@ -0,0 +1,89 @@
+import java.util.NoSuchElementException;
+
+/**
+ * This class holds the result of one complete Dijkstra search: the cost of the shortest path from
+ * a single source node to every node of a CompactGraph, and the predecessor of each node along that
+ * path. Since every shortest path from the source can be read back from these arrays by following
+ * predecessors, a path is rebuilt in time proportional to its length instead of by searching again.
+ * ShortestPathTree objects are immutable, and are created with CompactGraph.shortestPathTree().
+ *
+ * @param NodeType is the data type stored at each graph node
+ */
+public class ShortestPathTree<NodeType> {
+
+  private final CompactGraph<NodeType> graph; // the snapshot that was searched
+  private final int source; // the id of the root of this tree
+  private final double[] dist; // cost from source to each node, or infinity if unreachable
+  private final int[] parent; // id of each reached node's predecessor
+  private final int[] parentEdge; // index of the edge from each reached node's predecessor
+
+  /**
+   * Creates a tree from the arrays filled in by a complete search of graph.
+   *
+   * @param graph      the graph that was searched
+   * @param source     the id of the node the search started from
+   * @param dist       the cost of the shortest path to each node
+   * @param parent     the predecessor of each node along its shortest path
+   * @param parentEdge the index of the edge from each node's predecessor
+   */
+  ShortestPathTree(CompactGraph<NodeType> graph, int source, double[] dist, int[] parent,
+      int[] parentEdge) {
+    this.graph = graph;
+    this.source = source;
+    this.dist = dist;
+    this.parent = parent;
+    this.parentEdge = parentEdge;
+  }
+
+  /**
+   * Returns the id of the node this tree's paths start from.
+   *
+   * @return the source id
+   */
+  public int getSource() {
+    return source;
+  }
+
+  /**
+   * Returns the graph this tree was computed for.
+   *
+   * @return the searched graph
+   */
+  public CompactGraph<NodeType> getGraph() {
+    return graph;
+  }
+
+  /**
+   * Returns the cost of the shortest path from the source to target.
+   *
+   * @param target the id of the end node
+   * @return the cost of the shortest path, or Double.POSITIVE_INFINITY if target can not be reached
+   */
+  public double costTo(int target) {
+    return dist[target];
+  }
+
+  /**
+   * Rebuilds the shortest path from the source to target by following predecessors back from
+   * target.
+   *
+   * @param target the id of the end node
+   * @return the shortest path from the source to target
+   * @throws NoSuchElementException if target can not be reached from the source
+   */
+  public PathResult<NodeType> pathTo(int target) {
+    if (dist[target] == Double.POSITIVE_INFINITY)
+      throw new NoSuchElementException("There is no way to connect start and end node");
+    return graph.buildPath(source, target, dist, parent, parentEdge);
+  }
+
+  /**
+   * Returns an estimate of the memory held by this tree's arrays, which caches use to decide how
+   * many trees they can keep.
+   *
+   * @return the approximate size of this tree in bytes
+   */
+  public long getSizeInBytes() {
+    return (long) dist.length * (Double.BYTES + 2 * Integer.BYTES);
+  }
+}
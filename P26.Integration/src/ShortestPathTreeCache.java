@@ -0,0 +1,137 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * This class keeps the shortest path trees of the sources that were queried most recently, so
+ * that repeated queries from a popular start node only need to rebuild a path from a stored tree.
+ * The cache is bounded both by the number of trees it holds and by their total size in bytes, and
+ * evicts the least recently used tree when either limit is passed.
+ *
+ * Every tree is stored along with the version of the graph it was computed for (such as
+ * BaseGraph.getModificationCount()). Looking up or storing a tree for a different version empties
+ * the cache, so a tree computed before the graph changed is never returned. This class is not
+ * thread-safe.
+ *
+ * @param NodeType is the data type stored at each graph node
+ */
+public class ShortestPathTreeCache<NodeType> {
+
+  private final int maxTrees; // the most trees this cache holds at once
+  private final long maxBytes; // the most tree memory this cache holds at once
+  // trees by source id, iterated from least to most recently used
+  private final LinkedHashMap<Integer, ShortestPathTree<NodeType>> trees =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private long sizeInBytes = 0; // total size of the trees held
+  private int version = -1; // the graph version that every held tree was computed for
+  private long hitCount = 0;
+  private long missCount = 0;
+
+  /**
+   * Creates an empty cache with the provided limits.
+   *
+   * @param maxTrees the most trees this cache may hold
+   * @param maxBytes the most memory, as reported by ShortestPathTree.getSizeInBytes(), that the
+   *                 held trees may use together
+   * @throws IllegalArgumentException if either limit is not positive
+   */
+  public ShortestPathTreeCache(int maxTrees, long maxBytes) {
+    if (maxTrees < 1)
+      throw new IllegalArgumentException("maxTrees must be positive");
+    if (maxBytes < 1)
+      throw new IllegalArgumentException("maxBytes must be positive");
+    this.maxTrees = maxTrees;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the stored tree for source, if there is one for the provided version of the graph.
+   *
+   * @param source  the id of the tree's source node
+   * @param version the current version of the graph
+   * @return the stored tree, or null if there is none
+   */
+  public ShortestPathTree<NodeType> get(int source, int version) {
+    checkVersion(version);
+    ShortestPathTree<NodeType> tree = trees.get(source);
+    if (tree == null)
+      missCount++;
+    else
+      hitCount++;
+    return tree;
+  }
+
+  /**
+   * Stores a tree for the provided version of the graph, evicting the least recently used trees
+   * until this cache is back within its limits. A tree that is larger than maxBytes on its own is
+   * not stored.
+   *
+   * @param tree    the tree to store
+   * @param version the version of the graph that tree was computed for
+   */
+  public void put(ShortestPathTree<NodeType> tree, int version) {
+    checkVersion(version);
+    if (tree.getSizeInBytes() > maxBytes)
+      return;
+    ShortestPathTree<NodeType> replaced = trees.put(tree.getSource(), tree);
+    if (replaced != null)
+      sizeInBytes -= replaced.getSizeInBytes();
+    sizeInBytes += tree.getSizeInBytes();
+    Iterator<ShortestPathTree<NodeType>> eldest = trees.values().iterator();
+    while (trees.size() > maxTrees || sizeInBytes > maxBytes) {
+      sizeInBytes -= eldest.next().getSizeInBytes();
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Removes every tree from this cache.
+   */
+  public void clear() {
+    trees.clear();
+    sizeInBytes = 0;
+  }
+
+  /**
+   * Returns the number of trees this cache holds.
+   *
+   * @return the number of trees
+   */
+  public int size() {
+    return trees.size();
+  }
+
+  /**
+   * Returns the total size of the trees this cache holds.
+   *
+   * @return the approximate size of the held trees in bytes
+   */
+  public long getSizeInBytes() {
+    return sizeInBytes;
+  }
+
+  /**
+   * Returns the number of lookups that found a stored tree.
+   *
+   * @return the number of cache hits
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Returns the number of lookups that found no stored tree.
+   *
+   * @return the number of cache misses
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  // empties this cache when the graph has changed since its trees were computed
+  private void checkVersion(int version) {
+    if (version != this.version) {
+      clear();
+      this.version = version;
+    }
+  }
+}
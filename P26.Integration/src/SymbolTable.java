@@ -0,0 +1,83 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * This class assigns each distinct value a dense integer id, starting from 0 in the order the
+ * values are first interned. Ids let graph algorithms index plain arrays by node instead of
+ * hashing node data on every step, and the table translates between the two representations.
+ *
+ * @param ValueType is the type of the values that are assigned ids
+ */
+public class SymbolTable<ValueType> {
+
+  private HashMap<ValueType, Integer> ids = new HashMap<>(); // id of each interned value
+  private ArrayList<ValueType> values = new ArrayList<>(); // values.get(id) is the value with id
+
+  /**
+   * Creates an empty table.
+   */
+  public SymbolTable() {
+  }
+
+  /**
+   * Creates an empty table with room for the provided number of values.
+   *
+   * @param expectedSize the number of values expected to be interned
+   */
+  public SymbolTable(int expectedSize) {
+    ids = new HashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
+    values = new ArrayList<>(expectedSize);
+  }
+
+  /**
+   * Returns the id of a value, assigning it the next unused id if it has not been interned yet.
+   *
+   * @param value the value to intern
+   * @return the id of that value
+   * @throws NullPointerException if value is null
+   */
+  public int intern(ValueType value) {
+    if (value == null)
+      throw new NullPointerException("null keys not allowed");
+    Integer id = ids.get(value);
+    if (id != null)
+      return id;
+    ids.put(value, values.size());
+    values.add(value);
+    return values.size() - 1;
+  }
+
+  /**
+   * Returns the id of a value that has already been interned.
+   *
+   * @param value the value to look up
+   * @return the id of that value, or -1 if it has not been interned
+   * @throws NullPointerException if value is null
+   */
+  public int idOf(ValueType value) {
+    if (value == null)
+      throw new NullPointerException("null keys not allowed");
+    Integer id = ids.get(value);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the value that was assigned the provided id.
+   *
+   * @param id the id to look up
+   * @return the value with that id
+   * @throws IndexOutOfBoundsException if no value has that id
+   */
+  public ValueType valueOf(int id) {
+    return values.get(id);
+  }
+
+  /**
+   * Retrieves the number of values interned in this table, which is also the next unused id.
+   *
+   * @return the number of interned values
+   */
+  public int size() {
+    return values.size();
+  }
+}
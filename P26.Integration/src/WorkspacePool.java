@@ -0,0 +1,104 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * This class is a bounded pool of reusable search workspaces that any thread may take from and
+ * return to. Unlike a ThreadLocal, a workspace is not tied to the thread that created it, so
+ * searches on short-lived threads, such as the virtual thread an HTTP request runs on, reuse the
+ * arrays earlier searches left behind instead of allocating their own.
+ *
+ * Idle workspaces are held in a fixed array of slots, and are taken and returned with
+ * compare-and-set, so the pool never locks or allocates. When every idle workspace has been taken,
+ * take() creates a new one, and when every slot is full, release() drops the workspace it was
+ * given. The memory held between searches therefore stays bounded, while only as many workspaces
+ * exist at once as there are searches running.
+ *
+ * @param WorkspaceType is the type of the pooled workspaces
+ */
+public final class WorkspacePool<WorkspaceType> {
+
+  /**
+   * The number of idle workspaces a pool holds unless told otherwise: two for each core, which is
+   * enough for every core to run a search that needs two workspaces at once.
+   */
+  public static final int DEFAULT_CAPACITY = 2 * Runtime.getRuntime().availableProcessors();
+
+  private final AtomicReferenceArray<WorkspaceType> idle; // null for empty slots
+  private final Supplier<? extends WorkspaceType> factory;
+
+  /**
+   * Creates an empty pool that holds up to DEFAULT_CAPACITY idle workspaces.
+   *
+   * @param factory creates a workspace when none is idle
+   */
+  public WorkspacePool(Supplier<? extends WorkspaceType> factory) {
+    this(DEFAULT_CAPACITY, factory);
+  }
+
+  /**
+   * Creates an empty pool that holds up to capacity idle workspaces.
+   *
+   * @param capacity the most idle workspaces to keep
+   * @param factory  creates a workspace when none is idle
+   * @throws IllegalArgumentException if capacity is not positive
+   */
+  public WorkspacePool(int capacity, Supplier<? extends WorkspaceType> factory) {
+    if (capacity < 1)
+      throw new IllegalArgumentException("capacity must be positive");
+    idle = new AtomicReferenceArray<>(capacity);
+    this.factory = factory;
+  }
+
+  /**
+   * Takes an idle workspace out of this pool, or creates a new one if none is idle. The caller
+   * owns the workspace until it passes it to release().
+   *
+   * @return a workspace that no other search is using
+   */
+  public WorkspaceType take() {
+    int first = firstSlot();
+    for (int i = 0; i < idle.length(); i++) {
+      int slot = (first + i) % idle.length();
+      WorkspaceType workspace = idle.get(slot);
+      if (workspace != null && idle.compareAndSet(slot, workspace, null))
+        return workspace;
+    }
+    return factory.get();
+  }
+
+  /**
+   * Returns a workspace taken from this pool, so that a later search may reuse it. The caller must
+   * not use it afterwards.
+   *
+   * @param workspace the workspace to return
+   * @return true if the workspace is kept, or false if this pool is full and dropped it
+   */
+  public boolean release(WorkspaceType workspace) {
+    int first = firstSlot();
+    for (int i = 0; i < idle.length(); i++) {
+      int slot = (first + i) % idle.length();
+      if (idle.get(slot) == null && idle.compareAndSet(slot, null, workspace))
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of workspaces this pool holds idle right now.
+   *
+   * @return the idle workspace count
+   */
+  public int getIdleCount() {
+    int count = 0;
+    for (int slot = 0; slot < idle.length(); slot++)
+      if (idle.get(slot) != null)
+        count++;
+    return count;
+  }
+
+  // the slot each thread looks at first, so that threads running at once mostly use different
+  // slots, and a thread that searches again gets back the workspace it just returned
+  private int firstSlot() {
+    return Math.floorMod(System.identityHashCode(Thread.currentThread()), idle.length());
+  }
+}